@@ -15,6 +15,7 @@ import com.alkisum.android.cloudrun.dialogs.DurationDialog;
 import com.alkisum.android.cloudrun.model.Session;
 import com.alkisum.android.cloudrun.model.SessionDao;
 import com.alkisum.android.cloudrun.utils.Format;
+import com.alkisum.android.cloudrun.utils.Statistics;
 import com.wdullaer.materialdatetimepicker.date.DatePickerDialog;
 import com.wdullaer.materialdatetimepicker.time.TimePickerDialog;
 
@@ -29,7 +30,7 @@ import butterknife.ButterKnife;
  * Activity to add a session manually to the database.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 2.0
  */
 public class AddSessionActivity extends AppCompatActivity implements
@@ -109,6 +110,7 @@ public class AddSessionActivity extends AppCompatActivity implements
                 SessionDao dao = Db.getInstance().getDaoSession()
                         .getSessionDao();
                 dao.insert(session);
+                Statistics.addSession(session);
                 finish();
                 return true;
             default:
@@ -23,15 +23,19 @@ import com.alkisum.android.cloudrun.dialogs.ErrorDialog;
 import com.alkisum.android.cloudrun.events.DeletedEvent;
 import com.alkisum.android.cloudrun.events.InsertedEvent;
 import com.alkisum.android.cloudrun.events.RestoredEvent;
+import com.alkisum.android.cloudrun.events.StatsRebuiltEvent;
 import com.alkisum.android.cloudrun.interfaces.Deletable;
 import com.alkisum.android.cloudrun.interfaces.Restorable;
 import com.alkisum.android.cloudrun.model.Session;
+import com.alkisum.android.cloudrun.model.SessionStats;
 import com.alkisum.android.cloudrun.net.Downloader;
 import com.alkisum.android.cloudrun.net.Uploader;
 import com.alkisum.android.cloudrun.tasks.Deleter;
 import com.alkisum.android.cloudrun.tasks.Restorer;
 import com.alkisum.android.cloudrun.utils.Deletables;
+import com.alkisum.android.cloudrun.utils.Format;
 import com.alkisum.android.cloudrun.utils.Sessions;
+import com.alkisum.android.cloudrun.utils.Statistics;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
 import com.google.gson.Gson;
@@ -39,10 +43,9 @@ import com.google.gson.Gson;
 import org.greenrobot.eventbus.EventBus;
 import org.greenrobot.eventbus.Subscribe;
 import org.greenrobot.eventbus.ThreadMode;
+import org.greenrobot.greendao.query.LazyList;
 import org.json.JSONException;
 
-import java.util.List;
-
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
@@ -54,7 +57,7 @@ import butterknife.OnClick;
  * Activity listing the history of sessions.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 1.0
  */
 public class HistoryActivity extends AppCompatActivity implements
@@ -123,6 +126,30 @@ public class HistoryActivity extends AppCompatActivity implements
     @BindView(R.id.history_no_session)
     TextView noSessionTextView;
 
+    /**
+     * TextView showing the statistics of the current week.
+     */
+    @BindView(R.id.history_summary_week)
+    TextView summaryWeekTextView;
+
+    /**
+     * TextView showing the statistics of the current month.
+     */
+    @BindView(R.id.history_summary_month)
+    TextView summaryMonthTextView;
+
+    /**
+     * TextView showing the statistics of the current year.
+     */
+    @BindView(R.id.history_summary_year)
+    TextView summaryYearTextView;
+
+    /**
+     * TextView showing the statistics of all the sessions.
+     */
+    @BindView(R.id.history_summary_total)
+    TextView summaryTotalTextView;
+
     /**
      * Progress bar to show the progress of operations.
      */
@@ -151,6 +178,12 @@ public class HistoryActivity extends AppCompatActivity implements
      */
     private Long ignoreSessionId;
 
+    /**
+     * Flag set to true once the activity has been started. The list loaded
+     * by onCreate is only refreshed when the activity is started again.
+     */
+    private boolean started;
+
     @Override
     protected final void onCreate(final Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -178,13 +211,17 @@ public class HistoryActivity extends AppCompatActivity implements
     @Override
     protected final void onStart() {
         super.onStart();
-        refreshList();
+        if (started) {
+            refreshList();
+        }
+        started = true;
     }
 
     @Override
     public final void onDestroy() {
         super.onDestroy();
         EventBus.getDefault().unregister(this);
+        listAdapter.close();
     }
 
     @Override
@@ -237,13 +274,15 @@ public class HistoryActivity extends AppCompatActivity implements
                     return true;
                 });
 
-        List<Session> sessions = Sessions.loadSessions(ignoreSessionId);
+        LazyList<Session> sessions = Sessions.loadSessions(ignoreSessionId);
         if (sessions.isEmpty()) {
             listView.setVisibility(View.GONE);
             noSessionTextView.setVisibility(View.VISIBLE);
         }
         listAdapter = new HistoryListAdapter(this, sessions,
+                Sessions.loadSessionStarts(ignoreSessionId),
                 highlightedSessionId);
+        refreshStats();
         listView.setAdapter(listAdapter);
 
         swipeRefreshLayout.setOnRefreshListener(
@@ -282,7 +321,7 @@ public class HistoryActivity extends AppCompatActivity implements
                         ConnectDialog.FRAGMENT_TAG);
                 return true;
             case R.id.action_upload:
-                if (!Sessions.getSelectedSessions().isEmpty()) {
+                if (listAdapter.hasSelectedSessions()) {
                     ConnectDialog connectDialogUpload =
                             ConnectDialog.newInstance(UPLOAD_OPERATION);
                     connectDialogUpload.setCallback(this);
@@ -291,16 +330,13 @@ public class HistoryActivity extends AppCompatActivity implements
                 }
                 return true;
             case R.id.action_delete:
-                if (!Sessions.getSelectedSessions().isEmpty()) {
+                if (listAdapter.hasSelectedSessions()) {
                     deleteSessions();
                 }
                 return true;
             case R.id.action_select_all:
-                List<Session> sessions = Sessions.loadSessions(
-                        ignoreSessionId);
-                for (Session session : sessions) {
-                    session.setSelected(true);
-                }
+                listAdapter.selectAll(
+                        Sessions.loadSessionIds(ignoreSessionId));
                 listAdapter.notifyDataSetChanged();
                 return true;
             default:
@@ -350,7 +386,7 @@ public class HistoryActivity extends AppCompatActivity implements
      * Execute the task to delete the selected sessions.
      */
     private void deleteSessions() {
-        Deletable[] sessions = Sessions.getSelectedSessions().toArray(
+        Deletable[] sessions = listAdapter.getSelectedSessions().toArray(
                 new Deletable[0]);
         new Deleter(new Integer[]{SUBSCRIBER_ID},
                 new Session()).execute(sessions);
@@ -376,7 +412,7 @@ public class HistoryActivity extends AppCompatActivity implements
         if (isEditMode()) {
             disableEditMode();
         }
-        List<Session> sessions = Sessions.loadSessions(ignoreSessionId);
+        LazyList<Session> sessions = Sessions.loadSessions(ignoreSessionId);
         if (sessions.isEmpty()) {
             listView.setVisibility(View.GONE);
             noSessionTextView.setVisibility(View.VISIBLE);
@@ -384,10 +420,52 @@ public class HistoryActivity extends AppCompatActivity implements
             listView.setVisibility(View.VISIBLE);
             noSessionTextView.setVisibility(View.GONE);
         }
-        listAdapter.setSessions(sessions);
+        listAdapter.setSessions(sessions,
+                Sessions.loadSessionStarts(ignoreSessionId));
+        refreshStats();
         listAdapter.notifyDataSetChanged();
     }
 
+    /**
+     * Reload the statistics from the aggregated statistics table and show
+     * them in the summary header and in the list.
+     */
+    private void refreshStats() {
+        long now = System.currentTimeMillis();
+        listAdapter.setMonthStats(
+                Statistics.getStatsByPeriodStart(Statistics.MONTH));
+        setSummary(summaryWeekTextView, R.string.history_summary_week,
+                Statistics.getStats(Statistics.WEEK, now));
+        setSummary(summaryMonthTextView, R.string.history_summary_month,
+                Statistics.getStats(Statistics.MONTH, now));
+        setSummary(summaryYearTextView, R.string.history_summary_year,
+                Statistics.getStats(Statistics.YEAR, now));
+        setSummary(summaryTotalTextView, R.string.history_summary_total,
+                Statistics.getTotalStats());
+    }
+
+    /**
+     * Show the given statistics in the given summary TextView.
+     *
+     * @param textView TextView to set
+     * @param labelId  String resource ID of the period label
+     * @param stats    Statistics to show, null if no session has been done
+     *                 in the period
+     */
+    private void setSummary(final TextView textView, final int labelId,
+                            final SessionStats stats) {
+        float distance = 0;
+        long duration = 0;
+        if (stats != null) {
+            distance = stats.getDistance();
+            duration = stats.getDuration();
+        }
+        textView.setText(getString(R.string.history_summary,
+                getString(labelId), Format.formatDistance(distance),
+                getString(R.string.unit_distance),
+                Format.formatDuration(duration)));
+    }
+
     @Override
     public final void onSubmit(final int operation,
                                final ConnectInfo connectInfo) {
@@ -405,7 +483,7 @@ public class HistoryActivity extends AppCompatActivity implements
                         getApplicationContext(),
                         connectInfo,
                         new Intent(this, HistoryActivity.class),
-                        Sessions.getSelectedSessions(),
+                        listAdapter.getSelectedSessions(),
                         SUBSCRIBER_ID);
             } catch (JSONException e) {
                 ErrorDialog.show(this,
@@ -478,6 +556,17 @@ public class HistoryActivity extends AppCompatActivity implements
         }
     }
 
+    /**
+     * Triggered when the statistics have been rebuilt after a change of
+     * time zone or locale.
+     *
+     * @param event Stats rebuilt event
+     */
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public final void onStatsRebuiltEvent(final StatsRebuiltEvent event) {
+        refreshList();
+    }
+
     /**
      * Triggered on inserted event.
      *
@@ -3,30 +3,37 @@ package com.alkisum.android.cloudrun.activities;
 import android.annotation.SuppressLint;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.Menu;
 import android.view.MenuItem;
 
 import com.alkisum.android.cloudrun.BuildConfig;
 import com.alkisum.android.cloudrun.R;
-import com.alkisum.android.cloudrun.events.CoordinateEvent;
 import com.alkisum.android.cloudrun.events.GpsStatusEvent;
+import com.alkisum.android.cloudrun.events.MapVisibilityEvent;
+import com.alkisum.android.cloudrun.events.SessionActionEvent;
+import com.alkisum.android.cloudrun.events.TrackLoadedEvent;
 import com.alkisum.android.cloudrun.location.Coordinate;
-import com.alkisum.android.cloudrun.model.DataPoint;
-import com.alkisum.android.cloudrun.model.Marker;
+import com.alkisum.android.cloudrun.location.LiveMetrics;
+import com.alkisum.android.cloudrun.location.LiveMetricsBus;
+import com.alkisum.android.cloudrun.location.Track;
 import com.alkisum.android.cloudrun.model.Session;
+import com.alkisum.android.cloudrun.tasks.TrackLoader;
 import com.alkisum.android.cloudrun.ui.GpsStatus;
+import com.alkisum.android.cloudrun.ui.MarkerOverlay;
 import com.alkisum.android.cloudrun.utils.Markers;
 import com.alkisum.android.cloudrun.utils.Sessions;
 
 import org.greenrobot.eventbus.EventBus;
 import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.ThreadMode;
 import org.osmdroid.config.Configuration;
 import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.CustomZoomButtonsController;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.ItemizedIconOverlay;
-import org.osmdroid.views.overlay.Overlay;
 import org.osmdroid.views.overlay.OverlayItem;
 import org.osmdroid.views.overlay.Polyline;
 
@@ -44,16 +51,22 @@ import butterknife.ButterKnife;
  * Activity showing current location and tracking session on map.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 3.0
  */
-public class MapActivity extends AppCompatActivity {
+public class MapActivity extends AppCompatActivity
+        implements LiveMetricsBus.Observer {
 
     /**
      * Argument for session id.
      */
     public static final String ARG_SESSION_ID = "arg_session_id";
 
+    /**
+     * Argument for the running state of the session, false if paused.
+     */
+    public static final String ARG_SESSION_RUNNING = "arg_session_running";
+
     /**
      * Argument for last received coordinate.
      */
@@ -69,6 +82,12 @@ public class MapActivity extends AppCompatActivity {
      */
     private Session session;
 
+    /**
+     * Flag set to true when the session is running and the received
+     * coordinates are recorded, false otherwise.
+     */
+    private boolean sessionRunning;
+
     /**
      * Id for current GPS status icon.
      */
@@ -86,19 +105,26 @@ public class MapActivity extends AppCompatActivity {
     private Coordinate lastPosition;
 
     /**
-     * List to store the position overlay.
+     * Overlay showing the current position, its item is replaced on each
+     * position.
      */
-    private Overlay positionOverlay;
+    private ItemizedIconOverlay<OverlayItem> positionOverlay;
 
     /**
-     * List to store the route overlays locally.
+     * Drawable for the current position, shared by all the position items.
      */
-    private final List<Overlay> routeOverlays = new ArrayList<>();
+    private Drawable positionDrawable;
 
     /**
-     * List to store the marker overlays locally.
+     * Polyline of the session's route, the received coordinates are appended
+     * to it. Null if no session is running.
      */
-    private final List<Overlay> markerOverlays = new ArrayList<>();
+    private Polyline routePolyline;
+
+    /**
+     * Overlay showing the active markers.
+     */
+    private MarkerOverlay markerOverlay;
 
     /**
      * View containing the OSM.
@@ -118,6 +144,8 @@ public class MapActivity extends AppCompatActivity {
             long sessionId = Objects.requireNonNull(
                     getIntent().getExtras()).getLong(ARG_SESSION_ID);
             session = Sessions.getSessionById(sessionId);
+            sessionRunning = getIntent().getBooleanExtra(
+                    ARG_SESSION_RUNNING, true);
         }
 
         if (!getIntent().hasExtra(ARG_COORDINATE)) {
@@ -146,19 +174,33 @@ public class MapActivity extends AppCompatActivity {
             return false;
         });
 
+        // subscribe before loading the route and until the activity is
+        // destroyed, so that the route misses no location received while
+        // the activity is stopped
+        EventBus.getDefault().register(this);
+        LiveMetricsBus.getDefault().register(this,
+                new Handler(Looper.getMainLooper())::post);
+
         this.initMap(initPosition);
     }
 
     @Override
     public final void onStart() {
         super.onStart();
-        EventBus.getDefault().register(this);
+        EventBus.getDefault().post(new MapVisibilityEvent(true));
     }
 
     @Override
     public final void onStop() {
         super.onStop();
+        EventBus.getDefault().post(new MapVisibilityEvent(false));
+    }
+
+    @Override
+    protected final void onDestroy() {
+        super.onDestroy();
         EventBus.getDefault().unregister(this);
+        LiveMetricsBus.getDefault().unregister(this);
     }
 
     @Override
@@ -181,7 +223,7 @@ public class MapActivity extends AppCompatActivity {
         if (id == R.id.action_gps) {
             focused = true;
             this.setPosition(lastPosition);
-            this.applyOverlays();
+            mapView.invalidate();
         }
         return super.onOptionsItemSelected(item);
     }
@@ -200,6 +242,11 @@ public class MapActivity extends AppCompatActivity {
         // Set zoom to max
         mapView.getController().setZoom(19d);
 
+        positionDrawable = ContextCompat.getDrawable(this,
+                R.drawable.ic_current_position_blue_24dp);
+        positionOverlay = new ItemizedIconOverlay<>(this,
+                new ArrayList<>(), null);
+
         this.setPosition(initPosition);
         this.setRoute();
         this.setMarkers();
@@ -207,15 +254,43 @@ public class MapActivity extends AppCompatActivity {
     }
 
     /**
-     * Triggered when new coordinates are received.
+     * Called on the main thread with the latest live metrics snapshot. The
+     * route is extended with the coordinates of the snapshot and the map is
+     * drawn once. The snapshots published while the main thread was busy
+     * are merged into this one, so no point of the route is missed.
      *
-     * @param event Coordinate event
+     * @param metrics Live metrics snapshot
      */
-    @Subscribe
-    public final void onCoordinateEvent(final CoordinateEvent event) {
-        this.setPosition(event.getValues());
-        this.setRoute();
-        this.applyOverlays();
+    @Override
+    public final void onLiveMetrics(final LiveMetrics metrics) {
+        this.setPosition(metrics.getCoordinate());
+        if (routePolyline != null && sessionRunning) {
+            for (Coordinate coordinate : metrics.getCoordinates()) {
+                routePolyline.addPoint(new GeoPoint(coordinate.getLatitude(),
+                        coordinate.getLongitude()));
+            }
+        }
+        mapView.invalidate();
+    }
+
+    /**
+     * Triggered on session action event.
+     *
+     * @param event Session action event
+     */
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public final void onSessionActionEvent(final SessionActionEvent event) {
+        switch (event.getAction()) {
+            case SessionActionEvent.RESUME:
+                sessionRunning = true;
+                break;
+            case SessionActionEvent.PAUSE:
+            case SessionActionEvent.STOP:
+                sessionRunning = false;
+                break;
+            default:
+                break;
+        }
     }
 
     /**
@@ -246,81 +321,77 @@ public class MapActivity extends AppCompatActivity {
         // Create OverlayItem
         OverlayItem overlayItem = new OverlayItem("", "",
                 new GeoPoint(position.getLatitude(), position.getLongitude()));
-
-        // Create marker
-        Drawable marker = ContextCompat.getDrawable(this,
-                R.drawable.ic_current_position_blue_24dp);
-        overlayItem.setMarker(marker);
+        overlayItem.setMarker(positionDrawable);
         overlayItem.setMarkerHotspot(OverlayItem.HotspotPlace.CENTER);
 
-        // Build ItemizedIconOverlay
-        final ArrayList<OverlayItem> items = new ArrayList<>();
-        items.add(overlayItem);
-        positionOverlay = new ItemizedIconOverlay<>(this, items, null);
+        // Replace the item of the position overlay
+        positionOverlay.removeAllItems();
+        positionOverlay.addItem(overlayItem);
     }
 
     /**
-     * Build the route from the session's datapoints.
+     * Build the route polyline and load the session's track in the
+     * background. Only called once, the route is then updated with the
+     * received coordinates.
      */
     private void setRoute() {
         if (session == null) {
             return;
         }
 
-        // Build route from session's datapoint
-        ArrayList<GeoPoint> route = new ArrayList<>();
-        session.resetDataPoints();
-        for (DataPoint dp : session.getDataPoints()) {
-            route.add(new GeoPoint(dp.getLatitude(), dp.getLongitude()));
-        }
+        // Build polyline, filled with the track once loaded
+        routePolyline = new Polyline();
+        routePolyline.setColor(ContextCompat.getColor(this, R.color.map_blue));
+        routePolyline.setWidth(10f);
 
-        // Build polyline
-        Polyline polyline = new Polyline();
-        polyline.setColor(ContextCompat.getColor(this, R.color.map_blue));
-        polyline.setPoints(route);
-        polyline.setWidth(10f);
+        new TrackLoader(session).execute();
+    }
 
-        // Add polyline to overlays
-        routeOverlays.add(polyline);
+    /**
+     * Triggered when the session's track has been loaded. The track is put
+     * before the coordinates received meanwhile. The datapoints still
+     * buffered by the recorder have been written before loading the track,
+     * a location received meanwhile may then be drawn twice at the same
+     * place.
+     *
+     * @param event Track loaded event
+     */
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public final void onTrackLoadedEvent(final TrackLoadedEvent event) {
+        if (routePolyline == null || event.getSessionId() != session.getId()) {
+            return;
+        }
+        Track track = event.getTrack();
+        List<GeoPoint> received = routePolyline.getPoints();
+        ArrayList<GeoPoint> route = new ArrayList<>(track.size()
+                + received.size());
+        for (int i = 0; i < track.size(); i++) {
+            route.add(new GeoPoint(track.getLatitude(i),
+                    track.getLongitude(i)));
+        }
+        route.addAll(received);
+        routePolyline.setPoints(route);
+        mapView.invalidate();
     }
 
     /**
      * Add active markers to map.
      */
     private void setMarkers() {
-        // get active markers
-        List<Marker> markers = Markers.getActiveMarkers(this);
-
-        for (Marker marker : markers) {
-            // create OverlayItem
-            OverlayItem overlayItem = new OverlayItem("", "",
-                    new GeoPoint(marker.getLatitude(), marker.getLongitude()));
-
-            // create marker
-            Drawable drawable = ContextCompat.getDrawable(this,
-                    R.drawable.ic_place_red_24dp);
-            overlayItem.setMarker(drawable);
-            overlayItem.setMarkerHotspot(
-                    OverlayItem.HotspotPlace.BOTTOM_CENTER);
-
-            // build ItemizedIconOverlay
-            final ArrayList<OverlayItem> items = new ArrayList<>();
-            items.add(overlayItem);
-            Overlay itemizedIconOverlay = new ItemizedIconOverlay<>(
-                    this, items, null);
-
-            // add marker to local list of overlays
-            markerOverlays.add(itemizedIconOverlay);
-        }
+        markerOverlay = new MarkerOverlay(this, null);
+        markerOverlay.setMarkers(Markers.getActiveMarkers());
     }
 
     /**
-     * Set the overlays to the map view.
+     * Set the overlays to the map view. Only called once, the overlays are
+     * then updated in place.
      */
     private void applyOverlays() {
         mapView.getOverlays().clear();
-        mapView.getOverlays().addAll(routeOverlays);
-        mapView.getOverlays().addAll(markerOverlays);
+        if (routePolyline != null) {
+            mapView.getOverlays().add(routePolyline);
+        }
+        mapView.getOverlays().add(markerOverlay);
         mapView.getOverlays().add(positionOverlay);
         mapView.invalidate();
     }
@@ -7,7 +7,10 @@ import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.preference.PreferenceManager;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -15,16 +18,15 @@ import android.view.WindowManager;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 
+import com.alkisum.android.cloudrun.BuildConfig;
 import com.alkisum.android.cloudrun.R;
 import com.alkisum.android.cloudrun.dialogs.ActivateRoutesDialog;
 import com.alkisum.android.cloudrun.dialogs.ErrorDialog;
-import com.alkisum.android.cloudrun.events.CoordinateEvent;
-import com.alkisum.android.cloudrun.events.DistanceEvent;
 import com.alkisum.android.cloudrun.events.GpsStatusEvent;
-import com.alkisum.android.cloudrun.events.PaceEvent;
 import com.alkisum.android.cloudrun.events.SessionActionEvent;
-import com.alkisum.android.cloudrun.events.SpeedEvent;
 import com.alkisum.android.cloudrun.location.Coordinate;
+import com.alkisum.android.cloudrun.location.LiveMetrics;
+import com.alkisum.android.cloudrun.location.LiveMetricsBus;
 import com.alkisum.android.cloudrun.location.LocationHelper;
 import com.alkisum.android.cloudrun.location.LocationUtils;
 import com.alkisum.android.cloudrun.tasks.SessionRecorder;
@@ -56,13 +58,19 @@ import butterknife.OnClick;
  * Main activity showing location values.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 1.0
  */
 public class MonitorActivity extends AppCompatActivity
         implements NavigationView.OnNavigationItemSelectedListener,
         SharedPreferences.OnSharedPreferenceChangeListener,
-        Tile.TileListener, SessionRecorder.RecorderListener {
+        Tile.TileListener, SessionRecorder.RecorderListener,
+        LiveMetricsBus.Observer {
+
+    /**
+     * Log tag.
+     */
+    private static final String TAG = "MonitorActivity";
 
     /**
      * Request code for denied permissions.
@@ -260,7 +268,15 @@ public class MonitorActivity extends AppCompatActivity
         sharedPref.registerOnSharedPreferenceChangeListener(this);
 
         eventBus = EventBus.getDefault();
+        long start = SystemClock.elapsedRealtimeNanos();
         eventBus.register(this);
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "EventBus registration in "
+                    + (SystemClock.elapsedRealtimeNanos() - start) / 1000
+                    + " us");
+        }
+        LiveMetricsBus.getDefault().register(this,
+                new Handler(Looper.getMainLooper())::post);
 
         gpsStatus = new GpsStatus(getApplicationContext());
         gpsStatus.start();
@@ -297,10 +313,22 @@ public class MonitorActivity extends AppCompatActivity
         super.onDestroy();
         sharedPref.unregisterOnSharedPreferenceChangeListener(this);
         eventBus.unregister(this);
+        LiveMetricsBus.getDefault().unregister(this);
         gpsStatus.stop();
+        if (recorder != null) {
+            recorder.onDestroy();
+        }
         locationHelper.onDestroy();
     }
 
+    @Override
+    public final void onTrimMemory(final int level) {
+        super.onTrimMemory(level);
+        if (recorder != null) {
+            recorder.flush();
+        }
+    }
+
     /**
      * Get denied permissions from given list.
      *
@@ -390,6 +418,8 @@ public class MonitorActivity extends AppCompatActivity
                     && recorder.getSession().getEnd() == null) {
                 intent.putExtra(MapActivity.ARG_SESSION_ID,
                         recorder.getSession().getId());
+                intent.putExtra(MapActivity.ARG_SESSION_RUNNING,
+                        recorder.isRunning());
             }
             intent.putExtra(MapActivity.ARG_COORDINATE, lastCoordinate);
             intent.putExtra(MapActivity.ARG_GPS_STATUS, gpsStatusIconId);
@@ -482,7 +512,7 @@ public class MonitorActivity extends AppCompatActivity
             if (id == R.id.nav_history) {
                 Intent intent = new Intent(MonitorActivity.this,
                         HistoryActivity.class);
-                if (sessionRunning) {
+                if (sessionRunning && recorder.getSession() != null) {
                     intent.putExtra(HistoryActivity.ARG_IGNORE_SESSION_ID,
                             recorder.getSession().getId());
                 }
@@ -529,6 +559,16 @@ public class MonitorActivity extends AppCompatActivity
         textTop.setText(Format.formatDuration(duration));
     }
 
+    @Override
+    public final void onSessionStopped(final long sessionId) {
+        if (isDestroyed()) {
+            return;
+        }
+        Intent intent = new Intent(this, HistoryActivity.class);
+        intent.putExtra(HistoryActivity.ARG_HIGHLIGHTED_SESSION_ID, sessionId);
+        startActivity(intent);
+    }
+
     @Override
     public final void onDistanceUpdated(final float distance) {
         updateTile(Tile.DISTANCE, Format.formatDistance(distance));
@@ -544,49 +584,22 @@ public class MonitorActivity extends AppCompatActivity
     }
 
     /**
-     * Triggered when new coordinates are received.
-     *
-     * @param event Coordinate event
-     */
-    @Subscribe
-    public final void onCoordinateEvent(final CoordinateEvent event) {
-        lastCoordinate = event.getValues();
-    }
-
-    /**
-     * Triggered when a new distance is calculated.
+     * Called on the main thread with the latest live metrics snapshot.
      *
-     * @param event Distance event
+     * @param metrics Live metrics snapshot
      */
-    @Subscribe
-    public final void onDistanceEvent(final DistanceEvent event) {
-        if ((!sessionRunning || sessionPaused) && showGpsAccuracy) {
-            textGpsAccuracy.setText(Format.formatGpsAccuracy(
-                    event.getValue()));
-        }
-    }
-
-    /**
-     * Triggered when a new speed is calculated.
-     *
-     * @param event Speed event
-     */
-    @Subscribe
-    public final void onSpeedEvent(final SpeedEvent event) {
-        if (sessionRunning && !sessionPaused) {
-            updateTile(Tile.SPEED, Format.formatSpeed(event.getValue()));
+    @Override
+    public final void onLiveMetrics(final LiveMetrics metrics) {
+        lastCoordinate = metrics.getCoordinate();
+        if (!metrics.isMeasured()) {
+            return;
         }
-    }
-
-    /**
-     * Triggered when a new pace is calculated.
-     *
-     * @param event Pace event
-     */
-    @Subscribe
-    public final void onPaceEvent(final PaceEvent event) {
         if (sessionRunning && !sessionPaused) {
-            updateTile(Tile.PACE, Format.formatPace(event.getValue()));
+            updateTile(Tile.SPEED, Format.formatSpeed(metrics.getSpeed()));
+            updateTile(Tile.PACE, Format.formatPace(metrics.getPace()));
+        } else if (showGpsAccuracy && !metrics.isBatch()) {
+            textGpsAccuracy.setText(Format.formatGpsAccuracy(
+                    metrics.getLastDistance()));
         }
     }
 
@@ -641,7 +654,7 @@ public class MonitorActivity extends AppCompatActivity
         if (!sessionRunning) {
             // create recorder before posting the event
             // recorder also subscribes to SessionActionEvent
-            recorder = new SessionRecorder(this);
+            recorder = new SessionRecorder(this, this);
             eventBus.post(new SessionActionEvent(SessionActionEvent.START));
         } else {
             eventBus.post(new SessionActionEvent(SessionActionEvent.RESUME));
@@ -797,11 +810,6 @@ public class MonitorActivity extends AppCompatActivity
 
         updateActionButton(ACTION_STOP);
 
-        Intent intent = new Intent(this, HistoryActivity.class);
-        intent.putExtra(HistoryActivity.ARG_HIGHLIGHTED_SESSION_ID,
-                recorder.getSession().getId());
-        startActivity(intent);
-
         resetViews();
         initCurrentValues();
 
@@ -3,7 +3,6 @@ package com.alkisum.android.cloudrun.activities;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -26,7 +25,6 @@ import com.alkisum.android.cloudrun.dialogs.ErrorDialog;
 import com.alkisum.android.cloudrun.events.DeletedEvent;
 import com.alkisum.android.cloudrun.events.RefreshEvent;
 import com.alkisum.android.cloudrun.events.RestoredEvent;
-import com.alkisum.android.cloudrun.interfaces.Deletable;
 import com.alkisum.android.cloudrun.interfaces.Jsonable;
 import com.alkisum.android.cloudrun.interfaces.Restorable;
 import com.alkisum.android.cloudrun.model.Marker;
@@ -34,8 +32,8 @@ import com.alkisum.android.cloudrun.model.Route;
 import com.alkisum.android.cloudrun.net.Uploader;
 import com.alkisum.android.cloudrun.tasks.Deleter;
 import com.alkisum.android.cloudrun.tasks.Restorer;
+import com.alkisum.android.cloudrun.ui.MarkerOverlay;
 import com.alkisum.android.cloudrun.utils.Deletables;
-import com.alkisum.android.cloudrun.utils.Markers;
 import com.alkisum.android.cloudrun.utils.Routes;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationServices;
@@ -53,10 +51,7 @@ import org.osmdroid.util.BoundingBox;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.CustomZoomButtonsController;
 import org.osmdroid.views.MapView;
-import org.osmdroid.views.overlay.ItemizedIconOverlay;
 import org.osmdroid.views.overlay.MapEventsOverlay;
-import org.osmdroid.views.overlay.Overlay;
-import org.osmdroid.views.overlay.OverlayItem;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -64,7 +59,6 @@ import java.util.List;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.app.ActivityCompat;
-import androidx.core.content.ContextCompat;
 import butterknife.BindView;
 import butterknife.ButterKnife;
 
@@ -72,7 +66,7 @@ import butterknife.ButterKnife;
  * Activity to manage markers.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 4.0
  */
 public class RouteActivity extends AppCompatActivity implements
@@ -109,6 +103,11 @@ public class RouteActivity extends AppCompatActivity implements
      */
     private MapEventsOverlay mapEventsOverlay;
 
+    /**
+     * Overlay showing the markers of the route.
+     */
+    private MarkerOverlay markerOverlay;
+
     /**
      * Progress bar to show the progress of operations.
      */
@@ -178,10 +177,7 @@ public class RouteActivity extends AppCompatActivity implements
                         ConnectDialog.FRAGMENT_TAG);
                 return true;
             case R.id.action_delete:
-                route.setSelected(true);
-                if (!Routes.getSelectedRoutes().isEmpty()) {
-                    this.deleteRoute();
-                }
+                this.deleteRoute();
                 return true;
             default:
                 return super.onOptionsItemSelected(item);
@@ -201,8 +197,11 @@ public class RouteActivity extends AppCompatActivity implements
         mapView.getZoomController().setVisibility(
                 CustomZoomButtonsController.Visibility.NEVER);
 
-        // add overlay for map events
+        // add overlay for map events and overlay for markers
         mapEventsOverlay = new MapEventsOverlay(mapEventsReceiver);
+        markerOverlay = new MarkerOverlay(this, markerListener);
+        mapView.getOverlays().add(mapEventsOverlay);
+        mapView.getOverlays().add(markerOverlay);
 
         // center map
         if (route.getMarkers().isEmpty()) {
@@ -216,13 +215,13 @@ public class RouteActivity extends AppCompatActivity implements
     }
 
     /**
-     * Set map overlays and invalidate map.
+     * Reload the markers of the route, set them to the marker overlay and
+     * invalidate map. The overlay only updates the items of the markers
+     * added, moved or removed.
      */
     private void refreshMarkers() {
-        // initialize markers
-        this.setOverlays();
-
-        // invalidate
+        route.resetMarkers();
+        markerOverlay.setMarkers(route.getMarkers());
         mapView.invalidate();
     }
 
@@ -306,77 +305,20 @@ public class RouteActivity extends AppCompatActivity implements
     }
 
     /**
-     * Set map overlays.
+     * Listener for the markers pressed on the map.
      */
-    private void setOverlays() {
-        // reset overlays
-        mapView.getOverlays().clear();
-
-        // add map events overlay
-        mapView.getOverlays().add(mapEventsOverlay);
-
-        // add each marker to map
-        route.resetMarkers();
-        for (Marker marker : route.getMarkers()) {
-            mapView.getOverlays().add(this.buildOverlay(marker));
-        }
-    }
-
-    /**
-     * Build the overlay for the given marker.
-     *
-     * @param marker Marker to build the overlay for
-     * @return Built overlay
-     */
-    private Overlay buildOverlay(final Marker marker) {
-        // create OverlayItem
-        OverlayItem overlayItem = new OverlayItem("", "",
-                new GeoPoint(marker.getLatitude(), marker.getLongitude()));
-
-        // create marker
-        Drawable drawable = ContextCompat.getDrawable(this,
-                R.drawable.ic_place_red_24dp);
-        overlayItem.setMarker(drawable);
-        overlayItem.setMarkerHotspot(OverlayItem.HotspotPlace.BOTTOM_CENTER);
-
-        // build ItemizedIconOverlay
-        final ArrayList<OverlayItem> items = new ArrayList<>();
-        items.add(overlayItem);
-        return new ItemizedIconOverlay<>(this, items,
-                new ItemizedIconOverlay.OnItemGestureListener<OverlayItem>() {
-                    @Override
-                    public boolean onItemSingleTapUp(final int index,
-                                                     final OverlayItem item) {
-                        // get pressed marker by its coordinates
-                        Marker markerToEdit = Markers.getMarkerByCoordinates(
-                                route, item.getPoint().getLatitude(),
-                                item.getPoint().getLongitude());
-
-                        // edit marker
-                        if (markerToEdit != null) {
-                            EditMarkerDialog.show(RouteActivity.this,
-                                    markerToEdit);
-                        }
-                        return true;
-                    }
+    private final MarkerOverlay.Listener markerListener =
+            new MarkerOverlay.Listener() {
+                @Override
+                public void onMarkerSingleTapUp(final Marker marker) {
+                    EditMarkerDialog.show(RouteActivity.this, marker);
+                }
 
-                    @Override
-                    public boolean onItemLongPress(final int index,
-                                                   final OverlayItem item) {
-                        // get pressed marker by its coordinates
-                        Marker markerToDelete = Markers.getMarkerByCoordinates(
-                                route, item.getPoint().getLatitude(),
-                                item.getPoint().getLongitude());
-
-                        // delete marker
-                        if (markerToDelete != null) {
-                            deleteMarker(markerToDelete);
-                        }
-                        return true;
-                    }
+                @Override
+                public void onMarkerLongPress(final Marker marker) {
+                    deleteMarker(marker);
                 }
-        );
-    }
+            };
 
     /**
      * Receiver for map events.
@@ -398,12 +340,10 @@ public class RouteActivity extends AppCompatActivity implements
             };
 
     /**
-     * Execute the task to delete the selected routes.
+     * Execute the task to delete the route.
      */
     private void deleteRoute() {
-        Deletable[] routes = Routes.getSelectedRoutes().toArray(
-                new Deletable[0]);
-        new Deleter(new Integer[]{SUBSCRIBER_ID}, new Route()).execute(routes);
+        new Deleter(new Integer[]{SUBSCRIBER_ID}, new Route()).execute(route);
         progressBar.setIndeterminate(true);
         progressBar.setVisibility(View.VISIBLE);
     }
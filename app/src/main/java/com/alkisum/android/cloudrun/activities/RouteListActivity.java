@@ -56,7 +56,7 @@ import butterknife.OnClick;
  * Activity listing available routes.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 4.0
  */
 public class RouteListActivity extends AppCompatActivity implements
@@ -226,7 +226,7 @@ public class RouteListActivity extends AppCompatActivity implements
                         ConnectDialog.FRAGMENT_TAG);
                 return true;
             case R.id.action_upload:
-                if (!Routes.getSelectedRoutes().isEmpty()) {
+                if (listAdapter.hasSelectedRoutes()) {
                     ConnectDialog connectDialogUpload =
                             ConnectDialog.newInstance(UPLOAD_OPERATION);
                     connectDialogUpload.setCallback(this);
@@ -235,15 +235,12 @@ public class RouteListActivity extends AppCompatActivity implements
                 }
                 return true;
             case R.id.action_delete:
-                if (!Routes.getSelectedRoutes().isEmpty()) {
+                if (listAdapter.hasSelectedRoutes()) {
                     deleteRoutes();
                 }
                 return true;
             case R.id.action_select_all:
-                List<Route> routes = Routes.loadRoutes();
-                for (Route route : routes) {
-                    route.setSelected(true);
-                }
+                listAdapter.selectAll();
                 listAdapter.notifyDataSetChanged();
                 return true;
             default:
@@ -309,7 +306,7 @@ public class RouteListActivity extends AppCompatActivity implements
      * Execute the task to delete the selected routes.
      */
     private void deleteRoutes() {
-        Deletable[] routes = Routes.getSelectedRoutes().toArray(
+        Deletable[] routes = listAdapter.getSelectedRoutes().toArray(
                 new Deletable[0]);
         new Deleter(new Integer[]{SUBSCRIBER_ID}, new Route()).execute(routes);
         progressBar.setIndeterminate(true);
@@ -363,7 +360,7 @@ public class RouteListActivity extends AppCompatActivity implements
                         getApplicationContext(),
                         connectInfo,
                         new Intent(this, RouteListActivity.class),
-                        Routes.getSelectedRoutes(),
+                        listAdapter.getSelectedRoutes(),
                         SUBSCRIBER_ID);
             } catch (JSONException e) {
                 ErrorDialog.show(this,
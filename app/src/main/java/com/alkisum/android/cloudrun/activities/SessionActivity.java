@@ -19,14 +19,15 @@ import com.alkisum.android.cloudrun.BuildConfig;
 import com.alkisum.android.cloudrun.R;
 import com.alkisum.android.cloudrun.dialogs.ErrorDialog;
 import com.alkisum.android.cloudrun.events.DeletedEvent;
-import com.alkisum.android.cloudrun.interfaces.Deletable;
 import com.alkisum.android.cloudrun.interfaces.Jsonable;
-import com.alkisum.android.cloudrun.model.DataPoint;
+import com.alkisum.android.cloudrun.location.Track;
+import com.alkisum.android.cloudrun.location.TrackPyramid;
 import com.alkisum.android.cloudrun.model.Session;
 import com.alkisum.android.cloudrun.net.Uploader;
 import com.alkisum.android.cloudrun.tasks.Deleter;
 import com.alkisum.android.cloudrun.utils.Format;
 import com.alkisum.android.cloudrun.utils.Sessions;
+import com.alkisum.android.cloudrun.utils.Tracks;
 import com.google.android.material.snackbar.Snackbar;
 import com.google.gson.ExclusionStrategy;
 import com.google.gson.FieldAttributes;
@@ -39,6 +40,9 @@ import org.greenrobot.eventbus.ThreadMode;
 import org.json.JSONException;
 import org.osmdroid.api.IMapController;
 import org.osmdroid.config.Configuration;
+import org.osmdroid.events.MapListener;
+import org.osmdroid.events.ScrollEvent;
+import org.osmdroid.events.ZoomEvent;
 import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.BoundingBox;
 import org.osmdroid.util.GeoPoint;
@@ -59,7 +63,7 @@ import butterknife.ButterKnife;
  * Activity showing session information.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 2.0
  */
 public class SessionActivity extends AppCompatActivity implements
@@ -152,8 +156,9 @@ public class SessionActivity extends AppCompatActivity implements
 
         initTiles();
 
-        if (!session.getDataPoints().isEmpty()) {
-            initMap();
+        TrackPyramid pyramid = Tracks.loadPyramid(session);
+        if (!pyramid.isEmpty()) {
+            initMap(pyramid);
         } else {
             mapView.setVisibility(View.GONE);
             textViewNoData.setVisibility(View.VISIBLE);
@@ -178,10 +183,7 @@ public class SessionActivity extends AppCompatActivity implements
                         ConnectDialog.FRAGMENT_TAG);
                 return true;
             case R.id.action_delete:
-                session.setSelected(true);
-                if (!Sessions.getSelectedSessions().isEmpty()) {
-                    deleteSession();
-                }
+                deleteSession();
                 return true;
             default:
                 return super.onOptionsItemSelected(item);
@@ -205,9 +207,31 @@ public class SessionActivity extends AppCompatActivity implements
     }
 
     /**
-     * Initialize the map.
+     * Get the points of the track simplified for the given zoom level.
+     *
+     * @param pyramid Track of the session simplified for each zoom level
+     * @param level   Zoom level
+     * @return Points of the simplified track
      */
-    private void initMap() {
+    private static List<GeoPoint> getWayPoints(final TrackPyramid pyramid,
+                                               final int level) {
+        Track track = pyramid.getTrack();
+        int[] indices = pyramid.getIndices(level);
+        List<GeoPoint> wayPoints = new ArrayList<>(indices.length);
+        for (int i : indices) {
+            wayPoints.add(new GeoPoint(track.getLatitude(i),
+                    track.getLongitude(i)));
+        }
+        return wayPoints;
+    }
+
+    /**
+     * Initialize the map. The track is drawn simplified for the current zoom
+     * level and replaced when the zoom level changes.
+     *
+     * @param pyramid Track of the session simplified for each zoom level
+     */
+    private void initMap(final TrackPyramid pyramid) {
         Configuration.getInstance().setUserAgentValue(
                 BuildConfig.APPLICATION_ID);
         mapView.getZoomController().setVisibility(
@@ -215,18 +239,41 @@ public class SessionActivity extends AppCompatActivity implements
         mapView.setTileSource(TileSourceFactory.DEFAULT_TILE_SOURCE);
         mapView.setMultiTouchControls(true);
 
-        ArrayList<GeoPoint> wayPoints = new ArrayList<>();
-        session.resetDataPoints();
-        for (DataPoint dp : session.getDataPoints()) {
-            wayPoints.add(new GeoPoint(dp.getLatitude(), dp.getLongitude()));
-        }
+        // Zoom set to max below
+        List<GeoPoint> wayPoints = getWayPoints(pyramid,
+                TrackPyramid.getLevel(19d));
 
-        Polyline polyline = new Polyline();
+        final Polyline polyline = new Polyline();
         polyline.setColor(ContextCompat.getColor(this, R.color.map_blue));
         polyline.setPoints(wayPoints);
         polyline.setWidth(10f);
 
-        final BoundingBox boundingBox = BoundingBox.fromGeoPoints(wayPoints);
+        mapView.addMapListener(new MapListener() {
+
+            /**
+             * Zoom level of the track currently drawn.
+             */
+            private int level = TrackPyramid.getLevel(19d);
+
+            @Override
+            public boolean onScroll(final ScrollEvent event) {
+                return false;
+            }
+
+            @Override
+            public boolean onZoom(final ZoomEvent event) {
+                int newLevel = TrackPyramid.getLevel(
+                        mapView.getZoomLevelDouble());
+                if (newLevel != level) {
+                    level = newLevel;
+                    polyline.setPoints(getWayPoints(pyramid, level));
+                }
+                return false;
+            }
+        });
+
+        final BoundingBox boundingBox = new BoundingBox(pyramid.getNorth(),
+                pyramid.getEast(), pyramid.getSouth(), pyramid.getWest());
         final RelativeLayout layout = findViewById(R.id.session_layout);
         ViewTreeObserver vto = layout.getViewTreeObserver();
         vto.addOnGlobalLayoutListener(
@@ -244,21 +291,17 @@ public class SessionActivity extends AppCompatActivity implements
         // Set zoom to max
         mapController.setZoom(19d);
         // Set center with the start GeoPoint
-        DataPoint dpStart = session.getDataPoints().get(0);
-        mapController.setCenter(new GeoPoint(
-                dpStart.getLatitude(), dpStart.getLongitude()));
+        mapController.setCenter(wayPoints.get(0));
         mapView.getOverlays().add(polyline);
         mapView.invalidate();
     }
 
     /**
-     * Execute the task to delete the selected sessions.
+     * Execute the task to delete the session.
      */
     private void deleteSession() {
-        Deletable[] sessions = Sessions.getSelectedSessions().toArray(
-                new Deletable[0]);
         new Deleter(new Integer[]{SUBSCRIBER_ID},
-                new Session()).execute(sessions);
+                new Session()).execute(session);
         progressBar.setIndeterminate(true);
         progressBar.setVisibility(View.VISIBLE);
     }
@@ -4,12 +4,14 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.preference.EditTextPreference;
+import android.preference.ListPreference;
 import android.preference.Preference;
 import android.preference.PreferenceFragment;
 
 import com.alkisum.android.cloudlib.utils.CloudPref;
 import com.alkisum.android.cloudrun.R;
 import com.alkisum.android.cloudrun.location.LocationHelper;
+import com.alkisum.android.cloudrun.tasks.SessionRecorder;
 import com.alkisum.android.cloudrun.ui.NumberPickerPreference;
 import com.alkisum.android.cloudrun.utils.Markers;
 import com.alkisum.android.cloudrun.utils.Pref;
@@ -21,7 +23,7 @@ import androidx.appcompat.widget.Toolbar;
  * Activity showing the application settings.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 1.1
  */
 public class SettingsActivity extends AppCompatActivity {
@@ -53,11 +55,21 @@ public class SettingsActivity extends AppCompatActivity {
          */
         private NumberPickerPreference npDistanceCnt;
 
+        /**
+         * NumberPicker for the session save interval.
+         */
+        private NumberPickerPreference npSessionSaveInterval;
+
         /**
          * EditTextPreference for the distance to marker.
          */
         private EditTextPreference etpDistanceToMarker;
 
+        /**
+         * ListPreference for the location filter.
+         */
+        private ListPreference lpLocationFilter;
+
         @Override
         public final void onCreate(final Bundle savedInstanceState) {
             super.onCreate(savedInstanceState);
@@ -70,6 +82,17 @@ public class SettingsActivity extends AppCompatActivity {
             npDistanceCnt.setSummary(npDistanceCnt.getValue()
                     + getString(R.string.distance_cnt_summary));
 
+            // session save interval
+            npSessionSaveInterval = (NumberPickerPreference) findPreference(
+                    Pref.SESSION_SAVE_INTERVAL);
+            npSessionSaveInterval.setSummary(npSessionSaveInterval.getValue()
+                    + getString(R.string.session_save_interval_summary));
+
+            // location filter
+            lpLocationFilter = (ListPreference) findPreference(
+                    Pref.LOCATION_FILTER);
+            lpLocationFilter.setSummary(lpLocationFilter.getEntry());
+
             // distance to marker
             etpDistanceToMarker = (EditTextPreference) findPreference(
                     Pref.DISTANCE_TO_MARKER);
@@ -111,6 +134,17 @@ public class SettingsActivity extends AppCompatActivity {
                     npDistanceCnt.setSummary(distanceCnt + getString(
                             R.string.distance_cnt_summary));
                     break;
+                case Pref.SESSION_SAVE_INTERVAL:
+                    int sessionSaveInterval = sharedPreferences.getInt(
+                            Pref.SESSION_SAVE_INTERVAL,
+                            SessionRecorder.SAVE_INTERVAL_DEFAULT);
+                    npSessionSaveInterval.setSummary(sessionSaveInterval
+                            + getString(
+                            R.string.session_save_interval_summary));
+                    break;
+                case Pref.LOCATION_FILTER:
+                    lpLocationFilter.setSummary(lpLocationFilter.getEntry());
+                    break;
                 case Pref.DISTANCE_TO_MARKER:
                     String distanceToMarker = sharedPreferences.getString(
                             Pref.DISTANCE_TO_MARKER,
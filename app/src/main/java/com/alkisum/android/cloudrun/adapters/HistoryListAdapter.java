@@ -2,6 +2,7 @@ package com.alkisum.android.cloudrun.adapters;
 
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.util.LruCache;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,10 +12,20 @@ import android.widget.TextView;
 
 import com.alkisum.android.cloudrun.R;
 import com.alkisum.android.cloudrun.model.Session;
+import com.alkisum.android.cloudrun.model.SessionStats;
 import com.alkisum.android.cloudrun.utils.Format;
+import com.alkisum.android.cloudrun.utils.Sessions;
+import com.alkisum.android.cloudrun.utils.Statistics;
 
+import org.greenrobot.greendao.query.LazyList;
+
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import androidx.appcompat.widget.AppCompatCheckBox;
 import androidx.core.content.ContextCompat;
@@ -26,20 +37,32 @@ import butterknife.ButterKnife;
  * Adapter for History ListView.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 1.0
  */
 public class HistoryListAdapter extends BaseAdapter {
 
+    /**
+     * Number of rows whose values are kept formatted, a few screens of rows.
+     */
+    private static final int ROW_CACHE_SIZE = 64;
+
     /**
      * Context.
      */
     private final Context context;
 
     /**
-     * List of sessions.
+     * Lazy list of sessions, only the visible sessions are loaded from the
+     * cursor.
+     */
+    private LazyList<Session> sessions;
+
+    /**
+     * Start times of the sessions, in the order of the list, used to find
+     * the first session of each month without loading the sessions.
      */
-    private final List<Session> sessions;
+    private long[] starts;
 
     /**
      * ID of the session to be highlighted, used after a session has been
@@ -47,6 +70,29 @@ public class HistoryListAdapter extends BaseAdapter {
      */
     private final Long highlightedSessionId;
 
+    /**
+     * Monthly statistics by month start, shown on the first session of each
+     * month.
+     */
+    private Map<Long, SessionStats> monthStats = new HashMap<>();
+
+    /**
+     * Values shown in the rows by session ID, formatted once per session
+     * instead of on every bind while scrolling.
+     */
+    private final LruCache<Long, RowValues> rowValues =
+            new LruCache<>(ROW_CACHE_SIZE);
+
+    /**
+     * Format for the month in the period headers.
+     */
+    private final SimpleDateFormat monthFormat = Format.getMonthHistory();
+
+    /**
+     * IDs of the selected sessions.
+     */
+    private final Set<Long> selectedIds = new HashSet<>();
+
     /**
      * Flag set to true if the ListView is in edit mode, false otherwise.
      */
@@ -66,18 +112,21 @@ public class HistoryListAdapter extends BaseAdapter {
      * HistoryListAdapter constructor.
      *
      * @param context              Context
-     * @param sessions             List of sessions
+     * @param sessions             Lazy list of sessions
+     * @param starts               Start times of the sessions, in the order
+     *                             of the list
      * @param highlightedSessionId ID of the session to be highlighted, used
      *                             after a session has been stopped.
      *                             The ID is null if the user started
      *                             the HistoryActivity manually
      */
     public HistoryListAdapter(final Context context,
-                              final List<Session> sessions,
+                              final LazyList<Session> sessions,
+                              final long[] starts,
                               final Long highlightedSessionId) {
         this.context = context;
         this.sessions = sessions;
-        resetSessionsSelectedStates();
+        this.starts = starts;
         this.highlightedSessionId = highlightedSessionId;
 
         // Checkbox colors
@@ -92,13 +141,46 @@ public class HistoryListAdapter extends BaseAdapter {
     }
 
     /**
-     * Set new list of sessions.
+     * Set new list of sessions and close the previous one.
      *
-     * @param sessions List of sessions to set
+     * @param sessions Lazy list of sessions to set
+     * @param starts   Start times of the sessions, in the order of the list
      */
-    public final void setSessions(final List<Session> sessions) {
-        this.sessions.clear();
-        this.sessions.addAll(sessions);
+    public final void setSessions(final LazyList<Session> sessions,
+                                  final long[] starts) {
+        this.sessions.close();
+        this.sessions = sessions;
+        this.starts = starts;
+        rowValues.evictAll();
+    }
+
+    /**
+     * Close the list of sessions. Must be called when the adapter is not used
+     * anymore.
+     */
+    public final void close() {
+        sessions.close();
+    }
+
+    /**
+     * Set the monthly statistics shown on the first session of each month.
+     *
+     * @param monthStats Monthly statistics by month start
+     */
+    public final void setMonthStats(final Map<Long, SessionStats> monthStats) {
+        this.monthStats = monthStats;
+    }
+
+    /**
+     * Get the start of the month of the session at the given position, from
+     * its start time only, so that showing a row does not load the previous
+     * session from the cursor.
+     *
+     * @param i Position of the session
+     * @return Start of the month in milliseconds
+     */
+    private long getMonthStart(final int i) {
+        return Statistics.getPeriodStart(Statistics.MONTH, starts[i]);
     }
 
     /**
@@ -109,11 +191,11 @@ public class HistoryListAdapter extends BaseAdapter {
     }
 
     /**
-     * Disable the edit mode and reset the sessions' selected states.
+     * Disable the edit mode and clear the selection.
      */
     public final void disableEditMode() {
         editMode = false;
-        resetSessionsSelectedStates();
+        selectedIds.clear();
     }
 
     /**
@@ -124,7 +206,7 @@ public class HistoryListAdapter extends BaseAdapter {
      */
     public final void enableEditMode(final int position) {
         editMode = true;
-        sessions.get(position).setSelected(true);
+        selectedIds.add(sessions.get(position).getId());
     }
 
     /**
@@ -133,18 +215,34 @@ public class HistoryListAdapter extends BaseAdapter {
      * @param position Position of the item that has been pressed
      */
     public final void changeSessionSelectedState(final int position) {
-        Session session = sessions.get(position);
-        session.setSelected(!session.getSelected());
+        Long id = sessions.get(position).getId();
+        if (!selectedIds.remove(id)) {
+            selectedIds.add(id);
+        }
     }
 
     /**
-     * Reset the sessions' selected states. Mandatory to avoid the sessions to
-     * be selected from actions performed during last HistoryActivity instance.
+     * Select all the sessions of the list.
+     *
+     * @param ids IDs of all the sessions of the list, loaded without loading
+     *            the sessions
      */
-    private void resetSessionsSelectedStates() {
-        for (Session session : sessions) {
-            session.setSelected(false);
-        }
+    public final void selectAll(final List<Long> ids) {
+        selectedIds.addAll(ids);
+    }
+
+    /**
+     * @return true if at least one session is selected, false otherwise
+     */
+    public final boolean hasSelectedSessions() {
+        return !selectedIds.isEmpty();
+    }
+
+    /**
+     * @return List of the selected sessions, in the order of the list
+     */
+    public final List<Session> getSelectedSessions() {
+        return Sessions.loadSessionsById(selectedIds);
     }
 
     @Override
@@ -177,26 +275,27 @@ public class HistoryListAdapter extends BaseAdapter {
         final ViewHolder holder = (ViewHolder) view.getTag();
 
         // Set values
-        holder.dateTime.setText(Format.getDateTimeHistory().format(
-                new Date(session.getStart())));
-        if (session.getEnd() != null) {
-            long duration = session.getDuration();
-            holder.distance.setText(String.format("%s %s",
-                    Format.formatDistance(session.getDistance()),
+        RowValues values = getRowValues(session);
+        holder.dateTime.setText(values.dateTime);
+        holder.distance.setText(values.distance);
+        holder.duration.setText(values.duration);
+        holder.speed.setText(values.speed);
+        holder.pace.setText(values.pace);
+
+        // Show the month statistics on the first session of the month
+        long monthStart = getMonthStart(i);
+        SessionStats stats = monthStats.get(monthStart);
+        if ((i == 0 || monthStart != getMonthStart(i - 1))
+                && stats != null) {
+            holder.period.setText(context.getResources().getQuantityString(
+                    R.plurals.history_list_period, stats.getCount(),
+                    monthFormat.format(new Date(monthStart)),
+                    stats.getCount(),
+                    Format.formatDistance(stats.getDistance()),
                     context.getString(R.string.unit_distance)));
-            holder.duration.setText(Format.formatDuration(duration));
-            holder.speed.setText(String.format("%s %s",
-                    Format.formatSpeedAvg(duration, session.getDistance()),
-                    context.getString(R.string.unit_speed)));
-            holder.pace.setText(String.format("%s %s",
-                    Format.formatPaceAvg(duration, session.getDistance()),
-                    context.getString(R.string.unit_pace)));
+            holder.period.setVisibility(View.VISIBLE);
         } else {
-            // End of session unavailable, cannot calculate values
-            holder.distance.setText(R.string.not_available);
-            holder.duration.setText(R.string.not_available);
-            holder.speed.setText(R.string.not_available);
-            holder.pace.setText(R.string.not_available);
+            holder.period.setVisibility(View.GONE);
         }
 
         // Set colors
@@ -219,11 +318,16 @@ public class HistoryListAdapter extends BaseAdapter {
         }
 
         // Handle checkboxes according to the mode
-        holder.checkBox.setChecked(session.getSelected());
+        holder.checkBox.setChecked(selectedIds.contains(session.getId()));
         if (editMode) {
             holder.checkBox.setVisibility(View.VISIBLE);
-            holder.checkBox.setOnClickListener(
-                    view1 -> session.setSelected(holder.checkBox.isChecked()));
+            holder.checkBox.setOnClickListener(view1 -> {
+                if (holder.checkBox.isChecked()) {
+                    selectedIds.add(session.getId());
+                } else {
+                    selectedIds.remove(session.getId());
+                }
+            });
         } else {
             holder.checkBox.setVisibility(View.GONE);
         }
@@ -231,6 +335,78 @@ public class HistoryListAdapter extends BaseAdapter {
         return view;
     }
 
+    /**
+     * Get the values shown in the row of the given session, formatting them
+     * only if they are not cached yet.
+     *
+     * @param session Session shown in the row
+     * @return Values of the row
+     */
+    private RowValues getRowValues(final Session session) {
+        RowValues values = rowValues.get(session.getId());
+        if (values == null) {
+            values = new RowValues();
+            values.dateTime = Format.getDateTimeHistory().format(
+                    new Date(session.getStart()));
+            if (session.getEnd() != null) {
+                long duration = session.getDuration();
+                values.distance = String.format("%s %s",
+                        Format.formatDistance(session.getDistance()),
+                        context.getString(R.string.unit_distance));
+                values.duration = Format.formatDuration(duration);
+                values.speed = String.format("%s %s",
+                        Format.formatSpeedAvg(duration,
+                                session.getDistance()),
+                        context.getString(R.string.unit_speed));
+                values.pace = String.format("%s %s",
+                        Format.formatPaceAvg(duration,
+                                session.getDistance()),
+                        context.getString(R.string.unit_pace));
+            } else {
+                // End of session unavailable, cannot calculate values
+                String notAvailable = context.getString(
+                        R.string.not_available);
+                values.distance = notAvailable;
+                values.duration = notAvailable;
+                values.speed = notAvailable;
+                values.pace = notAvailable;
+            }
+            rowValues.put(session.getId(), values);
+        }
+        return values;
+    }
+
+    /**
+     * Formatted values shown in a row.
+     */
+    private static class RowValues {
+
+        /**
+         * Date and time of the session start.
+         */
+        private String dateTime;
+
+        /**
+         * Distance with its unit.
+         */
+        private String distance;
+
+        /**
+         * Duration.
+         */
+        private String duration;
+
+        /**
+         * Average speed with its unit.
+         */
+        private String speed;
+
+        /**
+         * Average pace with its unit.
+         */
+        private String pace;
+    }
+
     /**
      * ViewHolder for history list adapter.
      */
@@ -242,6 +418,12 @@ public class HistoryListAdapter extends BaseAdapter {
         @BindView(R.id.history_list_layout)
         RelativeLayout layout;
 
+        /**
+         * TextView for the period header.
+         */
+        @BindView(R.id.history_list_period)
+        TextView period;
+
         /**
          * Checkbox to select the item in edit mode.
          */
@@ -10,7 +10,10 @@ import android.widget.TextView;
 import com.alkisum.android.cloudrun.R;
 import com.alkisum.android.cloudrun.model.Route;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import androidx.appcompat.widget.AppCompatCheckBox;
 import butterknife.BindView;
@@ -20,7 +23,7 @@ import butterknife.ButterKnife;
  * Adapter for Routes ListView.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 4.0
  */
 public class RoutesListAdapter extends BaseAdapter {
@@ -35,6 +38,11 @@ public class RoutesListAdapter extends BaseAdapter {
      */
     private final List<Route> routes;
 
+    /**
+     * IDs of the selected routes.
+     */
+    private final Set<Long> selectedIds = new HashSet<>();
+
     /**
      * Flag set to true if the ListView is in edit mode, false otherwise.
      */
@@ -50,7 +58,6 @@ public class RoutesListAdapter extends BaseAdapter {
                              final List<Route> routes) {
         this.context = context;
         this.routes = routes;
-        resetRoutesSelectedStates();
     }
 
     /**
@@ -71,11 +78,11 @@ public class RoutesListAdapter extends BaseAdapter {
     }
 
     /**
-     * Disable the edit mode and reset the routes' selected states.
+     * Disable the edit mode and clear the selection.
      */
     public final void disableEditMode() {
         editMode = false;
-        resetRoutesSelectedStates();
+        selectedIds.clear();
     }
 
     /**
@@ -86,7 +93,7 @@ public class RoutesListAdapter extends BaseAdapter {
      */
     public final void enableEditMode(final int position) {
         editMode = true;
-        routes.get(position).setSelected(true);
+        selectedIds.add(routes.get(position).getId());
     }
 
     /**
@@ -95,18 +102,39 @@ public class RoutesListAdapter extends BaseAdapter {
      * @param position Position of the item that has been pressed
      */
     public final void changeRouteSelectedState(final int position) {
-        Route route = routes.get(position);
-        route.setSelected(!route.getSelected());
+        Long id = routes.get(position).getId();
+        if (!selectedIds.remove(id)) {
+            selectedIds.add(id);
+        }
+    }
+
+    /**
+     * Select all the routes of the list.
+     */
+    public final void selectAll() {
+        for (Route route : routes) {
+            selectedIds.add(route.getId());
+        }
+    }
+
+    /**
+     * @return true if at least one route is selected, false otherwise
+     */
+    public final boolean hasSelectedRoutes() {
+        return !selectedIds.isEmpty();
     }
 
     /**
-     * Reset the routes' selected states. Mandatory to avoid the routes to
-     * be selected from actions performed during last HistoryActivity instance.
+     * @return List of the selected routes, in the order of the list
      */
-    private void resetRoutesSelectedStates() {
+    public final List<Route> getSelectedRoutes() {
+        List<Route> selectedRoutes = new ArrayList<>();
         for (Route route : routes) {
-            route.setSelected(false);
+            if (selectedIds.contains(route.getId())) {
+                selectedRoutes.add(route);
+            }
         }
+        return selectedRoutes;
     }
 
     @Override
@@ -142,11 +170,16 @@ public class RoutesListAdapter extends BaseAdapter {
         holder.name.setText(route.getName());
 
         // Handle checkboxes according to the mode
-        holder.checkBox.setChecked(route.getSelected());
+        holder.checkBox.setChecked(selectedIds.contains(route.getId()));
         if (editMode) {
             holder.checkBox.setVisibility(View.VISIBLE);
-            holder.checkBox.setOnClickListener(view1 -> route.setSelected(
-                    holder.checkBox.isChecked()));
+            holder.checkBox.setOnClickListener(view1 -> {
+                if (holder.checkBox.isChecked()) {
+                    selectedIds.add(route.getId());
+                } else {
+                    selectedIds.remove(route.getId());
+                }
+            });
         } else {
             holder.checkBox.setVisibility(View.GONE);
         }
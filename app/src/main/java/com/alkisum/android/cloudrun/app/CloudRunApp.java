@@ -1,20 +1,38 @@
 package com.alkisum.android.cloudrun.app;
 
 import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.SystemClock;
+import android.util.Log;
 
+import com.alkisum.android.cloudrun.BuildConfig;
+import com.alkisum.android.cloudrun.CloudRunEventBusIndex;
 import com.alkisum.android.cloudrun.database.Db;
+import com.alkisum.android.cloudrun.tasks.Archiver;
+import com.alkisum.android.cloudrun.tasks.StatsRebuilder;
+import com.alkisum.android.cloudrun.utils.ActiveMarkerCache;
 import com.alkisum.android.cloudrun.utils.Pref;
 import com.squareup.leakcanary.LeakCanary;
 
+import org.greenrobot.eventbus.EventBus;
+
 /**
  * Application class.
  *
  * @author Alkisum
- * @version 3.0
+ * @version 4.2
  * @since 2.0
  */
 public class CloudRunApp extends Application {
 
+    /**
+     * Log tag.
+     */
+    private static final String TAG = "CloudRunApp";
+
     @Override
     public final void onCreate() {
         super.onCreate();
@@ -23,8 +41,39 @@ public class CloudRunApp extends Application {
         }
         LeakCanary.install(this);
 
+        // Install the default EventBus with the subscriber index generated at
+        // compile time, the subscribers are then registered without
+        // reflection. The time taken is only logged in debug builds.
+        long start = SystemClock.elapsedRealtimeNanos();
+        EventBus.builder().addIndex(new CloudRunEventBusIndex())
+                .installDefaultEventBus();
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "EventBus index installed in "
+                    + (SystemClock.elapsedRealtimeNanos() - start) / 1000
+                    + " us");
+        }
+
         Db.getInstance().init(this);
 
         Pref.init(this);
+
+        ActiveMarkerCache.getInstance().init(this);
+
+        // Archive the datapoints of the sessions recorded before the archiving,
+        // on the thread pool to not hold the other tasks back
+        new Archiver().start();
+
+        // Rebuild the statistics if the time zone or the locale has changed
+        // since they were computed, now and whenever it changes
+        new StatsRebuilder(this).execute();
+        IntentFilter filter = new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED);
+        filter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(final Context context,
+                                  final Intent intent) {
+                new StatsRebuilder(context).execute();
+            }
+        }, filter);
     }
 }
@@ -1,25 +1,32 @@
 package com.alkisum.android.cloudrun.database;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 
+import com.alkisum.android.cloudrun.BuildConfig;
 import com.alkisum.android.cloudrun.model.DaoMaster;
 import com.alkisum.android.cloudrun.model.DaoSession;
+import com.alkisum.android.cloudrun.model.DataPointDao;
 import com.alkisum.android.cloudrun.model.MarkerDao;
 import com.alkisum.android.cloudrun.model.RouteDao;
 import com.alkisum.android.cloudrun.model.Session;
 import com.alkisum.android.cloudrun.model.SessionDao;
+import com.alkisum.android.cloudrun.model.SessionStatsDao;
+import com.alkisum.android.cloudrun.model.SessionTrackDao;
 
 import org.greenrobot.greendao.database.Database;
 
 import java.util.List;
 
 /**
- * Singleton class handling database.
+ * Singleton class handling database. The database is opened in
+ * write-ahead-logging mode so that the session recorder can write while the
+ * history, the notification and the exports read.
  *
  * @author Alkisum
- * @version 4.0
+ * @version 4.2
  * @since 1.0
  */
 public final class Db {
@@ -34,6 +41,22 @@ public final class Db {
      */
     private static final String NAME = "CloudRun.db";
 
+    /**
+     * Page cache size of the connection in KiB.
+     */
+    private static final int CACHE_SIZE = 2048;
+
+    /**
+     * Application context.
+     */
+    private Context context;
+
+    /**
+     * Time of the last checkpoint in milliseconds, 0 if no checkpoint has
+     * been run since the database has been opened.
+     */
+    private volatile long lastCheckpoint;
+
     /**
      * DaoSession instance.
      */
@@ -67,11 +90,26 @@ public final class Db {
      * @param context Context
      */
     public void init(final Context context) {
+        this.context = context.getApplicationContext();
         DaoMaster.OpenHelper helper = new DbOpenHelper(
-                context.getApplicationContext(), NAME, null);
+                this.context, NAME, null);
         SQLiteDatabase db = helper.getWritableDatabase();
         DaoMaster daoMaster = new DaoMaster(db);
         daoSession = daoMaster.newSession();
+        if (BuildConfig.DEBUG) {
+            // size after the migrations run by getWritableDatabase
+            logStats("Database opened");
+        }
+    }
+
+    /**
+     * Initialize database with the given connection instead of the
+     * application database, used to run the database code on the JVM.
+     *
+     * @param db Database connection, the tables must already exist
+     */
+    public void init(final Database db) {
+        daoSession = new DaoMaster(db).newSession();
     }
 
     /**
@@ -81,6 +119,69 @@ public final class Db {
         return daoSession;
     }
 
+    /**
+     * Copy the content of the write-ahead log into the database without
+     * waiting for the readers. Can be called from any thread.
+     */
+    public void checkpoint() {
+        Cursor cursor = daoSession.getDatabase().rawQuery(
+                "PRAGMA wal_checkpoint(PASSIVE);", null);
+        try {
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+        lastCheckpoint = System.currentTimeMillis();
+        if (BuildConfig.DEBUG) {
+            logStats("Checkpoint");
+        }
+    }
+
+    /**
+     * @return Current database statistics
+     */
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.pageCount = queryLong("PRAGMA page_count;");
+        stats.pageSize = queryLong("PRAGMA page_size;");
+        if (context != null) {
+            stats.walSize = context.getDatabasePath(NAME + "-wal").length();
+        }
+        stats.lastCheckpoint = lastCheckpoint;
+        return stats;
+    }
+
+    /**
+     * Log the current database statistics, used in debug builds to follow
+     * the size of the database and of the write-ahead log.
+     *
+     * @param event Event after which the statistics are read
+     */
+    private void logStats(final String event) {
+        Stats stats = getStats();
+        Log.d(TAG, event + ": " + stats.getPageCount() * stats.getPageSize()
+                / 1024 + " KiB in " + stats.getPageCount() + " pages, WAL "
+                + stats.getWalSize() / 1024 + " KiB");
+    }
+
+    /**
+     * Run the given query and read the first column of the first row.
+     *
+     * @param sql Query returning a number
+     * @return Number returned, 0 if the query returned no row
+     */
+    private long queryLong(final String sql) {
+        Cursor cursor = daoSession.getDatabase().rawQuery(sql, null);
+        try {
+            if (cursor.moveToFirst()) {
+                return cursor.getLong(0);
+            }
+            return 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
     /**
      * Class extending SQLiteOpenHelper, used for upgrading database from one
      * version to another.
@@ -99,6 +200,16 @@ public final class Db {
             super(context, name, factory);
         }
 
+        @Override
+        public void onConfigure(final SQLiteDatabase db) {
+            super.onConfigure(db);
+            db.enableWriteAheadLogging();
+            // in WAL mode, NORMAL only syncs on checkpoints and is still
+            // safe against corruption
+            db.execSQL("PRAGMA synchronous = NORMAL;");
+            db.execSQL("PRAGMA cache_size = -" + CACHE_SIZE + ";");
+        }
+
         @Override
         public void onUpgrade(final Database db, final int oldVersion,
                               final int newVersion) {
@@ -128,6 +239,111 @@ public final class Db {
                 RouteDao.createTable(db, true);
                 MarkerDao.createTable(db, true);
             }
+
+            if (oldVersion < 5) {
+                // index the columns used to load the datapoints of a session
+                // and to sort the sessions
+                Log.i(TAG, "Create indexes on DATA_POINT and SESSION");
+                createIndex(db, "IDX_DATA_POINT_SESSION_ID",
+                        DataPointDao.TABLENAME,
+                        DataPointDao.Properties.SessionId.columnName);
+                createIndex(db, "IDX_SESSION_START", SessionDao.TABLENAME,
+                        SessionDao.Properties.Start.columnName);
+            }
+
+            if (oldVersion < 6) {
+                // create table session stats, it is filled from the sessions
+                // in background by the StatsRebuilder task as no period rule
+                // has been stored yet
+                Log.i(TAG, "Create table SESSION_STATS");
+                SessionStatsDao.createTable(db, true);
+            }
+
+            if (oldVersion < 7) {
+                // create table session track, the datapoints of the existing
+                // sessions are archived in background by the Archiver task
+                Log.i(TAG, "Create table SESSION_TRACK");
+                SessionTrackDao.createTable(db, true);
+            }
+        }
+
+        /**
+         * Create an index on the given column if it does not exist yet. The
+         * index names must match the ones declared on the entities.
+         *
+         * @param db     Database
+         * @param name   Index name
+         * @param table  Table name
+         * @param column Column name
+         */
+        private void createIndex(final Database db, final String name,
+                                 final String table, final String column) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS " + name + " ON \""
+                    + table + "\" (\"" + column + "\" ASC);");
+        }
+    }
+
+    /**
+     * Database statistics.
+     */
+    public static final class Stats {
+
+        /**
+         * Number of pages in the database file.
+         */
+        private long pageCount;
+
+        /**
+         * Size of a page in bytes.
+         */
+        private long pageSize;
+
+        /**
+         * Size of the write-ahead log file in bytes, 0 if the database is
+         * not the application database.
+         */
+        private long walSize;
+
+        /**
+         * Time of the last checkpoint in milliseconds.
+         */
+        private long lastCheckpoint;
+
+        /**
+         * Stats constructor.
+         */
+        private Stats() {
+
+        }
+
+        /**
+         * @return Number of pages in the database file
+         */
+        public long getPageCount() {
+            return pageCount;
+        }
+
+        /**
+         * @return Size of a page in bytes
+         */
+        public long getPageSize() {
+            return pageSize;
+        }
+
+        /**
+         * @return Size of the write-ahead log file in bytes, 0 if the
+         * database is not the application database
+         */
+        public long getWalSize() {
+            return walSize;
+        }
+
+        /**
+         * @return Time of the last checkpoint in milliseconds, 0 if no
+         * checkpoint has been run since the database has been opened
+         */
+        public long getLastCheckpoint() {
+            return lastCheckpoint;
         }
     }
 }
@@ -0,0 +1,32 @@
+package com.alkisum.android.cloudrun.events;
+
+/**
+ * Class defining map visibility event for EventBus.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class MapVisibilityEvent {
+
+    /**
+     * Flag set to true if the map is visible, false otherwise.
+     */
+    private final boolean visible;
+
+    /**
+     * MapVisibilityEvent constructor.
+     *
+     * @param visible true if the map is visible, false otherwise
+     */
+    public MapVisibilityEvent(final boolean visible) {
+        this.visible = visible;
+    }
+
+    /**
+     * @return true if the map is visible, false otherwise
+     */
+    public final boolean isVisible() {
+        return visible;
+    }
+}
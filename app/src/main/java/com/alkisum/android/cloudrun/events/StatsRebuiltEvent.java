@@ -0,0 +1,19 @@
+package com.alkisum.android.cloudrun.events;
+
+/**
+ * Class defining the event posted when the statistics have been rebuilt
+ * after a change of time zone or locale.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class StatsRebuiltEvent {
+
+    /**
+     * StatsRebuiltEvent constructor.
+     */
+    public StatsRebuiltEvent() {
+
+    }
+}
@@ -0,0 +1,49 @@
+package com.alkisum.android.cloudrun.events;
+
+import com.alkisum.android.cloudrun.location.Track;
+
+/**
+ * Class defining the event posted when the track of a session has been
+ * loaded in the background.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class TrackLoadedEvent {
+
+    /**
+     * Id of the session the track belongs to.
+     */
+    private final long sessionId;
+
+    /**
+     * Loaded track.
+     */
+    private final Track track;
+
+    /**
+     * TrackLoadedEvent constructor.
+     *
+     * @param sessionId Id of the session the track belongs to
+     * @param track     Loaded track
+     */
+    public TrackLoadedEvent(final long sessionId, final Track track) {
+        this.sessionId = sessionId;
+        this.track = track;
+    }
+
+    /**
+     * @return Id of the session the track belongs to
+     */
+    public final long getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return Loaded track
+     */
+    public final Track getTrack() {
+        return track;
+    }
+}
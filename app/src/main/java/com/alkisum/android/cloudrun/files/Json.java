@@ -14,7 +14,7 @@ import java.util.List;
  * Utility class for JSON.
  *
  * @author Alkisum
- * @version 4.0
+ * @version 4.2
  * @since 2.0
  */
 public final class Json {
@@ -57,33 +57,6 @@ public final class Json {
         return jsonFile.getName().matches(regex);
     }
 
-    /**
-     * Check if the entity is already in the database using the given JSON file.
-     *
-     * @param jsonFile    JSON file to check
-     * @param entityClass Class to use when loading entities
-     * @param <T>         Jsonable
-     * @return true if the entity is already in the database, false otherwise
-     */
-    @SuppressWarnings("unchecked")
-    public static <T extends Jsonable> boolean isAlreadyInDb(
-            final JsonFile jsonFile, final Class<T> entityClass) {
-        List<?> entities = Db.getInstance().getDaoSession().getDao(entityClass)
-                .loadAll();
-        if (entities.isEmpty()) {
-            return false;
-        }
-
-        List<Jsonable> jsonables = (List<Jsonable>) entities;
-
-        for (Jsonable jsonable : jsonables) {
-            if (jsonFile.getName().equals(jsonable.buildJsonFileName())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * List file names of the all entities stored in the database.
      *
@@ -7,7 +7,7 @@ import android.os.Parcelable;
  * Class defining coordinates (time, latitude, longitude and elevation).
  *
  * @author Alkisum
- * @version 4.0
+ * @version 4.2
  * @since 1.0
  */
 public class Coordinate implements Parcelable {
@@ -77,20 +77,14 @@ public class Coordinate implements Parcelable {
     }
 
     /**
-     * Calculate the distance between to locations.
+     * Calculate the distance between to locations on the WGS84 ellipsoid.
      *
      * @param dest Destination
      * @return Distance between the current location and the given destination
      */
     final float distanceTo(final Coordinate dest) {
-        float[] results = new float[2];
-        android.location.Location.distanceBetween(
-                latitude,
-                longitude,
-                dest.getLatitude(),
-                dest.getLongitude(),
-                results);
-        return results[0];
+        return (float) Geodesy.vincenty(latitude, longitude,
+                dest.getLatitude(), dest.getLongitude());
     }
 
     /**
@@ -0,0 +1,231 @@
+package com.alkisum.android.cloudrun.location;
+
+/**
+ * Utility class for geodesic computations. The distance added to the
+ * sessions is computed on the WGS84 ellipsoid, the faster spherical formulas
+ * are used for the checks that tolerate a small error. The methods only work
+ * on primitive values, do not allocate any object and do not depend on the
+ * Android framework.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class Geodesy {
+
+    /**
+     * Mean earth radius in meters.
+     */
+    public static final double EARTH_RADIUS = 6371008.8;
+
+    /**
+     * WGS84 semi-major axis in meters.
+     */
+    private static final double WGS84_A = 6378137.0;
+
+    /**
+     * WGS84 semi-minor axis in meters.
+     */
+    private static final double WGS84_B = 6356752.3142;
+
+    /**
+     * WGS84 flattening.
+     */
+    private static final double WGS84_F = (WGS84_A - WGS84_B) / WGS84_A;
+
+    /**
+     * Maximum number of iterations of the Vincenty formula.
+     */
+    private static final int VINCENTY_ITERATIONS = 20;
+
+    /**
+     * Geodesy constructor.
+     */
+    private Geodesy() {
+
+    }
+
+    /**
+     * Calculate the distance between two locations on the WGS84 ellipsoid
+     * with the Vincenty inverse formula, as done by
+     * {@code android.location.Location#distanceBetween}. Used for the
+     * distance of the sessions, so that it matches the distance of the
+     * sessions recorded before.
+     *
+     * @param lat1 Latitude of the first location in degrees
+     * @param lon1 Longitude of the first location in degrees
+     * @param lat2 Latitude of the second location in degrees
+     * @param lon2 Longitude of the second location in degrees
+     * @return Distance in meters
+     */
+    public static double vincenty(final double lat1, final double lon1,
+                                  final double lat2, final double lon2) {
+        double l = Math.toRadians(lon2 - lon1);
+        double u1 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(lat1)));
+        double u2 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(lat2)));
+        double sinU1 = Math.sin(u1);
+        double cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2);
+        double cosU2 = Math.cos(u2);
+
+        double lambda = l;
+        double sinSigma = 0;
+        double cosSigma = 0;
+        double sigma = 0;
+        double cosSqAlpha = 0;
+        double cos2SigmaM = 0;
+        for (int i = 0; i < VINCENTY_ITERATIONS; i++) {
+            double sinLambda = Math.sin(lambda);
+            double cosLambda = Math.cos(lambda);
+            double t1 = cosU2 * sinLambda;
+            double t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+            sinSigma = Math.sqrt(t1 * t1 + t2 * t2);
+            if (sinSigma == 0) {
+                // same location
+                return 0;
+            }
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            cosSqAlpha = 1 - sinAlpha * sinAlpha;
+            if (cosSqAlpha == 0) {
+                // equatorial line
+                cos2SigmaM = 0;
+            } else {
+                cos2SigmaM = cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha;
+            }
+            double c = WGS84_F / 16 * cosSqAlpha
+                    * (4 + WGS84_F * (4 - 3 * cosSqAlpha));
+            double previous = lambda;
+            lambda = l + (1 - c) * WGS84_F * sinAlpha
+                    * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma
+                    * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+            if (Math.abs(lambda - previous) < 1e-12) {
+                break;
+            }
+        }
+
+        double uSq = cosSqAlpha * (WGS84_A * WGS84_A - WGS84_B * WGS84_B)
+                / (WGS84_B * WGS84_B);
+        double a = 1 + uSq / 16384
+                * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+        double b = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+        double deltaSigma = b * sinSigma * (cos2SigmaM + b / 4
+                * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                - b / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma)
+                * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+        return WGS84_B * a * (sigma - deltaSigma);
+    }
+
+    /**
+     * Calculate the great-circle distance between two locations using the
+     * haversine formula. The error compared to the ellipsoidal distance is
+     * below 0.6%.
+     *
+     * @param lat1 Latitude of the first location in degrees
+     * @param lon1 Longitude of the first location in degrees
+     * @param lat2 Latitude of the second location in degrees
+     * @param lon2 Longitude of the second location in degrees
+     * @return Distance in meters
+     */
+    public static double haversine(final double lat1, final double lon1,
+                                   final double lat2, final double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinDeltaPhi = Math.sin((phi2 - phi1) / 2);
+        double sinDeltaLambda = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double a = sinDeltaPhi * sinDeltaPhi
+                + Math.cos(phi1) * Math.cos(phi2)
+                * sinDeltaLambda * sinDeltaLambda;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Calculate the distance between two locations using the equirectangular
+     * approximation. Faster than {@link #haversine}, accurate for short
+     * distances away from the poles.
+     *
+     * @param lat1 Latitude of the first location in degrees
+     * @param lon1 Longitude of the first location in degrees
+     * @param lat2 Latitude of the second location in degrees
+     * @param lon2 Longitude of the second location in degrees
+     * @return Distance in meters
+     */
+    public static double equirectangular(final double lat1, final double lon1,
+                                         final double lat2,
+                                         final double lon2) {
+        double x = Math.toRadians(lon2 - lon1)
+                * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return EARTH_RADIUS * Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Calculate the initial bearing from the first location to the second
+     * one.
+     *
+     * @param lat1 Latitude of the first location in degrees
+     * @param lon1 Longitude of the first location in degrees
+     * @param lat2 Latitude of the second location in degrees
+     * @param lon2 Longitude of the second location in degrees
+     * @return Bearing in degrees, between 0 (included) and 360 (excluded)
+     */
+    public static double bearing(final double lat1, final double lon1,
+                                 final double lat2, final double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double deltaLambda = Math.toRadians(lon2 - lon1);
+        double y = Math.sin(deltaLambda) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2)
+                - Math.sin(phi1) * Math.cos(phi2) * Math.cos(deltaLambda);
+        double bearing = Math.toDegrees(Math.atan2(y, x));
+        return (bearing + 360) % 360;
+    }
+
+    /**
+     * Calculate the latitude half-size of the box bounding a circle.
+     *
+     * @param radius Circle radius in meters
+     * @return Half-size in degrees
+     */
+    public static double latitudeDelta(final double radius) {
+        return Math.toDegrees(radius / EARTH_RADIUS);
+    }
+
+    /**
+     * Calculate the longitude half-size of the box bounding a circle centered
+     * at the given latitude.
+     *
+     * @param latitude Latitude of the circle center in degrees
+     * @param radius   Circle radius in meters
+     * @return Half-size in degrees
+     */
+    public static double longitudeDelta(final double latitude,
+                                        final double radius) {
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        return latitudeDelta(radius) / Math.max(cosLatitude, 1e-6);
+    }
+
+    /**
+     * Check whether the given location is inside the box centered on the
+     * given center, with the given half-sizes. Use {@link #latitudeDelta}
+     * and {@link #longitudeDelta} to get the half-sizes of the box bounding a
+     * circle.
+     *
+     * @param lat            Latitude of the location in degrees
+     * @param lon            Longitude of the location in degrees
+     * @param centerLat      Latitude of the box center in degrees
+     * @param centerLon      Longitude of the box center in degrees
+     * @param latitudeDelta  Latitude half-size of the box in degrees
+     * @param longitudeDelta Longitude half-size of the box in degrees
+     * @return true if the location is inside the box, false otherwise
+     */
+    public static boolean isInBox(final double lat, final double lon,
+                                  final double centerLat,
+                                  final double centerLon,
+                                  final double latitudeDelta,
+                                  final double longitudeDelta) {
+        return Math.abs(lat - centerLat) <= latitudeDelta
+                && Math.abs(lon - centerLon) <= longitudeDelta;
+    }
+}
@@ -0,0 +1,214 @@
+package com.alkisum.android.cloudrun.location;
+
+/**
+ * Constant-velocity Kalman filter smoothing the locations. The locations are
+ * projected on a local plane centered on the first location, and each axis
+ * is filtered independently with a state made of the position and the
+ * velocity. The measurement noise is given by the accuracy of the location
+ * and the process noise by {@link #ACCELERATION_NOISE}.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class KalmanFilter implements LocationFilter {
+
+    /**
+     * Standard deviation of the acceleration in meters per second squared.
+     */
+    private static final double ACCELERATION_NOISE = 1;
+
+    /**
+     * Initial variance of the velocity in square meters per second squared.
+     */
+    private static final double INITIAL_VELOCITY_VARIANCE = 100;
+
+    /**
+     * Minimum accuracy in meters used as measurement noise.
+     */
+    private static final float MIN_ACCURACY = 1;
+
+    /**
+     * Flag set to true once the filter has received its first location.
+     */
+    private boolean initialized;
+
+    /**
+     * Latitude of the local plane origin in degrees.
+     */
+    private double originLatitude;
+
+    /**
+     * Longitude of the local plane origin in degrees.
+     */
+    private double originLongitude;
+
+    /**
+     * Meters per degree of longitude at the local plane origin.
+     */
+    private double metersPerLongitude;
+
+    /**
+     * Time of the last location in milliseconds.
+     */
+    private long lastTime;
+
+    /**
+     * State of the east axis.
+     */
+    private final Axis east = new Axis();
+
+    /**
+     * State of the north axis.
+     */
+    private final Axis north = new Axis();
+
+    @Override
+    public Coordinate filter(final Coordinate coordinate,
+                             final float accuracy) {
+        double variance = Math.max(MIN_ACCURACY, accuracy);
+        variance *= variance;
+
+        if (!initialized) {
+            originLatitude = coordinate.getLatitude();
+            originLongitude = coordinate.getLongitude();
+            metersPerLongitude = Math.toRadians(Geodesy.EARTH_RADIUS)
+                    * Math.cos(Math.toRadians(originLatitude));
+            east.init(0, variance);
+            north.init(0, variance);
+            lastTime = coordinate.getTime();
+            initialized = true;
+            return coordinate;
+        }
+
+        double seconds = (coordinate.getTime() - lastTime) / 1000d;
+        if (seconds > 0) {
+            east.predict(seconds);
+            north.predict(seconds);
+            lastTime = coordinate.getTime();
+        }
+        east.update(toEast(coordinate.getLongitude()), variance);
+        north.update(toNorth(coordinate.getLatitude()), variance);
+
+        return new Coordinate(coordinate.getTime(),
+                toLatitude(north.position), toLongitude(east.position),
+                coordinate.getElevation());
+    }
+
+    @Override
+    public void reset() {
+        initialized = false;
+    }
+
+    /**
+     * @param longitude Longitude in degrees
+     * @return Distance to the origin on the east axis in meters
+     */
+    private double toEast(final double longitude) {
+        return (longitude - originLongitude) * metersPerLongitude;
+    }
+
+    /**
+     * @param latitude Latitude in degrees
+     * @return Distance to the origin on the north axis in meters
+     */
+    private double toNorth(final double latitude) {
+        return Math.toRadians(latitude - originLatitude)
+                * Geodesy.EARTH_RADIUS;
+    }
+
+    /**
+     * @param east Distance to the origin on the east axis in meters
+     * @return Longitude in degrees
+     */
+    private double toLongitude(final double east) {
+        return originLongitude + east / metersPerLongitude;
+    }
+
+    /**
+     * @param north Distance to the origin on the north axis in meters
+     * @return Latitude in degrees
+     */
+    private double toLatitude(final double north) {
+        return originLatitude
+                + Math.toDegrees(north / Geodesy.EARTH_RADIUS);
+    }
+
+    /**
+     * State of one axis, made of the position, the velocity and their
+     * covariance matrix.
+     */
+    private static final class Axis {
+
+        /**
+         * Position in meters.
+         */
+        private double position;
+
+        /**
+         * Velocity in meters per second.
+         */
+        private double velocity;
+
+        /**
+         * Variance of the position.
+         */
+        private double p00;
+
+        /**
+         * Covariance of the position and the velocity.
+         */
+        private double p01;
+
+        /**
+         * Variance of the velocity.
+         */
+        private double p11;
+
+        /**
+         * Initialize the state at rest on the given position.
+         *
+         * @param position Position in meters
+         * @param variance Variance of the position
+         */
+        private void init(final double position, final double variance) {
+            this.position = position;
+            velocity = 0;
+            p00 = variance;
+            p01 = 0;
+            p11 = INITIAL_VELOCITY_VARIANCE;
+        }
+
+        /**
+         * Predict the state after the given time.
+         *
+         * @param dt Time in seconds
+         */
+        private void predict(final double dt) {
+            double q = ACCELERATION_NOISE * ACCELERATION_NOISE;
+            double dt2 = dt * dt;
+            position += velocity * dt;
+            p00 += 2 * dt * p01 + dt2 * p11 + q * dt2 * dt2 / 4;
+            p01 += dt * p11 + q * dt2 * dt / 2;
+            p11 += q * dt2;
+        }
+
+        /**
+         * Correct the state with the given measured position.
+         *
+         * @param measure  Measured position in meters
+         * @param variance Variance of the measured position
+         */
+        private void update(final double measure, final double variance) {
+            double s = p00 + variance;
+            double k0 = p00 / s;
+            double k1 = p01 / s;
+            double innovation = measure - position;
+            position += k0 * innovation;
+            velocity += k1 * innovation;
+            p11 -= k1 * p01;
+            p01 *= 1 - k0;
+            p00 *= 1 - k0;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.alkisum.android.cloudrun.location;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the live values computed for a location, or for a
+ * batch of locations delivered at once. The snapshot is published once by
+ * {@link LocationProcessor} through {@link LiveMetricsBus}, the readers
+ * therefore always get a consistent set of values.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class LiveMetrics {
+
+    /**
+     * Sequence number of the snapshot, incremented for each snapshot
+     * published by the processor.
+     */
+    private final long sequence;
+
+    /**
+     * Coordinates accepted, in chronological order. Holds more than one
+     * coordinate when the locations have been delivered by batch, or when
+     * snapshots have been conflated for a slow observer.
+     */
+    private final List<Coordinate> coordinates;
+
+    /**
+     * Flag set to true if the locations have been delivered by batch, false
+     * if the snapshot has been computed for a single location.
+     */
+    private final boolean batch;
+
+    /**
+     * Distance travelled since the previous snapshot in meters.
+     */
+    private final float distance;
+
+    /**
+     * Distance from the previous location to the last coordinate in meters.
+     */
+    private final float lastDistance;
+
+    /**
+     * Flag set to true if the distance, the speed and the pace have been
+     * calculated, false if no previous location was known.
+     */
+    private final boolean measured;
+
+    /**
+     * Speed in km/h, 0 if the user is considered still.
+     */
+    private final float speed;
+
+    /**
+     * Pace in milliseconds per kilometer, 0 if the user is considered still.
+     */
+    private final long pace;
+
+    /**
+     * Duration of the recorded session when the snapshot has been taken, 0
+     * if no session is recorded.
+     */
+    private final long duration;
+
+    /**
+     * Horizontal accuracy of the last location in meters, giving the GPS
+     * status.
+     */
+    private final float accuracy;
+
+    /**
+     * LiveMetrics constructor.
+     *
+     * @param sequence     Sequence number of the snapshot
+     * @param coordinates  Coordinates accepted, in chronological order
+     * @param batch        true if the locations have been delivered by
+     *                     batch, false otherwise
+     * @param distance     Distance travelled since the previous snapshot in
+     *                     meters
+     * @param lastDistance Distance from the previous location to the last
+     *                     coordinate in meters
+     * @param measured     true if the distance, the speed and the pace have
+     *                     been calculated, false otherwise
+     * @param speed        Speed in km/h
+     * @param pace         Pace in milliseconds per kilometer
+     * @param duration     Duration of the recorded session
+     * @param accuracy     Horizontal accuracy of the last location in meters
+     */
+    LiveMetrics(final long sequence, final List<Coordinate> coordinates,
+                final boolean batch, final float distance,
+                final float lastDistance, final boolean measured,
+                final float speed, final long pace, final long duration,
+                final float accuracy) {
+        this.sequence = sequence;
+        this.coordinates = coordinates;
+        this.batch = batch;
+        this.distance = distance;
+        this.lastDistance = lastDistance;
+        this.measured = measured;
+        this.speed = speed;
+        this.pace = pace;
+        this.duration = duration;
+        this.accuracy = accuracy;
+    }
+
+    /**
+     * Combine this snapshot, not delivered yet, with the given newer one, so
+     * that a conflated observer still receives every coordinate and the
+     * whole distance travelled. The other values, including the batch flag
+     * and the distance to the last coordinate, are the newer ones.
+     *
+     * @param next Newer snapshot
+     * @return Snapshot covering both snapshots
+     */
+    LiveMetrics merge(final LiveMetrics next) {
+        List<Coordinate> merged = new ArrayList<>(coordinates.size()
+                + next.coordinates.size());
+        merged.addAll(coordinates);
+        merged.addAll(next.coordinates);
+        return new LiveMetrics(next.sequence, merged, next.batch,
+                distance + next.distance, next.lastDistance,
+                measured || next.measured,
+                next.speed, next.pace, next.duration, next.accuracy);
+    }
+
+    /**
+     * @return Sequence number of the snapshot
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return Coordinates accepted, in chronological order, must not be
+     * modified
+     */
+    public List<Coordinate> getCoordinates() {
+        return coordinates;
+    }
+
+    /**
+     * @return Last coordinate accepted
+     */
+    public Coordinate getCoordinate() {
+        return coordinates.get(coordinates.size() - 1);
+    }
+
+    /**
+     * @return true if the locations have been delivered by batch, false
+     * if the snapshot has been computed for a single location
+     */
+    public boolean isBatch() {
+        return batch;
+    }
+
+    /**
+     * @return Distance travelled since the previous snapshot in meters
+     */
+    public float getDistance() {
+        return distance;
+    }
+
+    /**
+     * @return Distance from the previous location to the last coordinate in
+     * meters
+     */
+    public float getLastDistance() {
+        return lastDistance;
+    }
+
+    /**
+     * @return true if the distance, the speed and the pace have been
+     * calculated, false otherwise
+     */
+    public boolean isMeasured() {
+        return measured;
+    }
+
+    /**
+     * @return Speed in km/h, 0 if the user is considered still
+     */
+    public float getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @return Pace in milliseconds per kilometer, 0 if the user is
+     * considered still
+     */
+    public long getPace() {
+        return pace;
+    }
+
+    /**
+     * @return Duration of the recorded session when the snapshot has been
+     * taken, 0 if no session is recorded
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return Horizontal accuracy of the last location in meters
+     */
+    public float getAccuracy() {
+        return accuracy;
+    }
+}
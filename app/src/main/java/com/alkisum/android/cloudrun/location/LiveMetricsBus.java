@@ -0,0 +1,178 @@
+package com.alkisum.android.cloudrun.location;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Observer registry publishing the {@link LiveMetrics} snapshots. An
+ * observer registered without executor is called on the publishing thread
+ * and receives every snapshot. An observer registered with an executor,
+ * usually the post method of a Handler, is called through the executor and
+ * is conflated: if it has not consumed the previous snapshot yet, the new
+ * snapshot is merged into the pending one, which then holds the coordinates
+ * and the distance of both and the latest values.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class LiveMetricsBus {
+
+    /**
+     * Default instance, used for the live locations.
+     */
+    private static final LiveMetricsBus DEFAULT = new LiveMetricsBus();
+
+    /**
+     * Registered observers.
+     */
+    private final List<Subscription> subscriptions =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * @return Default instance, used for the live locations
+     */
+    public static LiveMetricsBus getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Register the given observer, called on the publishing thread for each
+     * snapshot.
+     *
+     * @param observer Observer to register
+     */
+    public void register(final Observer observer) {
+        register(observer, null);
+    }
+
+    /**
+     * Register the given observer, called through the given executor with
+     * the snapshots published since its last call merged into one.
+     *
+     * @param observer Observer to register
+     * @param executor Executor the observer is called with, for example
+     *                 {@code handler::post}, null to call the observer on
+     *                 the publishing thread
+     */
+    public void register(final Observer observer, final Executor executor) {
+        subscriptions.add(new Subscription(observer, executor));
+    }
+
+    /**
+     * Unregister the given observer. A pending snapshot is not delivered,
+     * even if the delivery has already been handed to the executor.
+     *
+     * @param observer Observer to unregister
+     */
+    public void unregister(final Observer observer) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.observer == observer) {
+                subscription.active = false;
+                subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    /**
+     * Publish the given snapshot to the registered observers.
+     *
+     * @param metrics Snapshot to publish
+     */
+    void publish(final LiveMetrics metrics) {
+        for (Subscription subscription : subscriptions) {
+            subscription.deliver(metrics);
+        }
+    }
+
+    /**
+     * Registration of an observer.
+     */
+    private static final class Subscription implements Runnable {
+
+        /**
+         * Registered observer.
+         */
+        private final Observer observer;
+
+        /**
+         * Executor the observer is called with, null to call the observer on
+         * the publishing thread.
+         */
+        private final Executor executor;
+
+        /**
+         * Snapshot waiting to be delivered through the executor, null if none.
+         */
+        private final AtomicReference<LiveMetrics> pending =
+                new AtomicReference<>();
+
+        /**
+         * Flag set to false when the observer is unregistered.
+         */
+        private volatile boolean active = true;
+
+        /**
+         * Subscription constructor.
+         *
+         * @param observer Registered observer
+         * @param executor Executor the observer is called with, null to call
+         *                 the observer on the publishing thread
+         */
+        private Subscription(final Observer observer,
+                             final Executor executor) {
+            this.observer = observer;
+            this.executor = executor;
+        }
+
+        /**
+         * Deliver the given snapshot to the observer, directly or through
+         * the executor. Only one delivery is pending at a time, the snapshots
+         * published meanwhile are merged into the pending one.
+         *
+         * @param metrics Snapshot to deliver
+         */
+        private void deliver(final LiveMetrics metrics) {
+            if (executor == null) {
+                observer.onLiveMetrics(metrics);
+                return;
+            }
+            LiveMetrics previous;
+            LiveMetrics merged;
+            do {
+                previous = pending.get();
+                if (previous == null) {
+                    merged = metrics;
+                } else {
+                    merged = previous.merge(metrics);
+                }
+            } while (!pending.compareAndSet(previous, merged));
+            if (previous == null) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            LiveMetrics metrics = pending.getAndSet(null);
+            if (metrics != null && active) {
+                observer.onLiveMetrics(metrics);
+            }
+        }
+    }
+
+    /**
+     * Observer of the live metrics.
+     */
+    public interface Observer {
+
+        /**
+         * Called when a new snapshot is published.
+         *
+         * @param metrics Live metrics snapshot
+         */
+        void onLiveMetrics(LiveMetrics metrics);
+    }
+}
@@ -0,0 +1,27 @@
+package com.alkisum.android.cloudrun.location;
+
+/**
+ * Interface for the stages filtering the locations received from the fused
+ * location provider before they are used to calculate the distance, the
+ * speed and the pace.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public interface LocationFilter {
+
+    /**
+     * Filter the given location.
+     *
+     * @param coordinate Location to filter
+     * @param accuracy   Horizontal accuracy of the location in meters
+     * @return Filtered location, or null if the location must be discarded
+     */
+    Coordinate filter(Coordinate coordinate, float accuracy);
+
+    /**
+     * Forget the locations previously filtered.
+     */
+    void reset();
+}
@@ -0,0 +1,117 @@
+package com.alkisum.android.cloudrun.location;
+
+/**
+ * Class creating the location filter selected in the settings. The filter
+ * is made of a chain of stages, each stage receiving the locations accepted
+ * by the previous one.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class LocationFilters {
+
+    /**
+     * Preference value for no filter.
+     */
+    public static final String NONE = "none";
+
+    /**
+     * Preference value for the outlier rejection.
+     */
+    public static final String OUTLIER = "outlier";
+
+    /**
+     * Preference value for the Kalman filter.
+     */
+    public static final String KALMAN = "kalman";
+
+    /**
+     * Preference value for the stationary dead-band.
+     */
+    public static final String STATIONARY = "stationary";
+
+    /**
+     * Preference value for the outlier rejection, followed by the Kalman
+     * filter and the stationary dead-band.
+     */
+    public static final String ALL = "all";
+
+    /**
+     * Default preference value.
+     */
+    public static final String DEFAULT = NONE;
+
+    /**
+     * LocationFilters constructor.
+     */
+    private LocationFilters() {
+
+    }
+
+    /**
+     * Create the filter matching the given preference value.
+     *
+     * @param value Preference value
+     * @return Location filter
+     */
+    public static LocationFilter create(final String value) {
+        if (value == null) {
+            return new Chain();
+        }
+        switch (value) {
+            case OUTLIER:
+                return new Chain(new OutlierFilter());
+            case KALMAN:
+                return new Chain(new KalmanFilter());
+            case STATIONARY:
+                return new Chain(new StationaryFilter());
+            case ALL:
+                return new Chain(new OutlierFilter(), new KalmanFilter(),
+                        new StationaryFilter());
+            default:
+                return new Chain();
+        }
+    }
+
+    /**
+     * Filter applying the given stages in order. A location discarded by a
+     * stage is not given to the following ones.
+     */
+    private static final class Chain implements LocationFilter {
+
+        /**
+         * Stages of the chain.
+         */
+        private final LocationFilter[] stages;
+
+        /**
+         * Chain constructor.
+         *
+         * @param stages Stages of the chain
+         */
+        private Chain(final LocationFilter... stages) {
+            this.stages = stages;
+        }
+
+        @Override
+        public Coordinate filter(final Coordinate coordinate,
+                                 final float accuracy) {
+            Coordinate filtered = coordinate;
+            for (LocationFilter stage : stages) {
+                filtered = stage.filter(filtered, accuracy);
+                if (filtered == null) {
+                    return null;
+                }
+            }
+            return filtered;
+        }
+
+        @Override
+        public void reset() {
+            for (LocationFilter stage : stages) {
+                stage.reset();
+            }
+        }
+    }
+}
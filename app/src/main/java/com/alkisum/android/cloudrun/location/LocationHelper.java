@@ -2,28 +2,31 @@ package com.alkisum.android.cloudrun.location;
 
 import android.Manifest;
 import android.app.Activity;
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.IntentSender;
 import android.content.ServiceConnection;
+import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.location.Location;
+import android.os.Build;
 import android.os.IBinder;
-import android.os.Looper;
+import android.os.PowerManager;
 import android.preference.PreferenceManager;
 import android.provider.Settings;
 import android.util.Log;
 
 import com.alkisum.android.cloudrun.R;
 import com.alkisum.android.cloudrun.dialogs.ErrorDialog;
-import com.alkisum.android.cloudrun.events.CoordinateEvent;
-import com.alkisum.android.cloudrun.events.DistanceEvent;
+import com.alkisum.android.cloudrun.events.MapVisibilityEvent;
 import com.alkisum.android.cloudrun.events.MarkerAlertEvent;
-import com.alkisum.android.cloudrun.events.PaceEvent;
-import com.alkisum.android.cloudrun.events.SpeedEvent;
-import com.alkisum.android.cloudrun.model.Marker;
-import com.alkisum.android.cloudrun.utils.Markers;
+import com.alkisum.android.cloudrun.events.SessionActionEvent;
+import com.alkisum.android.cloudrun.tasks.RecorderState;
+import com.alkisum.android.cloudrun.tasks.SessionRecorder;
+import com.alkisum.android.cloudrun.utils.ActiveMarkerCache;
 import com.alkisum.android.cloudrun.utils.Pref;
 import com.google.android.gms.common.api.ApiException;
 import com.google.android.gms.common.api.ResolvableApiException;
@@ -38,24 +41,28 @@ import com.google.android.gms.location.LocationSettingsStatusCodes;
 import com.google.android.gms.tasks.Task;
 
 import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
 
 import java.lang.ref.WeakReference;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
 
 import androidx.core.app.ActivityCompat;
 
 /**
- * Helper class for location operations.
+ * Helper class for location operations. The location updates are received
+ * on the thread of {@link LocationUpdatesService} and processed by
+ * {@link LocationProcessor}, the live metrics are therefore published from
+ * that thread. The location request follows the {@link LocationProfile}
+ * matching the recorder state, the speed and the visibility of the screen
+ * and of the map, each profile change is logged.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 3.1
  */
-public class LocationHelper {
+public class LocationHelper implements
+        SharedPreferences.OnSharedPreferenceChangeListener {
 
     /**
      * Log tag.
@@ -73,28 +80,22 @@ public class LocationHelper {
     public static final int REQUEST_LOCATION_MANUAL = 359;
 
     /**
-     * Location update interval.
+     * Location update interval when the screen is on.
      */
     public static final long LOCATION_REQUEST_INTERVAL = 2000;
 
-    /**
-     * Location update fastest interval in case another application request
-     * a location update with a faster interval.
-     */
-    private static final long LOCATION_REQUEST_FASTEST_INTERVAL =
-            LOCATION_REQUEST_INTERVAL / 2;
-
-    /**
-     * The accuracy of the location provided by the GPS must under n meters.
-     */
-    private static final int LOCATION_ACCURACY = 30;
-
     /**
      * Number of distance values stored in the queue. The higher the value,
      * the smoother the speed or pace calculated.
      */
     public static final int DISTANCE_CNT_DEFAULT = 10;
 
+    /**
+     * Location profile last selected, readable from any thread.
+     */
+    private static volatile LocationProfile currentProfile =
+            LocationProfile.STANDBY;
+
     /**
      * Activity instance wrapped into WeakReference object to avoid the activity
      * to be leaked with {@link LocationCallback}.
@@ -123,20 +124,15 @@ public class LocationHelper {
     private boolean bound = false;
 
     /**
-     * Queue storing the last distance values with the time passed to travel
-     * each distance.
-     */
-    private final Queue<DistanceWrapper> distanceQueue = new LinkedList<>();
-
-    /**
-     * Last location received.
+     * Flag set to true when the location updates have been requested, false
+     * otherwise. The updates are started once the service is bound.
      */
-    private Coordinate lastCoordinate;
+    private boolean locationUpdatesRequested = false;
 
     /**
-     * Time of the last location received.
+     * Processor of the received locations.
      */
-    private long lastLocationMillis;
+    private final LocationProcessor locationProcessor;
 
     /**
      * Flag set to true if the location updates service is running in
@@ -150,9 +146,29 @@ public class LocationHelper {
     private final MarkerNotifier markerNotifier;
 
     /**
-     * Set of markers for which the user has already been notified.
+     * Location profile currently used.
+     */
+    private LocationProfile locationProfile;
+
+    /**
+     * Number of location profile changes since the helper was created.
+     */
+    private int profileChanges;
+
+    /**
+     * Recorder state, see {@link RecorderState}.
+     */
+    private int recorderState = RecorderState.IDLE;
+
+    /**
+     * Flag set to true if the screen is on, false otherwise.
      */
-    private final Set<Marker> notifiedMarkers = new HashSet<>();
+    private boolean screenOn;
+
+    /**
+     * Flag set to true if the map is visible, false otherwise.
+     */
+    private boolean mapVisible;
 
     /**
      * LocationHelper constructor.
@@ -161,7 +177,23 @@ public class LocationHelper {
      */
     public LocationHelper(final Activity activity) {
         this.activity = new WeakReference<>(activity);
+        SharedPreferences sharedPref = PreferenceManager
+                .getDefaultSharedPreferences(activity);
+        locationProcessor = new LocationProcessor(EventBus.getDefault(),
+                LiveMetricsBus.getDefault(), ActiveMarkerCache.getInstance(),
+                () -> SessionRecorder.getCurrentState().getDuration(
+                        System.currentTimeMillis()),
+                LocationFilters.create(sharedPref.getString(
+                        Pref.LOCATION_FILTER, LocationFilters.DEFAULT)),
+                sharedPref.getInt(Pref.DISTANCE_CNT, DISTANCE_CNT_DEFAULT));
+        sharedPref.registerOnSharedPreferenceChangeListener(this);
         markerNotifier = new MarkerNotifier(activity);
+        screenOn = isScreenOn(activity);
+        IntentFilter screenFilter = new IntentFilter();
+        screenFilter.addAction(Intent.ACTION_SCREEN_ON);
+        screenFilter.addAction(Intent.ACTION_SCREEN_OFF);
+        activity.registerReceiver(screenReceiver, screenFilter);
+        EventBus.getDefault().register(this);
         createLocationRequest();
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(
                 activity);
@@ -194,7 +226,11 @@ public class LocationHelper {
      */
     public final void onDestroy() {
         removeLocationUpdates();
-        markerNotifier.onDestroy();
+        EventBus.getDefault().unregister(this);
+        activity.get().unregisterReceiver(screenReceiver);
+        Log.i(TAG, "Location profile changes: " + profileChanges);
+        PreferenceManager.getDefaultSharedPreferences(activity.get())
+                .unregisterOnSharedPreferenceChangeListener(this);
         if (bound) {
             service.stopSelf();
             activity.get().unbindService(serviceConnection);
@@ -262,14 +298,56 @@ public class LocationHelper {
     /**
      * Create location request.
      */
-    private void createLocationRequest() {
-        locationRequest = new LocationRequest();
-        locationRequest.setInterval(LOCATION_REQUEST_INTERVAL);
-        locationRequest.setFastestInterval(LOCATION_REQUEST_FASTEST_INTERVAL);
-        locationRequest.setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY);
+    private synchronized void createLocationRequest() {
+        locationProfile = LocationProfile.select(null, recorderState,
+                locationProcessor.getSpeed(), screenOn, mapVisible);
+        currentProfile = locationProfile;
+        Log.i(TAG, "Location profile: " + locationProfile);
+        locationRequest = locationProfile.createLocationRequest();
         buildLocationSettingsRequest();
     }
 
+    /**
+     * Select the location profile matching the current conditions and
+     * request the location updates again if it has changed. Can be called
+     * from any thread.
+     */
+    private synchronized void updateLocationProfile() {
+        LocationProfile profile = LocationProfile.select(locationProfile,
+                recorderState, locationProcessor.getSpeed(), screenOn,
+                mapVisible);
+        if (profile == locationProfile) {
+            return;
+        }
+        locationProfile = profile;
+        currentProfile = profile;
+        profileChanges++;
+        Log.i(TAG, "Location profile: " + profile);
+        locationRequest = profile.createLocationRequest();
+        if (locationUpdatesRequested && bound) {
+            startLocationUpdates();
+        }
+    }
+
+    /**
+     * Check whether the screen is on.
+     *
+     * @param context Context
+     * @return true if the screen is on, false otherwise
+     */
+    @SuppressWarnings("deprecation")
+    private static boolean isScreenOn(final Context context) {
+        PowerManager powerManager = (PowerManager) context.getSystemService(
+                Context.POWER_SERVICE);
+        if (powerManager == null) {
+            return true;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT_WATCH) {
+            return powerManager.isInteractive();
+        }
+        return powerManager.isScreenOn();
+    }
+
     /**
      * Request location updates and start {@link LocationUpdatesService}.
      */
@@ -285,9 +363,20 @@ public class LocationHelper {
         activity.get().startService(new Intent(
                 activity.get().getApplicationContext(),
                 LocationUpdatesService.class));
+        locationUpdatesRequested = true;
+        if (bound) {
+            startLocationUpdates();
+        }
+    }
+
+    /**
+     * Start location updates on the thread of the bound service. Replace the
+     * previous request if the updates are already started.
+     */
+    private synchronized void startLocationUpdates() {
         try {
             fusedLocationClient.requestLocationUpdates(locationRequest,
-                    locationCallback, Looper.myLooper());
+                    locationCallback, service.getServiceLooper());
         } catch (SecurityException e) {
             Log.e(TAG, e.getMessage());
         }
@@ -317,6 +406,9 @@ public class LocationHelper {
                             (LocationUpdatesService.LocalBinder) iBinder;
                     LocationHelper.this.service = binder.getService();
                     bound = true;
+                    if (locationUpdatesRequested) {
+                        startLocationUpdates();
+                    }
                 }
 
                 @Override
@@ -343,128 +435,103 @@ public class LocationHelper {
     }
 
     /**
-     * Callback for changes in location.
+     * Callback for changes in location. The locations delivered by batch are
+     * processed together.
      */
     private final LocationCallback locationCallback = new LocationCallback() {
         @Override
         public void onLocationResult(final LocationResult locationResult) {
             super.onLocationResult(locationResult);
-            for (Location location : locationResult.getLocations()) {
-                saveLocation(location);
+            List<Location> locations = locationResult.getLocations();
+            List<Coordinate> coordinates = new ArrayList<>(locations.size());
+            float[] accuracies = new float[locations.size()];
+            for (int i = 0; i < locations.size(); i++) {
+                Location location = locations.get(i);
+                coordinates.add(new Coordinate(location.getTime(),
+                        location.getLatitude(), location.getLongitude(),
+                        location.getAltitude()));
+                accuracies[i] = location.getAccuracy();
             }
+            if (!coordinates.isEmpty()) {
+                locationProcessor.process(coordinates, accuracies);
+            }
+            updateLocationProfile();
         }
     };
 
     /**
-     * Calculate and save location data if the accuracy is high enough.
-     *
-     * @param location Location to save
+     * BroadcastReceiver for the screen state.
      */
-    private void saveLocation(final Location location) {
-        if (location.getAccuracy() < LOCATION_ACCURACY) {
-
-            long locationMillis = location.getTime();
-
-            // Coordinate
-            Coordinate coordinate = new Coordinate(location.getTime(),
-                    location.getLatitude(), location.getLongitude(),
-                    location.getAltitude());
-            EventBus.getDefault().post(new CoordinateEvent(coordinate));
-            handleMarkers(coordinate);
-
-            if (lastCoordinate != null) {
-
-                // Distance
-                float distance = coordinate.distanceTo(lastCoordinate);
-                EventBus.getDefault().post(new DistanceEvent(distance));
-
-                // Add distance and time to the queue
-                long time = locationMillis - lastLocationMillis;
-                distanceQueue.add(new DistanceWrapper(distance, time));
-                while (distanceQueue.size() > getDistanceCnt()) {
-                    distanceQueue.poll();
-                }
-
-                // Speed and pace
-                float speed = calculateSpeed();
-                long pace = calculatePace();
-                if (speed > 1) {
-                    EventBus.getDefault().post(new SpeedEvent(speed));
-                    EventBus.getDefault().post(new PaceEvent(pace));
-                } else {
-                    EventBus.getDefault().post(new SpeedEvent(0));
-                    EventBus.getDefault().post(new PaceEvent(0));
-                }
+    private final BroadcastReceiver screenReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(final Context context, final Intent intent) {
+            synchronized (LocationHelper.this) {
+                screenOn = Intent.ACTION_SCREEN_ON.equals(intent.getAction());
+                updateLocationProfile();
             }
-            lastCoordinate = coordinate;
-            lastLocationMillis = locationMillis;
         }
-    }
+    };
 
     /**
-     * Get surrounding markers from the given coordinate and notify the user
-     * only once.
+     * Called when a session action has been performed.
      *
-     * @param coordinate Current location
-     */
-    private void handleMarkers(final Coordinate coordinate) {
-        // get active markers
-        List<Marker> activeMarkers = Markers.getActiveMarkers(activity.get());
-
-        // get surrounding markers
-        List<Marker> surroundingMarkers = Markers.getSurroundingMarkers(
-                activity.get().getApplicationContext(), coordinate);
-
-        for (Marker activeMarker : activeMarkers) {
-            if (surroundingMarkers.contains(activeMarker)
-                    && !notifiedMarkers.contains(activeMarker)) {
-                // first time being close to the marker
-                notifiedMarkers.add(activeMarker);
-                EventBus.getDefault().post(
-                        new MarkerAlertEvent(surroundingMarkers));
-            } else if (!surroundingMarkers.contains(activeMarker)) {
-                // not close to the marker anymore
-                notifiedMarkers.remove(activeMarker);
-            }
+     * @param event Session action event
+     */
+    @Subscribe
+    public final synchronized void onSessionActionEvent(
+            final SessionActionEvent event) {
+        switch (event.getAction()) {
+            case SessionActionEvent.START:
+            case SessionActionEvent.RESUME:
+                recorderState = RecorderState.RUNNING;
+                break;
+            case SessionActionEvent.PAUSE:
+                recorderState = RecorderState.PAUSED;
+                break;
+            case SessionActionEvent.STOP:
+                recorderState = RecorderState.IDLE;
+                break;
+            default:
+                return;
         }
+        updateLocationProfile();
     }
 
     /**
-     * @return Distance count from the SharedPreferences
+     * Called when the map is shown or hidden.
+     *
+     * @param event Map visibility event
      */
-    private int getDistanceCnt() {
-        return PreferenceManager.getDefaultSharedPreferences(activity.get())
-                .getInt(Pref.DISTANCE_CNT, DISTANCE_CNT_DEFAULT);
+    @Subscribe
+    public final synchronized void onMapVisibilityEvent(
+            final MapVisibilityEvent event) {
+        mapVisible = event.isVisible();
+        updateLocationProfile();
     }
 
     /**
-     * Calculate the speed from the distance stored in the queue.
+     * Triggered when a surrounding marker has been detected. The subscriber
+     * is declared here rather than in the package-private
+     * {@link MarkerNotifier} so that it is part of the EventBus index.
      *
-     * @return Speed in km/h
-     */
-    private float calculateSpeed() {
-        float totalDistance = 0;
-        long totalTime = 0;
-        for (DistanceWrapper distanceWrapper : distanceQueue) {
-            totalDistance += distanceWrapper.getDistance();
-            totalTime += distanceWrapper.getTime();
-        }
-        return (totalDistance / 1000f) / (totalTime / 3600000f);
+     * @param event Marker alert event
+     */
+    @Subscribe
+    public final void onMarkerAlertEvent(final MarkerAlertEvent event) {
+        markerNotifier.notifyMarkers(event.getMarkers());
     }
 
-    /**
-     * Calculate the pace from the distance stored in the queue.
-     *
-     * @return Pace in milliseconds
-     */
-    private long calculatePace() {
-        float totalDistance = 0;
-        long totalTime = 0;
-        for (DistanceWrapper distanceWrapper : distanceQueue) {
-            totalDistance += distanceWrapper.getDistance();
-            totalTime += distanceWrapper.getTime();
+    @Override
+    public final void onSharedPreferenceChanged(
+            final SharedPreferences sharedPreferences, final String key) {
+        if (Pref.DISTANCE_CNT.equals(key)) {
+            locationProcessor.setDistanceCnt(sharedPreferences.getInt(
+                    Pref.DISTANCE_CNT, DISTANCE_CNT_DEFAULT));
+        } else if (Pref.LOCATION_FILTER.equals(key)) {
+            locationProcessor.setLocationFilter(LocationFilters.create(
+                    sharedPreferences.getString(Pref.LOCATION_FILTER,
+                            LocationFilters.DEFAULT)));
         }
-        return Math.round(totalTime / (totalDistance / 1000f));
     }
 
     /**
@@ -476,44 +543,24 @@ public class LocationHelper {
     }
 
     /**
-     * Class to wrap a distance with the time passed to travel this distance.
+     * @return Location profile currently used
      */
-    private class DistanceWrapper {
-
-        /**
-         * Distance travelled.
-         */
-        private final float distance;
-
-        /**
-         * Time passed to travel the distance.
-         */
-        private final long time;
-
-        /**
-         * DistanceWrapper constructor.
-         *
-         * @param distance Distance travelled
-         * @param time     Time passed to travel the distance
-         */
-        DistanceWrapper(final float distance, final long time) {
-            this.distance = distance;
-            this.time = time;
-        }
-
-        /**
-         * @return Distance travelled
-         */
-        final float getDistance() {
-            return distance;
-        }
+    public final synchronized LocationProfile getLocationProfile() {
+        return locationProfile;
+    }
 
-        /**
-         * @return Time passed to travel the distance
-         */
-        final long getTime() {
-            return time;
-        }
+    /**
+     * @return Location profile last selected, can be called from any thread
+     */
+    public static LocationProfile getCurrentProfile() {
+        return currentProfile;
     }
 
+    /**
+     * @return Number of location profile changes since the helper was
+     * created
+     */
+    public final synchronized int getProfileChanges() {
+        return profileChanges;
+    }
 }
@@ -0,0 +1,342 @@
+package com.alkisum.android.cloudrun.location;
+
+import com.alkisum.android.cloudrun.events.MarkerAlertEvent;
+import com.alkisum.android.cloudrun.model.Marker;
+
+import org.greenrobot.eventbus.EventBus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class processing the locations: accuracy check, location filter, distance,
+ * speed, pace and marker alerts. The results of each location are published
+ * as a single {@link LiveMetrics} snapshot on the given
+ * {@link LiveMetricsBus}, and the marker alerts are posted on the given
+ * EventBus, from the thread calling {@link #process}. A batch of locations
+ * is processed in one pass and summarized into a single snapshot.
+ *
+ * The processing does not depend on the location provider, the markers and
+ * the session duration are read through the given {@link MarkerSource} and
+ * {@link DurationSource}. It is used by {@link LocationHelper} for the live
+ * locations and by {@link TraceReplayer} for the recorded traces.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class LocationProcessor {
+
+    /**
+     * The accuracy of the location provided by the GPS must under n meters.
+     */
+    public static final int LOCATION_ACCURACY = 30;
+
+    /**
+     * EventBus the marker alerts are posted on.
+     */
+    private final EventBus eventBus;
+
+    /**
+     * Bus the live metrics are published on.
+     */
+    private final LiveMetricsBus metricsBus;
+
+    /**
+     * Source of the markers to alert the user about.
+     */
+    private final MarkerSource markerSource;
+
+    /**
+     * Source of the duration of the recorded session.
+     */
+    private final DurationSource durationSource;
+
+    /**
+     * Sequence number of the last snapshot published.
+     */
+    private long sequence;
+
+    /**
+     * Filter applied to the locations before they are used.
+     */
+    private volatile LocationFilter locationFilter;
+
+    /**
+     * Number of distance values used to calculate the speed and the pace.
+     */
+    private volatile int distanceCnt;
+
+    /**
+     * Window storing the last distance values with the time passed to travel
+     * each distance.
+     */
+    private final RollingWindow distanceWindow;
+
+    /**
+     * Last location accepted.
+     */
+    private Coordinate lastCoordinate;
+
+    /**
+     * Last speed calculated in km/h.
+     */
+    private volatile float speed;
+
+    /**
+     * Set of markers for which the user has already been notified.
+     */
+    private final Set<Marker> notifiedMarkers = new HashSet<>();
+
+    /**
+     * List receiving the markers surrounding the current location, reused
+     * for each location.
+     */
+    private final List<Marker> surroundingMarkers = new ArrayList<>();
+
+    /**
+     * LocationProcessor constructor.
+     *
+     * @param eventBus       EventBus the marker alerts are posted on
+     * @param metricsBus     Bus the live metrics are published on
+     * @param markerSource   Source of the markers to alert the user about
+     * @param durationSource Source of the duration of the recorded session
+     * @param locationFilter Filter applied to the locations
+     * @param distanceCnt    Number of distance values used to calculate the
+     *                       speed and the pace
+     */
+    public LocationProcessor(final EventBus eventBus,
+                             final LiveMetricsBus metricsBus,
+                             final MarkerSource markerSource,
+                             final DurationSource durationSource,
+                             final LocationFilter locationFilter,
+                             final int distanceCnt) {
+        this.eventBus = eventBus;
+        this.metricsBus = metricsBus;
+        this.markerSource = markerSource;
+        this.durationSource = durationSource;
+        this.locationFilter = locationFilter;
+        this.distanceCnt = distanceCnt;
+        distanceWindow = new RollingWindow(distanceCnt);
+    }
+
+    /**
+     * Replace the location filter. Can be called from any thread.
+     *
+     * @param locationFilter Filter applied to the locations
+     */
+    public void setLocationFilter(final LocationFilter locationFilter) {
+        this.locationFilter = locationFilter;
+    }
+
+    /**
+     * Change the number of distance values used to calculate the speed and
+     * the pace. Can be called from any thread.
+     *
+     * @param distanceCnt Number of distance values
+     */
+    public void setDistanceCnt(final int distanceCnt) {
+        this.distanceCnt = distanceCnt;
+    }
+
+    /**
+     * @return Last speed calculated in km/h, can be called from any thread
+     */
+    public float getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Process the given location if the accuracy is high enough and the
+     * location is accepted by the location filter.
+     *
+     * @param location Location to process
+     * @param accuracy Horizontal accuracy of the location in meters
+     * @return true if the location has been accepted, false otherwise
+     */
+    public boolean process(final Coordinate location, final float accuracy) {
+        Coordinate coordinate = accept(location, accuracy);
+        if (coordinate == null) {
+            return false;
+        }
+        handleMarkers(coordinate);
+
+        float distance = 0;
+        boolean measured = false;
+        if (lastCoordinate != null) {
+            distance = addDistance(coordinate);
+            measured = true;
+        }
+        lastCoordinate = coordinate;
+        publish(Collections.singletonList(coordinate), false, distance,
+                distance, measured, accuracy);
+        return true;
+    }
+
+    /**
+     * Process the given batch of locations in one pass. The accepted
+     * locations are published in a single snapshot with the distance
+     * travelled and the speed and pace at the end of the batch.
+     *
+     * @param locations  Locations to process, in chronological order
+     * @param accuracies Horizontal accuracy of each location in meters
+     * @return Number of locations accepted
+     */
+    public int process(final List<Coordinate> locations,
+                       final float[] accuracies) {
+        if (locations.size() == 1) {
+            if (process(locations.get(0), accuracies[0])) {
+                return 1;
+            }
+            return 0;
+        }
+        List<Coordinate> coordinates = new ArrayList<>(locations.size());
+        float distance = 0;
+        float lastDistance = 0;
+        boolean measured = false;
+        float accuracy = 0;
+        for (int i = 0; i < locations.size(); i++) {
+            Coordinate coordinate = accept(locations.get(i), accuracies[i]);
+            if (coordinate == null) {
+                continue;
+            }
+            coordinates.add(coordinate);
+            accuracy = accuracies[i];
+            handleMarkers(coordinate);
+            if (lastCoordinate != null) {
+                lastDistance = addDistance(coordinate);
+                distance += lastDistance;
+                measured = true;
+            }
+            lastCoordinate = coordinate;
+        }
+        if (coordinates.isEmpty()) {
+            return 0;
+        }
+        publish(coordinates, true, distance, lastDistance, measured,
+                accuracy);
+        return coordinates.size();
+    }
+
+    /**
+     * Publish the snapshot of the given accepted coordinates with the
+     * current speed and pace, and the duration of the recorded session.
+     *
+     * @param coordinates  Coordinates accepted
+     * @param batch        true if the locations have been delivered by
+     *                     batch, false otherwise
+     * @param distance     Distance travelled in meters
+     * @param lastDistance Distance from the previous location to the last
+     *                     coordinate in meters
+     * @param measured     true if the distance has been calculated, false
+     *                     otherwise
+     * @param accuracy     Horizontal accuracy of the last location in meters
+     */
+    private void publish(final List<Coordinate> coordinates,
+                         final boolean batch, final float distance,
+                         final float lastDistance, final boolean measured,
+                         final float accuracy) {
+        float currentSpeed = 0;
+        long pace = 0;
+        if (measured && speed > 1) {
+            currentSpeed = speed;
+            pace = distanceWindow.getPace();
+        }
+        metricsBus.publish(new LiveMetrics(++sequence, coordinates, batch,
+                distance, lastDistance, measured, currentSpeed, pace,
+                durationSource.getDuration(), accuracy));
+    }
+
+    /**
+     * Check the accuracy of the given location and apply the location
+     * filter.
+     *
+     * @param location Location to check
+     * @param accuracy Horizontal accuracy of the location in meters
+     * @return Filtered location, null if the location is discarded
+     */
+    private Coordinate accept(final Coordinate location,
+                              final float accuracy) {
+        if (accuracy >= LOCATION_ACCURACY) {
+            return null;
+        }
+        return locationFilter.filter(location, accuracy);
+    }
+
+    /**
+     * Add the distance and the time from the last location to the given
+     * coordinate to the window, and update the speed.
+     *
+     * @param coordinate New location
+     * @return Distance from the last location in meters
+     */
+    private float addDistance(final Coordinate coordinate) {
+        float distance = coordinate.distanceTo(lastCoordinate);
+        long time = coordinate.getTime() - lastCoordinate.getTime();
+        distanceWindow.resize(distanceCnt);
+        distanceWindow.add(distance, time);
+        speed = distanceWindow.getSpeed();
+        return distance;
+    }
+
+    /**
+     * Get surrounding markers from the given coordinate and notify the user
+     * only once.
+     *
+     * @param coordinate Current location
+     */
+    private void handleMarkers(final Coordinate coordinate) {
+        MarkerIndex index = markerSource.getMarkerIndex();
+        if (index.size() == 0 && notifiedMarkers.isEmpty()) {
+            return;
+        }
+
+        // get surrounding markers
+        index.getMarkersWithin(coordinate.getLatitude(),
+                coordinate.getLongitude(), markerSource.getDistanceToMarker(),
+                surroundingMarkers);
+
+        for (Marker surroundingMarker : surroundingMarkers) {
+            if (notifiedMarkers.add(surroundingMarker)) {
+                // first time being close to the marker
+                eventBus.post(new MarkerAlertEvent(
+                        new ArrayList<>(surroundingMarkers)));
+            }
+        }
+
+        // not close to the other markers anymore
+        notifiedMarkers.retainAll(surroundingMarkers);
+    }
+
+    /**
+     * Source of the markers to alert the user about.
+     */
+    public interface MarkerSource {
+
+        /**
+         * @return Spatial index of the markers
+         */
+        MarkerIndex getMarkerIndex();
+
+        /**
+         * @return Distance in meters a marker must be within to trigger a
+         * marker alert
+         */
+        int getDistanceToMarker();
+    }
+
+    /**
+     * Source of the duration of the recorded session.
+     */
+    public interface DurationSource {
+
+        /**
+         * @return Current duration of the recorded session, 0 if no session
+         * is recorded
+         */
+        long getDuration();
+    }
+}
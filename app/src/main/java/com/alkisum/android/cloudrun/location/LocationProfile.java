@@ -0,0 +1,257 @@
+package com.alkisum.android.cloudrun.location;
+
+import com.alkisum.android.cloudrun.tasks.RecorderState;
+import com.google.android.gms.location.LocationRequest;
+
+/**
+ * Class defining the parameters of the location requests. The profile is
+ * selected from the recorder state, the speed and the visibility of the
+ * screen and of the map: the locations are requested often and accurately
+ * only while they are recorded or shown, and are delivered by batch when the
+ * screen is off.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class LocationProfile {
+
+    /**
+     * Speed in km/h under which the user is considered still.
+     */
+    private static final float STILL_SPEED = 2;
+
+    /**
+     * Speed in km/h above which the user is considered moving again. The gap
+     * with {@link #STILL_SPEED} avoids switching profiles back and forth.
+     */
+    private static final float MOVING_SPEED = 4;
+
+    /**
+     * No session recorded or session on pause, screen on: accurate locations
+     * to show the GPS status and accuracy.
+     */
+    public static final LocationProfile STANDBY = new LocationProfile(
+            "standby", LocationHelper.LOCATION_REQUEST_INTERVAL,
+            LocationRequest.PRIORITY_HIGH_ACCURACY, 0, 0);
+
+    /**
+     * No session recorded, screen off: coarse locations delivered by batch.
+     */
+    public static final LocationProfile STANDBY_BACKGROUND =
+            new LocationProfile("standby_background", 10000,
+                    LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY, 10,
+                    60000);
+
+    /**
+     * Session on pause, screen off: accurate locations delivered
+     * immediately, so that the last location is still current when the
+     * session is resumed and the first distance measured after the pause
+     * does not start from a stale or coarse location.
+     */
+    public static final LocationProfile PAUSED_BACKGROUND =
+            new LocationProfile("paused_background",
+                    LocationHelper.LOCATION_REQUEST_INTERVAL,
+                    LocationRequest.PRIORITY_HIGH_ACCURACY, 0, 0);
+
+    /**
+     * Session running, screen on.
+     */
+    public static final LocationProfile RUNNING = new LocationProfile(
+            "running", LocationHelper.LOCATION_REQUEST_INTERVAL,
+            LocationRequest.PRIORITY_HIGH_ACCURACY, 0, 0);
+
+    /**
+     * Session running, map visible: frequent locations to draw the route
+     * smoothly.
+     */
+    public static final LocationProfile RUNNING_MAP = new LocationProfile(
+            "running_map", 1000, LocationRequest.PRIORITY_HIGH_ACCURACY, 0,
+            0);
+
+    /**
+     * Session running but the user is still, screen on.
+     */
+    public static final LocationProfile RUNNING_STILL = new LocationProfile(
+            "running_still", 3000, LocationRequest.PRIORITY_HIGH_ACCURACY, 0,
+            0);
+
+    /**
+     * Session running, screen off: accurate locations delivered by batch.
+     */
+    public static final LocationProfile RUNNING_BACKGROUND =
+            new LocationProfile("running_background",
+                    LocationHelper.LOCATION_REQUEST_INTERVAL,
+                    LocationRequest.PRIORITY_HIGH_ACCURACY, 0, 20000);
+
+    /**
+     * Session running but the user is still, screen off.
+     */
+    public static final LocationProfile RUNNING_STILL_BACKGROUND =
+            new LocationProfile("running_still_background", 5000,
+                    LocationRequest.PRIORITY_HIGH_ACCURACY, 0, 30000);
+
+    /**
+     * Profile name, used for the logs.
+     */
+    private final String name;
+
+    /**
+     * Location update interval in milliseconds.
+     */
+    private final long interval;
+
+    /**
+     * Location request priority.
+     */
+    private final int priority;
+
+    /**
+     * Smallest displacement in meters between two locations.
+     */
+    private final float smallestDisplacement;
+
+    /**
+     * Maximum wait time in milliseconds before the locations are delivered,
+     * 0 to deliver them immediately.
+     */
+    private final long maxWaitTime;
+
+    /**
+     * LocationProfile constructor.
+     *
+     * @param name                 Profile name
+     * @param interval             Location update interval in milliseconds
+     * @param priority             Location request priority
+     * @param smallestDisplacement Smallest displacement in meters
+     * @param maxWaitTime          Maximum wait time in milliseconds, 0 to
+     *                             deliver the locations immediately
+     */
+    private LocationProfile(final String name, final long interval,
+                            final int priority,
+                            final float smallestDisplacement,
+                            final long maxWaitTime) {
+        this.name = name;
+        this.interval = interval;
+        this.priority = priority;
+        this.smallestDisplacement = smallestDisplacement;
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    /**
+     * Select the profile matching the given conditions.
+     *
+     * @param current       Profile currently used, null if none
+     * @param recorderState Recorder state, see {@link RecorderState}
+     * @param speed         Last speed in km/h
+     * @param screenOn      true if the screen is on, false otherwise
+     * @param mapVisible    true if the map is visible, false otherwise
+     * @return Selected profile
+     */
+    public static LocationProfile select(final LocationProfile current,
+                                         final int recorderState,
+                                         final float speed,
+                                         final boolean screenOn,
+                                         final boolean mapVisible) {
+        if (recorderState != RecorderState.RUNNING) {
+            if (screenOn) {
+                return STANDBY;
+            }
+            if (recorderState == RecorderState.PAUSED) {
+                return PAUSED_BACKGROUND;
+            }
+            return STANDBY_BACKGROUND;
+        }
+        if (screenOn && mapVisible) {
+            return RUNNING_MAP;
+        }
+        boolean still;
+        if (current == RUNNING_STILL || current == RUNNING_STILL_BACKGROUND) {
+            still = speed < MOVING_SPEED;
+        } else {
+            still = speed < STILL_SPEED;
+        }
+        if (screenOn) {
+            if (still) {
+                return RUNNING_STILL;
+            }
+            return RUNNING;
+        }
+        if (still) {
+            return RUNNING_STILL_BACKGROUND;
+        }
+        return RUNNING_BACKGROUND;
+    }
+
+    /**
+     * Get the maximum time without location after which the GPS is not
+     * considered fixed anymore: twice the interval if the locations are
+     * delivered immediately, the maximum wait time plus the interval if they
+     * are delivered by batch. The locations skipped because of the smallest
+     * displacement are not taken into account, it is only set when the
+     * screen is off.
+     *
+     * @return Maximum time without location in milliseconds
+     */
+    public long getStatusTimeout() {
+        return Math.max(interval, maxWaitTime) + interval;
+    }
+
+    /**
+     * @return Location request built from the profile
+     */
+    public LocationRequest createLocationRequest() {
+        LocationRequest locationRequest = new LocationRequest();
+        locationRequest.setInterval(interval);
+        locationRequest.setFastestInterval(interval / 2);
+        locationRequest.setPriority(priority);
+        locationRequest.setSmallestDisplacement(smallestDisplacement);
+        if (maxWaitTime > 0) {
+            locationRequest.setMaxWaitTime(maxWaitTime);
+        }
+        return locationRequest;
+    }
+
+    /**
+     * @return Profile name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Location update interval in milliseconds
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return Location request priority
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return Smallest displacement in meters between two locations
+     */
+    public float getSmallestDisplacement() {
+        return smallestDisplacement;
+    }
+
+    /**
+     * @return Maximum wait time in milliseconds before the locations are
+     * delivered, 0 if they are delivered immediately
+     */
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (interval " + interval + " ms, priority " + priority
+                + ", displacement " + smallestDisplacement + " m, max wait "
+                + maxWaitTime + " ms)";
+    }
+}
@@ -14,13 +14,14 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.IBinder;
+import android.os.Looper;
 
 import com.alkisum.android.cloudrun.R;
 import com.alkisum.android.cloudrun.activities.MonitorActivity;
 import com.alkisum.android.cloudrun.events.SessionActionEvent;
-import com.alkisum.android.cloudrun.model.Session;
+import com.alkisum.android.cloudrun.tasks.RecorderState;
+import com.alkisum.android.cloudrun.tasks.SessionRecorder;
 import com.alkisum.android.cloudrun.utils.Format;
-import com.alkisum.android.cloudrun.utils.Sessions;
 
 import org.greenrobot.eventbus.EventBus;
 import org.greenrobot.eventbus.Subscribe;
@@ -29,9 +30,15 @@ import androidx.core.app.NotificationCompat;
 
 /**
  * Bound and started service that can be promoted to a foreground service.
+ * The notification is fed from the snapshot published by
+ * {@link SessionRecorder} and is only pushed when its content changes. From
+ * API 24, the duration is shown by the system chronometer while the session
+ * is running, the notification is then only updated for the distance. While
+ * the session is on pause, the notification does not change and is not
+ * updated until the session is resumed.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 3.1
  */
 public class LocationUpdatesService extends Service {
@@ -47,9 +54,33 @@ public class LocationUpdatesService extends Service {
     private static final int NOTIFICATION_ID = 691;
 
     /**
-     * Delay to update notification.
+     * Delay to update the notification showing the duration.
      */
-    private long notificationDelay = 1000;
+    private static final long NOTIFICATION_DELAY = 1000;
+
+    /**
+     * Delay to update the notification when the duration is shown by the
+     * chronometer.
+     */
+    private static final long NOTIFICATION_DELAY_CHRONOMETER = 5000;
+
+    /**
+     * Flag set to true if the system chronometer can show the duration,
+     * false otherwise.
+     */
+    private static final boolean CHRONOMETER_SUPPORTED =
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.N;
+
+    /**
+     * Delay to update notification, longer if the duration is shown by the
+     * chronometer.
+     */
+    private long notificationDelay = NOTIFICATION_DELAY;
+
+    /**
+     * Thread receiving and processing the location updates.
+     */
+    private HandlerThread handlerThread;
 
     /**
      * Service handler.
@@ -67,10 +98,21 @@ public class LocationUpdatesService extends Service {
     private boolean notificationUpdateOn = false;
 
     /**
-     * Notification builder.
+     * Notification builder currently used, either the running or the paused
+     * builder.
      */
     private NotificationCompat.Builder notificationBuilder;
 
+    /**
+     * Notification builder with the pause and stop actions.
+     */
+    private NotificationCompat.Builder runningBuilder;
+
+    /**
+     * Notification builder with the resume and stop actions.
+     */
+    private NotificationCompat.Builder pausedBuilder;
+
     /**
      * Notification manager.
      */
@@ -99,26 +141,53 @@ public class LocationUpdatesService extends Service {
     private NotificationCompat.Action stopAction;
 
     /**
-     * Flag set to true when the blinking mode is enabled (session on pause),
-     * false otherwise.
+     * Flag set to true when the session is on pause, false otherwise.
      */
-    private boolean blinkEnabled = false;
+    private boolean paused = false;
 
     /**
-     * Flag set to true if the duration is visible (used for blinking mode),
-     * false otherwise.
+     * Unit appended to the distance.
+     */
+    private String distanceUnit;
+
+    /**
+     * Distance formatted last, used to avoid formatting the same distance
+     * again.
      */
-    private boolean durationVisible = true;
+    private float lastDistance = -1;
+
+    /**
+     * Distance text formatted last.
+     */
+    private String distanceText;
+
+    /**
+     * Title of the notification pushed last.
+     */
+    private String lastTitle;
+
+    /**
+     * Text of the notification pushed last.
+     */
+    private String lastText;
+
+    /**
+     * Time set on the notification pushed last when the chronometer is used,
+     * -1 if the chronometer is not used.
+     */
+    private long lastChronometerBase = -1;
 
     @Override
     public final void onCreate() {
-        HandlerThread handlerThread = new HandlerThread(
+        handlerThread = new HandlerThread(
                 LocationUpdatesService.class.getSimpleName());
         handlerThread.start();
         serviceHandler = new Handler(handlerThread.getLooper());
+        distanceUnit = " " + getString(R.string.unit_distance);
         initNotification();
-        notificationBuilder.addAction(pauseAction);
-        notificationBuilder.addAction(stopAction);
+        if (CHRONOMETER_SUPPORTED) {
+            notificationDelay = NOTIFICATION_DELAY_CHRONOMETER;
+        }
         eventBus = EventBus.getDefault();
         eventBus.register(this);
     }
@@ -144,6 +213,15 @@ public class LocationUpdatesService extends Service {
         eventBus.unregister(this);
         unregisterReceiver(actionReceiver);
         serviceHandler.removeCallbacksAndMessages(null);
+        handlerThread.quitSafely();
+    }
+
+    /**
+     * @return Looper of the thread receiving and processing the location
+     * updates
+     */
+    final Looper getServiceLooper() {
+        return serviceHandler.getLooper();
     }
 
     /**
@@ -171,26 +249,31 @@ public class LocationUpdatesService extends Service {
      * @return the notification used as part of the foreground service
      */
     private Notification getNotification() {
-        updateNotification();
+        updateNotification(true);
         return notificationBuilder.build();
     }
 
     /**
-     * Notification update task.
+     * Notification update task, pushing the notification only if its content
+     * has changed. The task is not repeated while the session is on pause.
      */
     private final Runnable notificationUpdateTask = new Runnable() {
         @Override
         public void run() {
             notificationUpdateOn = true;
-            notificationUpdateHandler.postDelayed(this, notificationDelay);
-            updateNotification();
-            notificationManager.notify(NOTIFICATION_ID,
-                    notificationBuilder.build());
+            if (!paused) {
+                notificationUpdateHandler.postDelayed(this,
+                        notificationDelay);
+            }
+            if (updateNotification(false)) {
+                notificationManager.notify(NOTIFICATION_ID,
+                        notificationBuilder.build());
+            }
         }
     };
 
     /**
-     * Initialize notification.
+     * Initialize the notification channel, the builders and the actions.
      */
     private void initNotification() {
         PendingIntent activityPendingIntent = PendingIntent.getActivity(
@@ -206,16 +289,27 @@ public class LocationUpdatesService extends Service {
             notificationManager.createNotificationChannel(notificationChannel);
         }
 
-        notificationBuilder = new NotificationCompat.Builder(
-                this, "CloudRunLocation")
-                .setContentIntent(activityPendingIntent)
-                .setSmallIcon(R.drawable.ic_directions_run_white_24dp);
-
         // add actions to intent filter
         this.addIntentFilterActions();
 
         // add actions to notification builder
         this.createNotificationActions();
+
+        runningBuilder = new NotificationCompat.Builder(
+                this, "CloudRunLocation")
+                .setContentIntent(activityPendingIntent)
+                .setSmallIcon(R.drawable.ic_directions_run_white_24dp)
+                .setOnlyAlertOnce(true)
+                .addAction(pauseAction)
+                .addAction(stopAction);
+        pausedBuilder = new NotificationCompat.Builder(
+                this, "CloudRunLocation")
+                .setContentIntent(activityPendingIntent)
+                .setSmallIcon(R.drawable.ic_directions_run_white_24dp)
+                .setOnlyAlertOnce(true)
+                .addAction(resumeAction)
+                .addAction(stopAction);
+        notificationBuilder = runningBuilder;
     }
 
     /**
@@ -271,37 +365,74 @@ public class LocationUpdatesService extends Service {
     }
 
     /**
-     * Update notification.
+     * Update the notification builder from the recorder snapshot.
+     *
+     * @param force true to update the builder even if the content has not
+     *              changed
+     * @return true if the notification must be pushed again, false otherwise
      */
-    private void updateNotification() {
-        // get current session
-        Session session = Sessions.getLastSession();
-
-        // init values
-        String duration = "00:00:00";
-        String distance = "0 " + getString(R.string.unit_distance);
-
-        if (session != null) {
-            // get values from current session
-            duration = Format.formatDuration(session.getDuration());
-            distance = Format.formatDistance(session.getDistance())
-                    + " " + getString(R.string.unit_distance);
+    private boolean updateNotification(final boolean force) {
+        RecorderState state = SessionRecorder.getCurrentState();
+        long now = System.currentTimeMillis();
+        long duration = state.getDuration(now);
+
+        // format the distance only when it has changed
+        if (distanceText == null || state.getDistance() != lastDistance) {
+            lastDistance = state.getDistance();
+            distanceText = Format.formatDistance(lastDistance) + distanceUnit;
         }
 
-        // set duration (handle blink when on pause)
-        if (blinkEnabled) {
-            if (durationVisible) {
-                duration = "";
+        String title;
+        String text;
+        long chronometerBase = -1;
+        if (CHRONOMETER_SUPPORTED && !paused) {
+            // the system chronometer shows the duration
+            title = distanceText;
+            text = null;
+            chronometerBase = now - duration;
+            // ignore the drift between the session action and the snapshot
+            if (lastChronometerBase != -1 && Math.abs(
+                    chronometerBase - lastChronometerBase) < 1000) {
+                chronometerBase = lastChronometerBase;
             }
-            durationVisible = !durationVisible;
+        } else {
+            // set duration, frozen when on pause
+            title = Format.formatDuration(duration);
+            text = distanceText;
         }
-        notificationBuilder.setContentTitle(duration);
 
-        // set distance
-        notificationBuilder.setContentText(distance);
+        if (!force && title.equals(lastTitle) && sameText(text, lastText)
+                && chronometerBase == lastChronometerBase) {
+            return false;
+        }
+        lastTitle = title;
+        lastText = text;
+        lastChronometerBase = chronometerBase;
+
+        notificationBuilder.setContentTitle(title);
+        notificationBuilder.setContentText(text);
+        if (chronometerBase != -1) {
+            notificationBuilder.setUsesChronometer(true);
+            notificationBuilder.setWhen(chronometerBase);
+        } else {
+            notificationBuilder.setUsesChronometer(false);
+            notificationBuilder.setWhen(now);
+        }
+        return true;
+    }
 
-        // set notification time
-        notificationBuilder.setWhen(System.currentTimeMillis());
+    /**
+     * Compare the given strings, null being equal to null only.
+     *
+     * @param a First string
+     * @param b Second string
+     * @return true if the strings are equal, false otherwise
+     */
+    private static boolean sameText(final String a, final String b) {
+        if (a == null) {
+            return b == null;
+        }
+        return a.equals(b);
     }
 
     /**
@@ -314,51 +445,30 @@ public class LocationUpdatesService extends Service {
         switch (event.getAction()) {
             case SessionActionEvent.START:
                 // set actions
-                initNotification();
-                notificationBuilder.addAction(pauseAction);
-                notificationBuilder.addAction(stopAction);
+                notificationBuilder = runningBuilder;
 
-                // deactivate blinking
-                this.setBlink(false);
+                paused = false;
 
                 // update notification
-                updateNotification();
+                updateNotification(true);
                 break;
             case SessionActionEvent.RESUME:
                 // set actions
-                initNotification();
-                notificationBuilder.addAction(pauseAction);
-                notificationBuilder.addAction(stopAction);
+                notificationBuilder = runningBuilder;
 
-                // deactivate blinking
-                this.setBlink(false);
-
-                // update notification
-                updateNotification();
+                paused = false;
 
                 // push new notification
-                if (notificationUpdateOn) {
-                    notificationManager.notify(NOTIFICATION_ID,
-                            notificationBuilder.build());
-                }
+                pushNotification();
                 break;
             case SessionActionEvent.PAUSE:
                 // set actions
-                initNotification();
-                notificationBuilder.addAction(resumeAction);
-                notificationBuilder.addAction(stopAction);
+                notificationBuilder = pausedBuilder;
 
-                // activate blinking
-                this.setBlink(true);
-
-                // update notification
-                updateNotification();
+                paused = true;
 
                 // push new notification
-                if (notificationUpdateOn) {
-                    notificationManager.notify(NOTIFICATION_ID,
-                            notificationBuilder.build());
-                }
+                pushNotification();
                 break;
             case SessionActionEvent.STOP:
                 // remove notification
@@ -370,17 +480,20 @@ public class LocationUpdatesService extends Service {
     }
 
     /**
-     * Set blinking mode (enabled or disabled) and adjust notification delay
-     * according to the given mode.
-     *
-     * @param enabled Blinking mode
+     * Update the notification and push it if the update task is on. The task
+     * is restarted when the session is resumed, and stopped while the
+     * session is on pause.
      */
-    private void setBlink(final boolean enabled) {
-        blinkEnabled = enabled;
-        if (enabled) {
-            notificationDelay = 500;
-        } else {
-            notificationDelay = 1000;
+    private void pushNotification() {
+        updateNotification(true);
+        if (notificationUpdateOn) {
+            notificationManager.notify(NOTIFICATION_ID,
+                    notificationBuilder.build());
+            notificationUpdateHandler.removeCallbacks(notificationUpdateTask);
+            if (!paused) {
+                notificationUpdateHandler.postDelayed(notificationUpdateTask,
+                        notificationDelay);
+            }
         }
     }
 
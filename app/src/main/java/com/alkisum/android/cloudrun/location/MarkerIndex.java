@@ -0,0 +1,208 @@
+package com.alkisum.android.cloudrun.location;
+
+import com.alkisum.android.cloudrun.model.Marker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index of markers answering radius queries. The markers are stored
+ * in a grid of cells of {@link #CELL_SIZE} degrees. A query only visits the
+ * cells overlapping the bounding box of the searched circle, rejects the
+ * markers outside this box or too far according to the equirectangular
+ * approximation, and computes the haversine distance for the remaining ones.
+ *
+ * The index is immutable and must be rebuilt when the markers change.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class MarkerIndex {
+
+    /**
+     * Size of a grid cell in degrees (about 110 meters of latitude).
+     */
+    private static final double CELL_SIZE = 0.001;
+
+    /**
+     * Margin applied to the radius for the equirectangular pre-filter, to
+     * make sure no marker is rejected because of the approximation.
+     */
+    private static final double PRE_FILTER_MARGIN = 1.01;
+
+    /**
+     * Indexed markers.
+     */
+    private final Marker[] markers;
+
+    /**
+     * Latitudes of the indexed markers.
+     */
+    private final double[] latitudes;
+
+    /**
+     * Longitudes of the indexed markers.
+     */
+    private final double[] longitudes;
+
+    /**
+     * Grid cells, mapping a cell key to the indexes of the markers it
+     * contains.
+     */
+    private final Map<Long, int[]> cells = new HashMap<>();
+
+    /**
+     * MarkerIndex constructor.
+     *
+     * @param markers Markers to index
+     */
+    public MarkerIndex(final List<Marker> markers) {
+        int size = markers.size();
+        this.markers = markers.toArray(new Marker[0]);
+        latitudes = new double[size];
+        longitudes = new double[size];
+
+        Map<Long, List<Integer>> cellLists = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = this.markers[i].getLatitude();
+            longitudes[i] = this.markers[i].getLongitude();
+            long key = getCellKey(toCell(latitudes[i]),
+                    toCell(longitudes[i]));
+            List<Integer> cellList = cellLists.get(key);
+            if (cellList == null) {
+                cellList = new ArrayList<>();
+                cellLists.put(key, cellList);
+            }
+            cellList.add(i);
+        }
+
+        for (Map.Entry<Long, List<Integer>> entry : cellLists.entrySet()) {
+            List<Integer> cellList = entry.getValue();
+            int[] indexes = new int[cellList.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = cellList.get(i);
+            }
+            cells.put(entry.getKey(), indexes);
+        }
+    }
+
+    /**
+     * @return Number of indexed markers
+     */
+    public int size() {
+        return markers.length;
+    }
+
+    /**
+     * Find the markers located within the given radius from the given
+     * location.
+     *
+     * @param latitude  Latitude of the location
+     * @param longitude Longitude of the location
+     * @param radius    Radius in meters
+     * @param result    List cleared and filled with the markers found
+     */
+    public void getMarkersWithin(final double latitude,
+                                 final double longitude,
+                                 final double radius,
+                                 final List<Marker> result) {
+        result.clear();
+        if (markers.length == 0) {
+            return;
+        }
+
+        double deltaLatitude = Geodesy.latitudeDelta(radius);
+        double deltaLongitude = Geodesy.longitudeDelta(latitude, radius);
+
+        long minLatCell = toCell(latitude - deltaLatitude);
+        long maxLatCell = toCell(latitude + deltaLatitude);
+        long minLonCell = toCell(longitude - deltaLongitude);
+        long maxLonCell = toCell(longitude + deltaLongitude);
+        long cellCount = (maxLatCell - minLatCell + 1)
+                * (maxLonCell - minLonCell + 1);
+
+        if (cellCount > markers.length) {
+            // looking up more cells than there are markers would cost more
+            // than scanning every marker
+            for (int i = 0; i < markers.length; i++) {
+                addIfWithin(i, latitude, longitude, deltaLatitude,
+                        deltaLongitude, radius, result);
+            }
+            return;
+        }
+
+        for (long latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (long lonCell = minLonCell; lonCell <= maxLonCell;
+                 lonCell++) {
+                int[] indexes = cells.get(getCellKey(latCell, lonCell));
+                if (indexes == null) {
+                    continue;
+                }
+                for (int i : indexes) {
+                    addIfWithin(i, latitude, longitude, deltaLatitude,
+                            deltaLongitude, radius, result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the marker at the given index to the result if it is located within
+     * the given radius from the given location.
+     *
+     * @param i              Marker index
+     * @param latitude       Latitude of the location
+     * @param longitude      Longitude of the location
+     * @param deltaLatitude  Latitude half-size of the bounding box
+     * @param deltaLongitude Longitude half-size of the bounding box
+     * @param radius         Radius in meters
+     * @param result         List to add the marker to
+     */
+    private void addIfWithin(final int i, final double latitude,
+                             final double longitude,
+                             final double deltaLatitude,
+                             final double deltaLongitude,
+                             final double radius, final List<Marker> result) {
+        // bounding box pre-filter
+        if (!Geodesy.isInBox(latitudes[i], longitudes[i], latitude, longitude,
+                deltaLatitude, deltaLongitude)) {
+            return;
+        }
+
+        // equirectangular pre-filter
+        if (Geodesy.equirectangular(latitude, longitude, latitudes[i],
+                longitudes[i]) > radius * PRE_FILTER_MARGIN) {
+            return;
+        }
+
+        // exact distance
+        if (Geodesy.haversine(latitude, longitude, latitudes[i],
+                longitudes[i]) <= radius) {
+            result.add(markers[i]);
+        }
+    }
+
+    /**
+     * Convert the given coordinate in degrees into a grid cell number.
+     *
+     * @param degrees Coordinate in degrees
+     * @return Cell number
+     */
+    private static long toCell(final double degrees) {
+        return (long) Math.floor(degrees / CELL_SIZE);
+    }
+
+    /**
+     * Build the key of the cell identified by the given cell numbers.
+     *
+     * @param latCell Cell number on the latitude axis
+     * @param lonCell Cell number on the longitude axis
+     * @return Cell key
+     */
+    private static long getCellKey(final long latCell, final long lonCell) {
+        return (latCell << 32) | (lonCell & 0xffffffffL);
+    }
+}
@@ -10,14 +10,10 @@ import android.os.Build;
 
 import com.alkisum.android.cloudrun.R;
 import com.alkisum.android.cloudrun.activities.MapActivity;
-import com.alkisum.android.cloudrun.events.MarkerAlertEvent;
 import com.alkisum.android.cloudrun.model.Marker;
 import com.alkisum.android.cloudrun.utils.Markers;
 import com.google.android.gms.location.LocationCallback;
 
-import org.greenrobot.eventbus.EventBus;
-import org.greenrobot.eventbus.Subscribe;
-
 import java.lang.ref.WeakReference;
 import java.util.List;
 
@@ -27,7 +23,7 @@ import androidx.core.app.NotificationCompat;
  * Class notifying when a marker alert occurred.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 4.0
  */
 class MarkerNotifier {
@@ -50,30 +46,19 @@ class MarkerNotifier {
      */
     MarkerNotifier(final Activity activity) {
         this.activity = new WeakReference<>(activity);
-        EventBus.getDefault().register(this);
-    }
-
-    /**
-     * Called when {@link LocationUpdatesService} is destroyed.
-     */
-    final void onDestroy() {
-        EventBus.getDefault().unregister(this);
     }
 
-
     /**
-     * Triggered when a surrounding marker has been detected.
+     * Notify the given surrounding markers.
      *
-     * @param event Marker alert event
+     * @param markers Markers detected
      */
-    @Subscribe
-    public final void onMarkerAlertEvent(final MarkerAlertEvent event) {
+    final void notifyMarkers(final List<Marker> markers) {
         // initialize notification manager
         NotificationManager manager = initNotification();
 
         // build notification
-        NotificationCompat.Builder builder = buildNotification(
-                event.getMarkers());
+        NotificationCompat.Builder builder = buildNotification(markers);
 
         // notify
         manager.notify(NOTIFICATION_ID, builder.build());
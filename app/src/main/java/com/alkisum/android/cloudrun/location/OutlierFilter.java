@@ -0,0 +1,63 @@
+package com.alkisum.android.cloudrun.location;
+
+/**
+ * Filter discarding the locations that would require moving faster than
+ * {@link #MAX_SPEED} from the last accepted location. After
+ * {@link #MAX_REJECTED} consecutive discarded locations, the next one is
+ * accepted anyway so that the filter recovers from a bad reference location
+ * or a long signal loss.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class OutlierFilter implements LocationFilter {
+
+    /**
+     * Maximum plausible speed in meters per second.
+     */
+    private static final double MAX_SPEED = 12;
+
+    /**
+     * Maximum number of consecutive discarded locations.
+     */
+    private static final int MAX_REJECTED = 5;
+
+    /**
+     * Last accepted location.
+     */
+    private Coordinate lastCoordinate;
+
+    /**
+     * Number of locations discarded since the last accepted one.
+     */
+    private int rejected;
+
+    @Override
+    public Coordinate filter(final Coordinate coordinate,
+                             final float accuracy) {
+        if (lastCoordinate != null && rejected < MAX_REJECTED) {
+            double seconds = (coordinate.getTime()
+                    - lastCoordinate.getTime()) / 1000d;
+            double distance = Geodesy.haversine(
+                    lastCoordinate.getLatitude(),
+                    lastCoordinate.getLongitude(),
+                    coordinate.getLatitude(), coordinate.getLongitude());
+            // the accuracy is allowed on top of the travelled distance
+            if (seconds <= 0
+                    || distance - accuracy > MAX_SPEED * seconds) {
+                rejected++;
+                return null;
+            }
+        }
+        lastCoordinate = coordinate;
+        rejected = 0;
+        return coordinate;
+    }
+
+    @Override
+    public void reset() {
+        lastCoordinate = null;
+        rejected = 0;
+    }
+}
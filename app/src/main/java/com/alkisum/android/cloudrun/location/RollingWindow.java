@@ -0,0 +1,179 @@
+package com.alkisum.android.cloudrun.location;
+
+/**
+ * Rolling window storing the last distances travelled with the time passed to
+ * travel each of them. The values are stored in primitive ring buffers and
+ * the totals are kept up to date on each change, so that the speed and the
+ * pace are available in constant time.
+ *
+ * The window keeps at most {@link #getCapacity()} values, the oldest value
+ * being dropped when a new one is added to a full window.
+ *
+ * This class is not thread-safe.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class RollingWindow {
+
+    /**
+     * Distances travelled, in meters.
+     */
+    private float[] distances;
+
+    /**
+     * Time passed to travel each distance, in milliseconds.
+     */
+    private long[] times;
+
+    /**
+     * Index of the oldest value.
+     */
+    private int head;
+
+    /**
+     * Number of values stored.
+     */
+    private int size;
+
+    /**
+     * Sum of the stored distances.
+     */
+    private double totalDistance;
+
+    /**
+     * Sum of the stored times.
+     */
+    private long totalTime;
+
+    /**
+     * RollingWindow constructor.
+     *
+     * @param capacity Maximum number of values stored
+     */
+    public RollingWindow(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at "
+                    + "least 1");
+        }
+        distances = new float[capacity];
+        times = new long[capacity];
+    }
+
+    /**
+     * Add a distance with the time passed to travel it. The oldest value is
+     * dropped if the window is full.
+     *
+     * @param distance Distance travelled in meters
+     * @param time     Time passed to travel the distance in milliseconds
+     */
+    public void add(final float distance, final long time) {
+        if (size == distances.length) {
+            removeOldest();
+        }
+        int tail = (head + size) % distances.length;
+        distances[tail] = distance;
+        times[tail] = time;
+        size++;
+        totalDistance += distance;
+        totalTime += time;
+    }
+
+    /**
+     * Remove the oldest value.
+     */
+    private void removeOldest() {
+        totalDistance -= distances[head];
+        totalTime -= times[head];
+        head = (head + 1) % distances.length;
+        size--;
+    }
+
+    /**
+     * Change the capacity of the window, keeping the most recent values.
+     *
+     * @param capacity New maximum number of values stored
+     */
+    public void resize(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be at "
+                    + "least 1");
+        }
+        if (capacity == distances.length) {
+            return;
+        }
+        int newSize = Math.min(size, capacity);
+        float[] newDistances = new float[capacity];
+        long[] newTimes = new long[capacity];
+        totalDistance = 0;
+        totalTime = 0;
+        for (int i = 0; i < newSize; i++) {
+            int index = (head + size - newSize + i) % distances.length;
+            newDistances[i] = distances[index];
+            newTimes[i] = times[index];
+            totalDistance += newDistances[i];
+            totalTime += newTimes[i];
+        }
+        distances = newDistances;
+        times = newTimes;
+        head = 0;
+        size = newSize;
+    }
+
+    /**
+     * Remove all the values.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        totalDistance = 0;
+        totalTime = 0;
+    }
+
+    /**
+     * @return Maximum number of values stored
+     */
+    public int getCapacity() {
+        return distances.length;
+    }
+
+    /**
+     * @return Number of values stored
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Sum of the stored distances in meters
+     */
+    public float getTotalDistance() {
+        return (float) totalDistance;
+    }
+
+    /**
+     * @return Sum of the stored times in milliseconds
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * Calculate the speed from the stored values.
+     *
+     * @return Speed in km/h
+     */
+    public float getSpeed() {
+        return (getTotalDistance() / 1000f) / (totalTime / 3600000f);
+    }
+
+    /**
+     * Calculate the pace from the stored values.
+     *
+     * @return Pace in milliseconds per kilometer
+     */
+    public long getPace() {
+        return Math.round(totalTime / (getTotalDistance() / 1000f));
+    }
+}
@@ -0,0 +1,50 @@
+package com.alkisum.android.cloudrun.location;
+
+/**
+ * Filter removing the jitter while standing still. As long as a location
+ * stays within the dead-band around the last accepted location, the last
+ * accepted position is returned with the time of the new location, so that
+ * no distance is added while the time keeps passing. The dead-band radius is
+ * the accuracy of the location, with a minimum of {@link #MIN_RADIUS}.
+ *
+ * A slow movement is not lost: once the distance from the last accepted
+ * location exceeds the dead-band, the whole displacement is accepted.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class StationaryFilter implements LocationFilter {
+
+    /**
+     * Minimum radius of the dead-band in meters.
+     */
+    private static final float MIN_RADIUS = 3;
+
+    /**
+     * Last accepted location.
+     */
+    private Coordinate anchor;
+
+    @Override
+    public Coordinate filter(final Coordinate coordinate,
+                             final float accuracy) {
+        if (anchor != null) {
+            double distance = Geodesy.haversine(anchor.getLatitude(),
+                    anchor.getLongitude(), coordinate.getLatitude(),
+                    coordinate.getLongitude());
+            if (distance < Math.max(MIN_RADIUS, accuracy)) {
+                return new Coordinate(coordinate.getTime(),
+                        anchor.getLatitude(), anchor.getLongitude(),
+                        anchor.getElevation());
+            }
+        }
+        anchor = coordinate;
+        return coordinate;
+    }
+
+    @Override
+    public void reset() {
+        anchor = null;
+    }
+}
@@ -0,0 +1,327 @@
+package com.alkisum.android.cloudrun.location;
+
+import com.alkisum.android.cloudrun.CloudRunEventBusIndex;
+import com.alkisum.android.cloudrun.events.MarkerAlertEvent;
+
+import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class replaying a recorded or synthetic trace through
+ * {@link LocationProcessor}, the same processing as the live locations, and
+ * reporting the result and the time spent processing each location. The
+ * live metrics and the events are published on a private bus and EventBus,
+ * the replay does therefore not interfere with a running session.
+ *
+ * The recorded traces can be read from an exported session with
+ * {@link com.alkisum.android.cloudrun.utils.Sessions#readCoordinates}.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class TraceReplayer implements LiveMetricsBus.Observer {
+
+    /**
+     * Location filter preference value used for the replay.
+     */
+    private final String locationFilter;
+
+    /**
+     * Number of distance values used to calculate the speed and the pace.
+     */
+    private final int distanceCnt;
+
+    /**
+     * Source of the markers to alert the user about.
+     */
+    private final LocationProcessor.MarkerSource markerSource;
+
+    /**
+     * Source of the session duration given to the live metrics.
+     */
+    private final LocationProcessor.DurationSource durationSource;
+
+    /**
+     * Distance accumulated during the current replay in meters.
+     */
+    private float distance;
+
+    /**
+     * Number of DataPoints a running session would write during the current
+     * replay.
+     */
+    private int dataPointWrites;
+
+    /**
+     * Number of marker alerts during the current replay.
+     */
+    private int markerAlertCount;
+
+    /**
+     * TraceReplayer constructor.
+     *
+     * @param locationFilter Location filter preference value, see
+     *                       {@link LocationFilters}
+     * @param distanceCnt    Number of distance values used to calculate the
+     *                       speed and the pace
+     * @param markerSource   Source of the markers to alert the user about
+     * @param durationSource Source of the session duration given to the live
+     *                       metrics
+     */
+    public TraceReplayer(final String locationFilter, final int distanceCnt,
+                         final LocationProcessor.MarkerSource markerSource,
+                         final LocationProcessor.DurationSource
+                                 durationSource) {
+        this.locationFilter = locationFilter;
+        this.distanceCnt = distanceCnt;
+        this.markerSource = markerSource;
+        this.durationSource = durationSource;
+    }
+
+    /**
+     * Replay the given trace on the calling thread. The time between two
+     * locations is divided by the given speed-up factor, a factor of 0
+     * replays the trace without waiting.
+     *
+     * @param trace    Locations to replay
+     * @param accuracy Accuracy given to each location in meters
+     * @param speedUp  Speed-up factor
+     * @return Replay report
+     * @throws InterruptedException The thread has been interrupted while
+     *                              waiting for the next location
+     */
+    public synchronized Report replay(final List<Coordinate> trace,
+                                      final float accuracy,
+                                      final double speedUp)
+            throws InterruptedException {
+        EventBus eventBus = EventBus.builder()
+                .addIndex(new CloudRunEventBusIndex())
+                .logNoSubscriberMessages(false)
+                .sendNoSubscriberEvent(false)
+                .build();
+        eventBus.register(this);
+        LiveMetricsBus metricsBus = new LiveMetricsBus();
+        metricsBus.register(this);
+        LocationProcessor processor = new LocationProcessor(eventBus,
+                metricsBus, markerSource, durationSource,
+                LocationFilters.create(locationFilter), distanceCnt);
+
+        distance = 0;
+        dataPointWrites = 0;
+        markerAlertCount = 0;
+        Report report = new Report();
+        long firstTime = 0;
+        long lastTime = 0;
+        long previousTime = 0;
+        try {
+            for (Coordinate coordinate : trace) {
+                if (speedUp > 0 && report.fixCount > 0) {
+                    long wait = Math.round((coordinate.getTime()
+                            - previousTime) / speedUp);
+                    if (wait > 0) {
+                        Thread.sleep(wait);
+                    }
+                }
+                previousTime = coordinate.getTime();
+
+                long start = System.nanoTime();
+                boolean accepted = processor.process(coordinate, accuracy);
+                long nanos = System.nanoTime() - start;
+
+                report.fixCount++;
+                report.totalNanos += nanos;
+                report.maxNanos = Math.max(report.maxNanos, nanos);
+                if (accepted) {
+                    if (report.acceptedCount == 0) {
+                        firstTime = coordinate.getTime();
+                    }
+                    lastTime = coordinate.getTime();
+                    report.acceptedCount++;
+                }
+            }
+        } finally {
+            eventBus.unregister(this);
+        }
+        report.distance = distance;
+        report.dataPointWrites = dataPointWrites;
+        report.duration = lastTime - firstTime;
+        report.markerAlertCount = markerAlertCount;
+        return report;
+    }
+
+    /**
+     * Build a synthetic trace going straight at constant speed.
+     *
+     * @param latitude  Latitude of the first location in degrees
+     * @param longitude Longitude of the first location in degrees
+     * @param bearing   Bearing in degrees
+     * @param speed     Speed in meters per second
+     * @param interval  Time between two locations in milliseconds
+     * @param count     Number of locations
+     * @return Synthetic trace
+     */
+    public static List<Coordinate> buildSyntheticTrace(
+            final double latitude, final double longitude,
+            final double bearing, final double speed, final long interval,
+            final int count) {
+        List<Coordinate> trace = new ArrayList<>(count);
+        double step = speed * interval / 1000d;
+        double north = step * Math.cos(Math.toRadians(bearing));
+        double east = step * Math.sin(Math.toRadians(bearing));
+        double lat = latitude;
+        double lon = longitude;
+        for (int i = 0; i < count; i++) {
+            trace.add(new Coordinate(i * interval, lat, lon, 0));
+            lat += Geodesy.latitudeDelta(north);
+            lon += Geodesy.longitudeDelta(lat, east);
+        }
+        return trace;
+    }
+
+    /**
+     * Called for each live metrics snapshot of the replay.
+     *
+     * @param metrics Live metrics snapshot
+     */
+    @Override
+    public void onLiveMetrics(final LiveMetrics metrics) {
+        distance += metrics.getDistance();
+        // the session recorder writes a DataPoint per coordinate
+        dataPointWrites += metrics.getCoordinates().size();
+    }
+
+    /**
+     * Triggered on marker alert event.
+     *
+     * @param event Marker alert event
+     */
+    @Subscribe
+    public void onMarkerAlertEvent(final MarkerAlertEvent event) {
+        markerAlertCount++;
+    }
+
+    /**
+     * Result of a replay.
+     */
+    public static final class Report {
+
+        /**
+         * Number of locations replayed.
+         */
+        private int fixCount;
+
+        /**
+         * Number of locations accepted by the processing.
+         */
+        private int acceptedCount;
+
+        /**
+         * Distance accumulated in meters.
+         */
+        private float distance;
+
+        /**
+         * Number of DataPoints a running session would write.
+         */
+        private int dataPointWrites;
+
+        /**
+         * Time between the first and the last accepted locations in
+         * milliseconds.
+         */
+        private long duration;
+
+        /**
+         * Number of marker alerts.
+         */
+        private int markerAlertCount;
+
+        /**
+         * Total time spent processing the locations in nanoseconds.
+         */
+        private long totalNanos;
+
+        /**
+         * Maximum time spent processing a location in nanoseconds.
+         */
+        private long maxNanos;
+
+        /**
+         * Report constructor.
+         */
+        private Report() {
+
+        }
+
+        /**
+         * @return Number of locations replayed
+         */
+        public int getFixCount() {
+            return fixCount;
+        }
+
+        /**
+         * @return Number of locations accepted by the processing
+         */
+        public int getAcceptedCount() {
+            return acceptedCount;
+        }
+
+        /**
+         * @return Distance accumulated in meters
+         */
+        public float getDistance() {
+            return distance;
+        }
+
+        /**
+         * @return Number of DataPoints a running session would write
+         */
+        public int getDataPointWrites() {
+            return dataPointWrites;
+        }
+
+        /**
+         * @return Time between the first and the last accepted locations in
+         * milliseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return Number of marker alerts
+         */
+        public int getMarkerAlertCount() {
+            return markerAlertCount;
+        }
+
+        /**
+         * @return Total time spent processing the locations in nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return Maximum time spent processing a location in nanoseconds
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * @return Mean time spent processing a location in nanoseconds
+         */
+        public long getMeanNanos() {
+            if (fixCount == 0) {
+                return 0;
+            }
+            return totalNanos / fixCount;
+        }
+    }
+}
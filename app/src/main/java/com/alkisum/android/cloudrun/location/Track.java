@@ -0,0 +1,96 @@
+package com.alkisum.android.cloudrun.location;
+
+/**
+ * Class holding the locations of a session in parallel primitive arrays,
+ * taking 32 bytes per location. A missing latitude, longitude or elevation
+ * is stored as {@link Double#NaN}.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class Track {
+
+    /**
+     * Times in milliseconds.
+     */
+    private final long[] times;
+
+    /**
+     * Latitudes in degrees.
+     */
+    private final double[] latitudes;
+
+    /**
+     * Longitudes in degrees.
+     */
+    private final double[] longitudes;
+
+    /**
+     * Elevations in meters.
+     */
+    private final double[] elevations;
+
+    /**
+     * Track constructor. The arrays must have the same length and are not
+     * copied.
+     *
+     * @param times      Times in milliseconds
+     * @param latitudes  Latitudes in degrees
+     * @param longitudes Longitudes in degrees
+     * @param elevations Elevations in meters
+     */
+    public Track(final long[] times, final double[] latitudes,
+                 final double[] longitudes, final double[] elevations) {
+        this.times = times;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.elevations = elevations;
+    }
+
+    /**
+     * @return Number of locations
+     */
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * @return true if the track has no location, false otherwise
+     */
+    public boolean isEmpty() {
+        return times.length == 0;
+    }
+
+    /**
+     * @param i Index of the location
+     * @return Time in milliseconds
+     */
+    public long getTime(final int i) {
+        return times[i];
+    }
+
+    /**
+     * @param i Index of the location
+     * @return Latitude in degrees, NaN if missing
+     */
+    public double getLatitude(final int i) {
+        return latitudes[i];
+    }
+
+    /**
+     * @param i Index of the location
+     * @return Longitude in degrees, NaN if missing
+     */
+    public double getLongitude(final int i) {
+        return longitudes[i];
+    }
+
+    /**
+     * @param i Index of the location
+     * @return Elevation in meters, NaN if missing
+     */
+    public double getElevation(final int i) {
+        return elevations[i];
+    }
+}
@@ -0,0 +1,302 @@
+package com.alkisum.android.cloudrun.location;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Utility class encoding a track into a compact blob and decoding it back.
+ *
+ * The blob is made of a header followed by one column per value:
+ * <ul>
+ * <li>format version (byte), number of locations (varint), flags (byte)</li>
+ * <li>if {@link #FLAG_MISSING_VALUES} is set, one byte per location telling
+ * which values are present</li>
+ * <li>times as deltas in milliseconds</li>
+ * <li>latitudes and longitudes as deltas in 1e-7 degrees</li>
+ * <li>elevations as deltas in centimeters</li>
+ * </ul>
+ * All the deltas are zigzag encoded varints, a location recorded every second
+ * while running therefore takes 6 to 8 bytes instead of a full row.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class TrackCodec {
+
+    /**
+     * Version of the blob format.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Flag set when some locations miss a value.
+     */
+    private static final int FLAG_MISSING_VALUES = 1;
+
+    /**
+     * Presence bit for the latitude.
+     */
+    private static final int HAS_LATITUDE = 1;
+
+    /**
+     * Presence bit for the longitude.
+     */
+    private static final int HAS_LONGITUDE = 1 << 1;
+
+    /**
+     * Presence bit for the elevation.
+     */
+    private static final int HAS_ELEVATION = 1 << 2;
+
+    /**
+     * Scale of the latitudes and longitudes (1e-7 degrees, around 1 cm).
+     */
+    private static final double DEGREE_SCALE = 1e7;
+
+    /**
+     * Scale of the elevations (centimeters).
+     */
+    private static final double ELEVATION_SCALE = 100;
+
+    /**
+     * TrackCodec constructor.
+     */
+    private TrackCodec() {
+
+    }
+
+    /**
+     * Encode the given track into a blob.
+     *
+     * @param track Track to encode
+     * @return Blob
+     */
+    public static byte[] encode(final Track track) {
+        int size = track.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * 8 + 8);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, size);
+
+        int[] presences = new int[size];
+        boolean missingValues = false;
+        for (int i = 0; i < size; i++) {
+            presences[i] = presenceOf(track, i);
+            if (presences[i] != (HAS_LATITUDE | HAS_LONGITUDE
+                    | HAS_ELEVATION)) {
+                missingValues = true;
+            }
+        }
+        if (missingValues) {
+            out.write(FLAG_MISSING_VALUES);
+            for (int presence : presences) {
+                out.write(presence);
+            }
+        } else {
+            out.write(0);
+        }
+
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            writeVarLong(out, zigzag(track.getTime(i) - previous));
+            previous = track.getTime(i);
+        }
+        previous = 0;
+        for (int i = 0; i < size; i++) {
+            if ((presences[i] & HAS_LATITUDE) != 0) {
+                long value = Math.round(track.getLatitude(i) * DEGREE_SCALE);
+                writeVarLong(out, zigzag(value - previous));
+                previous = value;
+            }
+        }
+        previous = 0;
+        for (int i = 0; i < size; i++) {
+            if ((presences[i] & HAS_LONGITUDE) != 0) {
+                long value = Math.round(track.getLongitude(i) * DEGREE_SCALE);
+                writeVarLong(out, zigzag(value - previous));
+                previous = value;
+            }
+        }
+        previous = 0;
+        for (int i = 0; i < size; i++) {
+            if ((presences[i] & HAS_ELEVATION) != 0) {
+                long value = Math.round(track.getElevation(i)
+                        * ELEVATION_SCALE);
+                writeVarLong(out, zigzag(value - previous));
+                previous = value;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode the given blob into a track.
+     *
+     * @param data Blob
+     * @return Track
+     * @throws IllegalArgumentException The blob is not a valid track
+     */
+    public static Track decode(final byte[] data) {
+        Reader in = new Reader(data);
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException(
+                    "Unknown track format version: " + version);
+        }
+        // each location takes at least the byte of its time, check the size
+        // before allocating the arrays
+        long count = in.readVarLong();
+        if (count < 0 || count > data.length) {
+            throw new IllegalArgumentException("Invalid track size: " + count);
+        }
+        int size = (int) count;
+        int flags = in.readByte();
+
+        int[] presences = new int[size];
+        for (int i = 0; i < size; i++) {
+            if ((flags & FLAG_MISSING_VALUES) != 0) {
+                presences[i] = in.readByte();
+            } else {
+                presences[i] = HAS_LATITUDE | HAS_LONGITUDE | HAS_ELEVATION;
+            }
+        }
+
+        long[] times = new long[size];
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += unzigzag(in.readVarLong());
+            times[i] = previous;
+        }
+        double[] latitudes = readColumn(in, presences, HAS_LATITUDE,
+                DEGREE_SCALE);
+        double[] longitudes = readColumn(in, presences, HAS_LONGITUDE,
+                DEGREE_SCALE);
+        double[] elevations = readColumn(in, presences, HAS_ELEVATION,
+                ELEVATION_SCALE);
+        return new Track(times, latitudes, longitudes, elevations);
+    }
+
+    /**
+     * Read a column of fixed-point deltas.
+     *
+     * @param in        Reader
+     * @param presences Presence bits of each location
+     * @param mask      Presence bit of the column
+     * @param scale     Scale of the fixed-point values
+     * @return Values, NaN for the missing ones
+     */
+    private static double[] readColumn(final Reader in, final int[] presences,
+                                       final int mask, final double scale) {
+        double[] values = new double[presences.length];
+        long previous = 0;
+        for (int i = 0; i < presences.length; i++) {
+            if ((presences[i] & mask) != 0) {
+                previous += unzigzag(in.readVarLong());
+                values[i] = previous / scale;
+            } else {
+                values[i] = Double.NaN;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @param track Track
+     * @param i     Index of the location
+     * @return Presence bits of the location
+     */
+    private static int presenceOf(final Track track, final int i) {
+        int presence = 0;
+        if (!Double.isNaN(track.getLatitude(i))) {
+            presence |= HAS_LATITUDE;
+        }
+        if (!Double.isNaN(track.getLongitude(i))) {
+            presence |= HAS_LONGITUDE;
+        }
+        if (!Double.isNaN(track.getElevation(i))) {
+            presence |= HAS_ELEVATION;
+        }
+        return presence;
+    }
+
+    /**
+     * Write the given value as a varint.
+     *
+     * @param out   Output stream
+     * @param value Value to write
+     */
+    private static void writeVarLong(final ByteArrayOutputStream out,
+                                     final long value) {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    /**
+     * @param value Signed value
+     * @return Zigzag encoded value, small for small negative values
+     */
+    private static long zigzag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * @param value Zigzag encoded value
+     * @return Signed value
+     */
+    private static long unzigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reader over a blob.
+     */
+    private static final class Reader {
+
+        /**
+         * Blob to read.
+         */
+        private final byte[] data;
+
+        /**
+         * Position of the next byte to read.
+         */
+        private int position;
+
+        /**
+         * Reader constructor.
+         *
+         * @param data Blob to read
+         */
+        Reader(final byte[] data) {
+            this.data = data;
+        }
+
+        /**
+         * @return Next byte, unsigned
+         */
+        int readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated track");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        /**
+         * @return Next varint
+         */
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
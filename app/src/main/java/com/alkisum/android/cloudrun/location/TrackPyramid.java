@@ -0,0 +1,293 @@
+package com.alkisum.android.cloudrun.location;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class simplifying a track for each zoom level of the map with the
+ * Douglas-Peucker algorithm. The algorithm runs once to compute the
+ * significance of each location, which is the largest tolerance at which the
+ * location is kept. The simplified track of a zoom level is then the
+ * locations whose significance is above the size of a pixel at that zoom
+ * level. The simplified tracks are built on demand and kept, as the indices
+ * of their locations in the track so that the map builds its own points.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class TrackPyramid {
+
+    /**
+     * Highest zoom level.
+     */
+    public static final int MAX_LEVEL = 22;
+
+    /**
+     * Size of a pixel in meters at zoom level 0 on the equator.
+     */
+    private static final double EQUATOR_PIXEL_SIZE = 156543.03392;
+
+    /**
+     * Tolerance in pixels, a location closer to the simplified line than this
+     * distance is not drawn.
+     */
+    private static final double PIXEL_TOLERANCE = 1;
+
+    /**
+     * Track to simplify.
+     */
+    private final Track track;
+
+    /**
+     * Significance of each location in meters, negative if the location has
+     * no latitude or longitude.
+     */
+    private final double[] significances;
+
+    /**
+     * Cosine of the latitude of the first location, used to compute the size
+     * of a pixel.
+     */
+    private double cosLatitude = 1;
+
+    /**
+     * Northern latitude of the track.
+     */
+    private double north = -90;
+
+    /**
+     * Southern latitude of the track.
+     */
+    private double south = 90;
+
+    /**
+     * Eastern longitude of the track.
+     */
+    private double east = -180;
+
+    /**
+     * Western longitude of the track.
+     */
+    private double west = 180;
+
+    /**
+     * Indices of the locations of the simplified tracks by zoom level, null
+     * if not built yet.
+     */
+    private final List<int[]> levels = new ArrayList<>();
+
+    /**
+     * TrackPyramid constructor.
+     *
+     * @param track Track to simplify
+     */
+    public TrackPyramid(final Track track) {
+        this.track = track;
+        this.significances = new double[track.size()];
+        for (int i = 0; i <= MAX_LEVEL; i++) {
+            levels.add(null);
+        }
+        computeSignificances();
+    }
+
+    /**
+     * Get the zoom level of the simplified track to show at the given zoom.
+     *
+     * @param zoom Zoom of the map
+     * @return Zoom level
+     */
+    public static int getLevel(final double zoom) {
+        return (int) Math.max(0, Math.min(MAX_LEVEL, Math.ceil(zoom)));
+    }
+
+    /**
+     * @return Track simplified by the pyramid
+     */
+    public Track getTrack() {
+        return track;
+    }
+
+    /**
+     * @return true if the track has no location to show, false otherwise
+     */
+    public boolean isEmpty() {
+        return north < south;
+    }
+
+    /**
+     * @return Northern latitude of the track
+     */
+    public double getNorth() {
+        return north;
+    }
+
+    /**
+     * @return Southern latitude of the track
+     */
+    public double getSouth() {
+        return south;
+    }
+
+    /**
+     * @return Eastern longitude of the track
+     */
+    public double getEast() {
+        return east;
+    }
+
+    /**
+     * @return Western longitude of the track
+     */
+    public double getWest() {
+        return west;
+    }
+
+    /**
+     * Get the simplified track of the given zoom level, as the indices of its
+     * locations in the track returned by {@link #getTrack()}. The returned
+     * array is shared and must not be modified.
+     *
+     * @param level Zoom level, see {@link #getLevel(double)}
+     * @return Indices of the locations, in ascending order
+     */
+    public synchronized int[] getIndices(final int level) {
+        int[] indices = levels.get(level);
+        if (indices != null) {
+            return indices;
+        }
+        double tolerance = EQUATOR_PIXEL_SIZE * cosLatitude
+                / Math.pow(2, level) * PIXEL_TOLERANCE;
+        int count = 0;
+        for (double significance : significances) {
+            if (significance >= tolerance) {
+                count++;
+            }
+        }
+        // The simplified tracks are nested, a level with the same number of
+        // locations has the same locations
+        for (int[] other : levels) {
+            if (other != null && other.length == count) {
+                levels.set(level, other);
+                return other;
+            }
+        }
+        indices = new int[count];
+        int k = 0;
+        for (int i = 0; i < significances.length; i++) {
+            if (significances[i] >= tolerance) {
+                indices[k++] = i;
+            }
+        }
+        levels.set(level, indices);
+        return indices;
+    }
+
+    /**
+     * Compute the significance of each location with the Douglas-Peucker
+     * algorithm. The locations are projected on a plane tangent to the first
+     * location, and the recursion is replaced by a stack to support long
+     * tracks.
+     */
+    private void computeSignificances() {
+        int[] valid = new int[track.size()];
+        int m = 0;
+        for (int i = 0; i < track.size(); i++) {
+            if (Double.isNaN(track.getLatitude(i))
+                    || Double.isNaN(track.getLongitude(i))) {
+                significances[i] = -1;
+            } else {
+                valid[m++] = i;
+                north = Math.max(north, track.getLatitude(i));
+                south = Math.min(south, track.getLatitude(i));
+                east = Math.max(east, track.getLongitude(i));
+                west = Math.min(west, track.getLongitude(i));
+            }
+        }
+        if (m == 0) {
+            return;
+        }
+
+        // Project the locations
+        double lat0 = track.getLatitude(valid[0]);
+        double lon0 = track.getLongitude(valid[0]);
+        cosLatitude = Math.cos(Math.toRadians(lat0));
+        double[] x = new double[m];
+        double[] y = new double[m];
+        for (int j = 0; j < m; j++) {
+            x[j] = Geodesy.EARTH_RADIUS * cosLatitude
+                    * Math.toRadians(track.getLongitude(valid[j]) - lon0);
+            y[j] = Geodesy.EARTH_RADIUS
+                    * Math.toRadians(track.getLatitude(valid[j]) - lat0);
+        }
+
+        // The end locations are always kept
+        significances[valid[0]] = Double.POSITIVE_INFINITY;
+        significances[valid[m - 1]] = Double.POSITIVE_INFINITY;
+
+        // Each range is split on its farthest location, whose significance is
+        // limited by the significance of the location splitting the parent
+        int[] starts = new int[m];
+        int[] ends = new int[m];
+        double[] caps = new double[m];
+        int top = 0;
+        starts[top] = 0;
+        ends[top] = m - 1;
+        caps[top++] = Double.POSITIVE_INFINITY;
+        while (top > 0) {
+            top--;
+            int a = starts[top];
+            int b = ends[top];
+            double cap = caps[top];
+            if (b - a < 2) {
+                continue;
+            }
+            int farthest = a + 1;
+            double maxDistance = -1;
+            for (int j = a + 1; j < b; j++) {
+                double distance = distanceToSegment(x[j], y[j],
+                        x[a], y[a], x[b], y[b]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = j;
+                }
+            }
+            double significance = Math.min(maxDistance, cap);
+            significances[valid[farthest]] = significance;
+            starts[top] = a;
+            ends[top] = farthest;
+            caps[top++] = significance;
+            starts[top] = farthest;
+            ends[top] = b;
+            caps[top++] = significance;
+        }
+    }
+
+    /**
+     * Compute the distance between a point and a segment on a plane.
+     *
+     * @param px X of the point
+     * @param py Y of the point
+     * @param ax X of the segment start
+     * @param ay Y of the segment start
+     * @param bx X of the segment end
+     * @param by Y of the segment end
+     * @return Distance
+     */
+    private static double distanceToSegment(final double px, final double py,
+                                            final double ax, final double ay,
+                                            final double bx,
+                                            final double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSquared > 0) {
+            t = ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+            t = Math.max(0, Math.min(1, t));
+        }
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+}
@@ -2,6 +2,7 @@ package com.alkisum.android.cloudrun.model;
 
 import org.greenrobot.greendao.annotation.Entity;
 import org.greenrobot.greendao.annotation.Id;
+import org.greenrobot.greendao.annotation.Index;
 import org.greenrobot.greendao.annotation.ToOne;
 import org.greenrobot.greendao.annotation.Generated;
 import org.greenrobot.greendao.DaoException;
@@ -23,6 +24,7 @@ public class DataPoint {
     private Double elevation;
 
     @NotNull
+    @Index(name = "IDX_DATA_POINT_SESSION_ID")
     private long sessionId;
 
     @ToOne(joinProperty = "sessionId")
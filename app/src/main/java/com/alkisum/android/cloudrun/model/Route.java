@@ -13,7 +13,6 @@ import org.greenrobot.greendao.annotation.Entity;
 import org.greenrobot.greendao.annotation.Generated;
 import org.greenrobot.greendao.annotation.Id;
 import org.greenrobot.greendao.annotation.ToMany;
-import org.greenrobot.greendao.annotation.Transient;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -27,9 +26,6 @@ public class Route implements Jsonable, Insertable, Deletable, Restorable {
 
     private String name;
 
-    @Transient
-    private boolean selected;
-
     @ToMany(referencedJoinProperty = "routeId")
     private List<Marker> markers;
 
@@ -67,14 +63,6 @@ public class Route implements Jsonable, Insertable, Deletable, Restorable {
         this.name = name;
     }
 
-    public boolean getSelected() {
-        return this.selected;
-    }
-
-    public void setSelected(boolean selected) {
-        this.selected = selected;
-    }
-
     /**
      * To-many relationship, resolved on first access (and after reset).
      * Changes to to-many relations are not persisted, make changes to the target entity.
@@ -8,17 +8,20 @@ import com.alkisum.android.cloudrun.interfaces.Jsonable;
 import com.alkisum.android.cloudrun.interfaces.Restorable;
 import com.alkisum.android.cloudrun.utils.Format;
 import com.alkisum.android.cloudrun.utils.Sessions;
+import com.alkisum.android.cloudrun.utils.Statistics;
 
 import org.greenrobot.greendao.DaoException;
 import org.greenrobot.greendao.annotation.Entity;
 import org.greenrobot.greendao.annotation.Generated;
 import org.greenrobot.greendao.annotation.Id;
+import org.greenrobot.greendao.annotation.Index;
 import org.greenrobot.greendao.annotation.NotNull;
 import org.greenrobot.greendao.annotation.ToMany;
 import org.greenrobot.greendao.annotation.Transient;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -29,6 +32,7 @@ public class Session implements Jsonable, Insertable, Deletable, Restorable {
     private Long id;
 
     @NotNull
+    @Index(name = "IDX_SESSION_START")
     private long start;
 
     private Long end;
@@ -37,12 +41,12 @@ public class Session implements Jsonable, Insertable, Deletable, Restorable {
 
     private Float distance;
 
-    @Transient
-    private boolean selected;
-
     @ToMany(referencedJoinProperty = "sessionId")
     private List<DataPoint> dataPoints;
 
+    @Transient
+    private byte[] trackData;
+
     /**
      * Convenient call for {@link org.greenrobot.greendao.AbstractDao#refresh(Object)}.
      * Entity must attached to an entity context.
@@ -153,14 +157,6 @@ public class Session implements Jsonable, Insertable, Deletable, Restorable {
         this.id = id;
     }
 
-    public boolean getSelected() {
-        return this.selected;
-    }
-
-    public void setSelected(boolean selected) {
-        this.selected = selected;
-    }
-
     public Long getDuration() {
         return this.duration;
     }
@@ -169,6 +165,14 @@ public class Session implements Jsonable, Insertable, Deletable, Restorable {
         this.duration = duration;
     }
 
+    public byte[] getTrackData() {
+        return this.trackData;
+    }
+
+    public void setTrackData(byte[] trackData) {
+        this.trackData = trackData;
+    }
+
     @Generated(hash = 1103544323)
     public Session(Long id, long start, Long end, Long duration, Float distance) {
         this.id = id;
@@ -219,15 +223,26 @@ public class Session implements Jsonable, Insertable, Deletable, Restorable {
 
     @Override
     public Deletable[] deleteEntities(Deletable... deletables) {
-        // get DAO
-        DataPointDao dataPointDao = Db.getInstance().getDaoSession()
-                .getDataPointDao();
+        // get DAOs
+        DaoSession daoSession = Db.getInstance().getDaoSession();
+        DataPointDao dataPointDao = daoSession.getDataPointDao();
+        SessionTrackDao sessionTrackDao = daoSession.getSessionTrackDao();
 
-        // delete selected sessions and datapoints
+        // delete selected sessions, datapoints and archived tracks, keeping
+        // the archived tracks in the sessions to restore them
+        List<Session> sessions = new ArrayList<>();
         for (Deletable deletable : deletables) {
-            dataPointDao.deleteInTx(((Session) deletable).getDataPoints());
-            ((Session) deletable).delete();
+            Session session = (Session) deletable;
+            dataPointDao.deleteInTx(session.getDataPoints());
+            SessionTrack sessionTrack = sessionTrackDao.load(session.getId());
+            if (sessionTrack != null) {
+                session.setTrackData(sessionTrack.getData());
+                sessionTrackDao.delete(sessionTrack);
+            }
+            session.delete();
+            sessions.add(session);
         }
+        Statistics.removeSessions(sessions);
         return deletables;
     }
 
@@ -238,10 +253,18 @@ public class Session implements Jsonable, Insertable, Deletable, Restorable {
         SessionDao sessionDao = daoSession.getSessionDao();
         DataPointDao dataPointDao = daoSession.getDataPointDao();
 
-        // restore sessions and datapoints
+        SessionTrackDao sessionTrackDao = daoSession.getSessionTrackDao();
+
+        // restore sessions, datapoints and archived tracks
         for (Restorable restorable : restorables) {
-            sessionDao.insert((Session) restorable);
-            dataPointDao.insertInTx(((Session) restorable).getDataPoints());
+            Session session = (Session) restorable;
+            sessionDao.insert(session);
+            dataPointDao.insertInTx(session.getDataPoints());
+            if (session.getTrackData() != null) {
+                sessionTrackDao.insert(new SessionTrack(session.getId(),
+                        session.getTrackData()));
+            }
+            Statistics.addSession(session);
         }
     }
 
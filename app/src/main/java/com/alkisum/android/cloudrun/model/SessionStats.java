@@ -0,0 +1,118 @@
+package com.alkisum.android.cloudrun.model;
+
+import org.greenrobot.greendao.annotation.Entity;
+import org.greenrobot.greendao.annotation.Id;
+import org.greenrobot.greendao.annotation.Index;
+import org.greenrobot.greendao.annotation.Keep;
+import org.greenrobot.greendao.annotation.NotNull;
+
+@Entity(indexes = {
+        @Index(value = "period,periodStart", unique = true)
+})
+public class SessionStats {
+
+    @Id(autoincrement = true)
+    private Long id;
+
+    @NotNull
+    private int period;
+
+    @NotNull
+    private long periodStart;
+
+    @NotNull
+    private int count;
+
+    @NotNull
+    private float distance;
+
+    @NotNull
+    private long duration;
+
+    private Long bestPace;
+
+    @NotNull
+    private float longestDistance;
+
+    @Keep
+    public SessionStats(Long id, int period, long periodStart, int count,
+            float distance, long duration, Long bestPace,
+            float longestDistance) {
+        this.id = id;
+        this.period = period;
+        this.periodStart = periodStart;
+        this.count = count;
+        this.distance = distance;
+        this.duration = duration;
+        this.bestPace = bestPace;
+        this.longestDistance = longestDistance;
+    }
+
+    @Keep
+    public SessionStats() {
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getPeriod() {
+        return this.period;
+    }
+
+    public void setPeriod(int period) {
+        this.period = period;
+    }
+
+    public long getPeriodStart() {
+        return this.periodStart;
+    }
+
+    public void setPeriodStart(long periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public float getDistance() {
+        return this.distance;
+    }
+
+    public void setDistance(float distance) {
+        this.distance = distance;
+    }
+
+    public long getDuration() {
+        return this.duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    public Long getBestPace() {
+        return this.bestPace;
+    }
+
+    public void setBestPace(Long bestPace) {
+        this.bestPace = bestPace;
+    }
+
+    public float getLongestDistance() {
+        return this.longestDistance;
+    }
+
+    public void setLongestDistance(float longestDistance) {
+        this.longestDistance = longestDistance;
+    }
+}
@@ -0,0 +1,42 @@
+package com.alkisum.android.cloudrun.model;
+
+import org.greenrobot.greendao.annotation.Entity;
+import org.greenrobot.greendao.annotation.Id;
+import org.greenrobot.greendao.annotation.Keep;
+import org.greenrobot.greendao.annotation.NotNull;
+
+@Entity
+public class SessionTrack {
+
+    @Id
+    private Long id;
+
+    @NotNull
+    private byte[] data;
+
+    @Keep
+    public SessionTrack(Long id, @NotNull byte[] data) {
+        this.id = id;
+        this.data = data;
+    }
+
+    @Keep
+    public SessionTrack() {
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public byte[] getData() {
+        return this.data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+}
@@ -21,14 +21,16 @@ import org.greenrobot.eventbus.ThreadMode;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Class starting download operation and subscribing to download events.
  *
  * @param <T> Jsonable
  * @author Alkisum
- * @version 4.0
+ * @version 4.2
  * @since 3.0
  */
 public class Downloader<T extends Jsonable> {
@@ -128,11 +130,16 @@ public class Downloader<T extends Jsonable> {
         }
         switch (event.getResult()) {
             case JsonFileReaderEvent.OK:
+                // file names of the entities already in the database, built
+                // once for all the downloaded files
+                Set<String> fileNamesInDb = new HashSet<>(
+                        Json.getJsonFileNames(jsonableClass));
+
                 // get JSON objects from reader
                 List<JSONObject> jsonObjects = new ArrayList<>();
                 for (JsonFile jsonFile : event.getJsonFiles()) {
                     if (Json.isFileNameValid(jsonFile, fileNameRegex)
-                            && !Json.isAlreadyInDb(jsonFile, jsonableClass)) {
+                            && !fileNamesInDb.contains(jsonFile.getName())) {
                         jsonObjects.add(jsonFile.getJsonObject());
                     }
                 }
@@ -0,0 +1,32 @@
+package com.alkisum.android.cloudrun.tasks;
+
+import android.os.AsyncTask;
+
+import com.alkisum.android.cloudrun.utils.Tracks;
+
+/**
+ * Class archiving the datapoints of the finished sessions that are still
+ * stored as rows, see {@link Tracks}. The first run after the upgrade can
+ * take long, so the task must be run with {@link #start()} rather than on
+ * the serial executor shared by the other tasks.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class Archiver extends AsyncTask<Void, Void, Void> {
+
+    /**
+     * Run the task on the thread pool, so that the tasks executed afterwards
+     * do not wait for the archiving to finish.
+     */
+    public final void start() {
+        executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    @Override
+    protected final Void doInBackground(final Void... params) {
+        Tracks.archiveAll();
+        return null;
+    }
+}
@@ -0,0 +1,266 @@
+package com.alkisum.android.cloudrun.tasks;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+
+import com.alkisum.android.cloudrun.database.Db;
+import com.alkisum.android.cloudrun.model.DataPoint;
+import com.alkisum.android.cloudrun.model.DataPointDao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class buffering the DataPoints recorded during a session and writing them
+ * into the database by batch on a background thread.
+ *
+ * The DataPoints are kept in a bounded buffer and flushed in a single
+ * transaction when the buffer is full, when {@link #FLUSH_DELAY} has elapsed
+ * since the first buffered DataPoint, or when {@link #flush()} is called. A
+ * batch of DataPoints added with {@link #addAll(List)} is written at once
+ * with the buffered ones.
+ * DataPoints can be added and flushed from any thread. When the DataPoints
+ * must be in the database before going on, {@link #flushAndWait()} and
+ * {@link #closeAndWait()} block until the writer thread has written them.
+ * Once closed, the writer ignores the DataPoints and the further calls.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+class DataPointWriter {
+
+    /**
+     * Log tag.
+     */
+    private static final String TAG = "DataPointWriter";
+
+    /**
+     * Maximum time in milliseconds to wait for the writer thread, kept well
+     * under the time after which a blocked main thread is reported as not
+     * responding.
+     */
+    private static final long WAIT_TIMEOUT = 2000;
+
+    /**
+     * Maximum number of DataPoints kept in the buffer before flushing.
+     */
+    private static final int BUFFER_SIZE = 32;
+
+    /**
+     * Maximum time in milliseconds a DataPoint can stay in the buffer.
+     */
+    private static final long FLUSH_DELAY = 30000;
+
+    /**
+     * Buffer storing the DataPoints waiting to be written.
+     */
+    private final DataPoint[] buffer = new DataPoint[BUFFER_SIZE];
+
+    /**
+     * Number of DataPoints currently stored in the buffer.
+     */
+    private int count;
+
+    /**
+     * Handler used for the flush delay.
+     */
+    private final Handler flushHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Thread writing the DataPoints into the database.
+     */
+    private final HandlerThread writerThread;
+
+    /**
+     * Handler for the writer thread.
+     */
+    private final Handler writerHandler;
+
+    /**
+     * Flag set to true when the writer is closed, false otherwise.
+     */
+    private boolean closed;
+
+    /**
+     * DataPointWriter constructor.
+     */
+    DataPointWriter() {
+        writerThread = new HandlerThread(
+                DataPointWriter.class.getSimpleName());
+        writerThread.start();
+        writerHandler = new Handler(writerThread.getLooper());
+    }
+
+    /**
+     * Add the given DataPoint to the buffer. The buffer is flushed if it is
+     * full.
+     *
+     * @param dataPoint DataPoint to add
+     */
+    final synchronized void add(final DataPoint dataPoint) {
+        if (closed) {
+            return;
+        }
+        buffer[count++] = dataPoint;
+        if (count == 1) {
+            flushHandler.postDelayed(flushTask, FLUSH_DELAY);
+        }
+        if (count == BUFFER_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Hand the buffered DataPoints and the given batch over to the writer
+     * thread, which inserts them in a single transaction.
+     *
+     * @param dataPoints DataPoints to write
+     */
+    final synchronized void addAll(final List<DataPoint> dataPoints) {
+        if (closed) {
+            return;
+        }
+        flushHandler.removeCallbacks(flushTask);
+        List<DataPoint> all = new ArrayList<>(count + dataPoints.size());
+        drain(all);
+        all.addAll(dataPoints);
+        write(all);
+    }
+
+    /**
+     * Hand the buffered DataPoints over to the writer thread, which inserts
+     * them in a single transaction.
+     */
+    final synchronized void flush() {
+        flushHandler.removeCallbacks(flushTask);
+        if (closed || count == 0) {
+            return;
+        }
+        List<DataPoint> dataPoints = new ArrayList<>(count);
+        drain(dataPoints);
+        write(dataPoints);
+    }
+
+    /**
+     * Flush the buffered DataPoints and wait until the writer thread has
+     * written them, along with the batches handed over before. Must not be
+     * called on the writer thread.
+     */
+    final void flushAndWait() {
+        CountDownLatch written = new CountDownLatch(1);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            flush();
+            if (!writerHandler.post(written::countDown)) {
+                // writer thread already stopped, nothing left to wait for
+                return;
+            }
+        }
+        await(written);
+    }
+
+    /**
+     * Move the buffered DataPoints to the given list.
+     *
+     * @param dataPoints List receiving the DataPoints
+     */
+    private void drain(final List<DataPoint> dataPoints) {
+        for (int i = 0; i < count; i++) {
+            dataPoints.add(buffer[i]);
+            buffer[i] = null;
+        }
+        count = 0;
+    }
+
+    /**
+     * Insert the given DataPoints in a single transaction on the writer
+     * thread.
+     *
+     * @param dataPoints DataPoints to insert
+     */
+    private void write(final List<DataPoint> dataPoints) {
+        if (dataPoints.isEmpty()) {
+            return;
+        }
+        writerHandler.post(() -> {
+            DataPointDao dao = Db.getInstance().getDaoSession()
+                    .getDataPointDao();
+            dao.insertInTx(dataPoints);
+        });
+    }
+
+    /**
+     * Flush the buffered DataPoints, run the given task once they are
+     * written, checkpoint the write-ahead log and stop the writer thread.
+     * Does nothing if the writer is already closed.
+     *
+     * @param lastTask Task to run on the writer thread after all the pending
+     *                 writes, null if none
+     */
+    final synchronized void close(final Runnable lastTask) {
+        if (closed) {
+            return;
+        }
+        flush();
+        flushHandler.removeCallbacksAndMessages(null);
+        if (lastTask != null) {
+            writerHandler.post(lastTask);
+        }
+        writerHandler.post(() -> Db.getInstance().checkpoint());
+        writerThread.quitSafely();
+        closed = true;
+    }
+
+    /**
+     * Flush the buffered DataPoints, wait until the writer thread has
+     * written them and stop the writer thread. Used when the process may be
+     * killed right after, so the DataPoints are not left in a queue. Does
+     * nothing if the writer is already closed. Must not be called on the
+     * writer thread.
+     */
+    final void closeAndWait() {
+        CountDownLatch written = new CountDownLatch(1);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            flush();
+            boolean posted = writerHandler.post(written::countDown);
+            close(null);
+            if (!posted) {
+                // writer thread already stopped, nothing left to wait for
+                return;
+            }
+        }
+        await(written);
+    }
+
+    /**
+     * Wait until the given latch is released by the writer thread, or the
+     * wait timeout has elapsed.
+     *
+     * @param written Latch released once the DataPoints are written
+     */
+    private static void await(final CountDownLatch written) {
+        try {
+            if (!written.await(WAIT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                Log.w(TAG, "DataPoints still not written after "
+                        + WAIT_TIMEOUT + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Task flushing the buffer when the flush delay has elapsed.
+     */
+    private final Runnable flushTask = this::flush;
+}
@@ -4,6 +4,7 @@ import android.os.AsyncTask;
 
 import com.alkisum.android.cloudrun.events.DeletedEvent;
 import com.alkisum.android.cloudrun.interfaces.Deletable;
+import com.alkisum.android.cloudrun.utils.ActiveMarkerCache;
 
 import org.greenrobot.eventbus.EventBus;
 
@@ -11,7 +12,7 @@ import org.greenrobot.eventbus.EventBus;
  * Class deleting the selected entities from the database.
  *
  * @author Alkisum
- * @version 4.0
+ * @version 4.2
  * @since 2.0
  */
 public class Deleter extends AsyncTask<Deletable, Void, Deletable[]> {
@@ -40,7 +41,10 @@ public class Deleter extends AsyncTask<Deletable, Void, Deletable[]> {
 
     @Override
     protected final Deletable[] doInBackground(final Deletable... deletables) {
-        return deletable.deleteEntities(deletables);
+        Deletable[] deletedEntities = deletable.deleteEntities(deletables);
+        // routes and markers might have been deleted
+        ActiveMarkerCache.getInstance().invalidate();
+        return deletedEntities;
     }
 
     @Override
@@ -0,0 +1,108 @@
+package com.alkisum.android.cloudrun.tasks;
+
+/**
+ * Immutable snapshot of the state of {@link SessionRecorder}. A new snapshot
+ * is published each time the state or the distance changes, it can be read
+ * from any thread without querying the database.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class RecorderState {
+
+    /**
+     * State constant when no session is recorded.
+     */
+    public static final int IDLE = 0;
+
+    /**
+     * State constant when the session is running.
+     */
+    public static final int RUNNING = 1;
+
+    /**
+     * State constant when the session is on pause.
+     */
+    public static final int PAUSED = 2;
+
+    /**
+     * Snapshot when no session is recorded.
+     */
+    static final RecorderState IDLE_STATE = new RecorderState(IDLE, 0, 0, 0);
+
+    /**
+     * Recorder state, see {@link #IDLE}, {@link #RUNNING} and
+     * {@link #PAUSED}.
+     */
+    private final int state;
+
+    /**
+     * Time in milliseconds the duration is counted from when the session is
+     * running: the start of the session shifted by the pauses.
+     */
+    private final long base;
+
+    /**
+     * Duration of the session when the snapshot was taken.
+     */
+    private final long duration;
+
+    /**
+     * Distance of the session in meters.
+     */
+    private final float distance;
+
+    /**
+     * RecorderState constructor.
+     *
+     * @param state    Recorder state
+     * @param base     Time the duration is counted from
+     * @param duration Duration of the session when the snapshot is taken
+     * @param distance Distance of the session in meters
+     */
+    RecorderState(final int state, final long base, final long duration,
+                  final float distance) {
+        this.state = state;
+        this.base = base;
+        this.duration = duration;
+        this.distance = distance;
+    }
+
+    /**
+     * @return Recorder state, see {@link #IDLE}, {@link #RUNNING} and
+     * {@link #PAUSED}
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * @return Time in milliseconds the duration is counted from when the
+     * session is running
+     */
+    public long getBase() {
+        return base;
+    }
+
+    /**
+     * Get the duration of the session at the given time. The duration does
+     * not change when the session is not running.
+     *
+     * @param now Current time in milliseconds
+     * @return Duration of the session
+     */
+    public long getDuration(final long now) {
+        if (state == RUNNING) {
+            return Math.max(0, now - base);
+        }
+        return duration;
+    }
+
+    /**
+     * @return Distance of the session in meters
+     */
+    public float getDistance() {
+        return distance;
+    }
+}
@@ -4,6 +4,7 @@ import android.os.AsyncTask;
 
 import com.alkisum.android.cloudrun.events.RestoredEvent;
 import com.alkisum.android.cloudrun.interfaces.Restorable;
+import com.alkisum.android.cloudrun.utils.ActiveMarkerCache;
 
 import org.greenrobot.eventbus.EventBus;
 
@@ -11,7 +12,7 @@ import org.greenrobot.eventbus.EventBus;
  * Class restoring the deleted entities in the database.
  *
  * @author Alkisum
- * @version 4.0
+ * @version 4.2
  * @since 3.0
  */
 public class Restorer extends AsyncTask<Restorable, Void, Void> {
@@ -33,6 +34,8 @@ public class Restorer extends AsyncTask<Restorable, Void, Void> {
     @Override
     protected final Void doInBackground(final Restorable... restorables) {
         restorable.restore(restorables);
+        // routes and markers might have been restored
+        ActiveMarkerCache.getInstance().invalidate();
         return null;
     }
 
@@ -1,28 +1,71 @@
 package com.alkisum.android.cloudrun.tasks;
 
+import android.content.Context;
 import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.preference.PreferenceManager;
+import android.util.Log;
 
 import com.alkisum.android.cloudrun.database.Db;
-import com.alkisum.android.cloudrun.events.CoordinateEvent;
-import com.alkisum.android.cloudrun.events.DistanceEvent;
 import com.alkisum.android.cloudrun.events.SessionActionEvent;
 import com.alkisum.android.cloudrun.location.Coordinate;
+import com.alkisum.android.cloudrun.location.LiveMetrics;
+import com.alkisum.android.cloudrun.location.LiveMetricsBus;
 import com.alkisum.android.cloudrun.model.DataPoint;
-import com.alkisum.android.cloudrun.model.DataPointDao;
 import com.alkisum.android.cloudrun.model.Session;
 import com.alkisum.android.cloudrun.model.SessionDao;
+import com.alkisum.android.cloudrun.utils.Pref;
+import com.alkisum.android.cloudrun.utils.Statistics;
+import com.alkisum.android.cloudrun.utils.Tracks;
 
 import org.greenrobot.eventbus.EventBus;
 import org.greenrobot.eventbus.Subscribe;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * Class recording GPS data.
+ * Class recording GPS data. The live metrics are received on the location
+ * thread. The session actions, the duration task and the periodic session
+ * writes run on the recorder thread, so that no database write is done on
+ * the main thread. The listener is always called on the main thread. The
+ * current state is also published as a {@link RecorderState} snapshot
+ * readable from any thread.
  *
  * @author Alkisum
- * @version 4.0
+ * @version 4.2
  * @since 1.0
  */
-public class SessionRecorder {
+public class SessionRecorder implements LiveMetricsBus.Observer {
+
+    /**
+     * Log tag.
+     */
+    private static final String TAG = "SessionRecorder";
+
+    /**
+     * Default interval in seconds between two writes of the session into the
+     * database.
+     */
+    public static final int SAVE_INTERVAL_DEFAULT = 10;
+
+    /**
+     * Maximum time in milliseconds to wait for the pending session actions
+     * when the recorder is destroyed.
+     */
+    private static final long WAIT_TIMEOUT = 2000;
+
+    /**
+     * Last snapshot published by the recorder.
+     */
+    private static volatile RecorderState currentState =
+            RecorderState.IDLE_STATE;
+
+    /**
+     * Recorder of the session in progress, null if no session is recorded.
+     */
+    private static volatile SessionRecorder activeRecorder;
 
     /**
      * Listener for recorder.
@@ -40,9 +83,24 @@ public class SessionRecorder {
     private Session session;
 
     /**
-     * Handler for duration task.
+     * Thread running the session actions and the duration task.
      */
-    private final Handler durationHandler = new Handler();
+    private final HandlerThread recorderThread;
+
+    /**
+     * Handler for the recorder thread.
+     */
+    private final Handler recorderHandler;
+
+    /**
+     * Handler used to call the listener on the main thread.
+     */
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Writer buffering the DataPoints before inserting them by batch.
+     */
+    private final DataPointWriter dataPointWriter = new DataPointWriter();
 
     /**
      * Time when the pause started.
@@ -59,15 +117,53 @@ public class SessionRecorder {
      */
     private boolean running;
 
+    /**
+     * Current duration of the session, written into the database at the save
+     * interval only.
+     */
+    private long duration;
+
+    /**
+     * Current distance of the session, written into the database at the save
+     * interval only.
+     */
+    private float distance;
+
+    /**
+     * Interval in milliseconds between two writes of the session into the
+     * database.
+     */
+    private final long saveInterval;
+
+    /**
+     * Time of the last write of the session into the database.
+     */
+    private long lastSaveTime;
+
+    /**
+     * Number of session writes avoided by keeping the values in memory.
+     */
+    private int skippedWrites;
+
     /**
      * SessionRecorder constructor.
      *
+     * @param context  Context
      * @param callback SessionRecorder listener
      */
-    public SessionRecorder(final RecorderListener callback) {
+    public SessionRecorder(final Context context,
+                           final RecorderListener callback) {
         this.callback = callback;
+        recorderThread = new HandlerThread(
+                SessionRecorder.class.getSimpleName());
+        recorderThread.start();
+        recorderHandler = new Handler(recorderThread.getLooper());
+        saveInterval = PreferenceManager.getDefaultSharedPreferences(context)
+                .getInt(Pref.SESSION_SAVE_INTERVAL, SAVE_INTERVAL_DEFAULT)
+                * 1000L;
         eventBus = EventBus.getDefault();
         eventBus.register(this);
+        LiveMetricsBus.getDefault().register(this);
     }
 
     /**
@@ -81,10 +177,13 @@ public class SessionRecorder {
         SessionDao sessionDao = Db.getInstance().getDaoSession()
                 .getSessionDao();
         sessionDao.insert(session);
+        lastSaveTime = System.currentTimeMillis();
 
-        durationHandler.postDelayed(durationTask, 1000);
+        recorderHandler.postDelayed(durationTask, 1000);
 
         running = true;
+        activeRecorder = this;
+        publishState();
     }
 
     /**
@@ -92,8 +191,10 @@ public class SessionRecorder {
      */
     private void resume() {
         pauseDuration += System.currentTimeMillis() - pauseStart;
-        durationHandler.postDelayed(durationTask, 1000);
+        recorderHandler.postDelayed(durationTask, 1000);
         running = true;
+        saveSession();
+        publishState();
     }
 
     /**
@@ -101,46 +202,169 @@ public class SessionRecorder {
      */
     private void pause() {
         running = false;
-        durationHandler.removeCallbacks(durationTask);
+        recorderHandler.removeCallbacks(durationTask);
         pauseStart = System.currentTimeMillis();
+        updateDuration();
+        saveSession();
+        dataPointWriter.flush();
+        publishState();
     }
 
     /**
      * Stop recording: update current session.
      */
     private void stop() {
+        if (running) {
+            updateDuration();
+        }
         running = false;
+        currentState = RecorderState.IDLE_STATE;
+        activeRecorder = null;
 
-        eventBus.unregister(this);
-        durationHandler.removeCallbacks(durationTask);
+        LiveMetricsBus.getDefault().unregister(this);
+        recorderHandler.removeCallbacks(durationTask);
 
         session.setEnd(System.currentTimeMillis());
+        saveSession();
+        Statistics.addSession(session);
+        final long sessionId = session.getId();
+        dataPointWriter.close(() -> Tracks.archive(sessionId));
+        recorderThread.quitSafely();
+        uiHandler.post(() -> callback.onSessionStopped(sessionId));
+        Log.i(TAG, "Session writes skipped: " + skippedWrites);
+    }
+
+    /**
+     * Compute the current duration from the start and the pauses.
+     */
+    private void updateDuration() {
+        duration = System.currentTimeMillis() - session.getStart()
+                - pauseDuration;
+    }
+
+    /**
+     * Publish a new snapshot of the current state.
+     */
+    private void publishState() {
+        int state = RecorderState.PAUSED;
+        if (running) {
+            state = RecorderState.RUNNING;
+        }
+        currentState = new RecorderState(state,
+                session.getStart() + pauseDuration, duration, distance);
+    }
+
+    /**
+     * Write the current duration and distance of the session into the
+     * database.
+     */
+    private void saveSession() {
+        session.setDuration(duration);
+        session.setDistance(distance);
         session.update();
+        lastSaveTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Write the session into the database if the save interval has elapsed
+     * since the last write, otherwise count the write as skipped.
+     */
+    private void saveSessionIfDue() {
+        if (System.currentTimeMillis() - lastSaveTime >= saveInterval) {
+            saveSession();
+        } else {
+            skippedWrites++;
+        }
     }
 
     /**
-     * Task to increment the duration and update the value in the database.
+     * Hand the buffered DataPoints over to the writer thread without waiting
+     * for them to be written, the DataPoints are also written when the
+     * recorder is destroyed.
+     */
+    public final void flush() {
+        dataPointWriter.flush();
+    }
+
+    /**
+     * Called when the activity owning the recorder is destroyed. Publish the
+     * idle state, wait for the pending session actions to run on the
+     * recorder thread, so that a pending stop still archives the session,
+     * then write the buffered DataPoints into the database and wait until
+     * they are written before releasing the writer.
+     */
+    public final void onDestroy() {
+        synchronized (this) {
+            currentState = RecorderState.IDLE_STATE;
+            if (activeRecorder == this) {
+                activeRecorder = null;
+            }
+            LiveMetricsBus.getDefault().unregister(this);
+        }
+        recorderHandler.removeCallbacks(durationTask);
+        recorderThread.quitSafely();
+        try {
+            recorderThread.join(WAIT_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dataPointWriter.closeAndWait();
+    }
+
+    /**
+     * Write the buffered DataPoints of the session in progress into the
+     * database and wait until they are written, so that the track loaded
+     * right after is complete. Does nothing if no session is recorded. Must
+     * not be called on the main thread, see {@link TrackLoader}.
+     */
+    public static void flushActiveSession() {
+        SessionRecorder recorder = activeRecorder;
+        if (recorder != null) {
+            recorder.dataPointWriter.flushAndWait();
+        }
+    }
+
+    /**
+     * Task to increment the duration and update the value in the database
+     * when the save interval has elapsed.
      */
     private final Runnable durationTask = new Runnable() {
         @Override
         public void run() {
-            durationHandler.postDelayed(this, 1000);
-            long newDuration = System.currentTimeMillis() - session.getStart()
-                    - pauseDuration;
-            session.setDuration(newDuration);
-            session.update();
-            callback.onDurationUpdated(newDuration);
+            synchronized (SessionRecorder.this) {
+                recorderHandler.postDelayed(this, 1000);
+                updateDuration();
+                final long newDuration = duration;
+                uiHandler.post(() -> callback.onDurationUpdated(newDuration));
+                saveSessionIfDue();
+            }
         }
     };
 
     /**
-     * Called when a session action has been performed.
+     * Called when a session action has been performed. The action is run on
+     * the recorder thread. The recorder stops receiving the actions as soon
+     * as the session is stopped, so that the actions of the next session do
+     * not reach it while the stop is pending.
      *
      * @param event Session action event
      */
     @Subscribe
     public final void onSessionActionEvent(final SessionActionEvent event) {
-        switch (event.getAction()) {
+        final String action = event.getAction();
+        if (SessionActionEvent.STOP.equals(action)) {
+            eventBus.unregister(this);
+        }
+        recorderHandler.post(() -> runAction(action));
+    }
+
+    /**
+     * Run the given session action, called on the recorder thread.
+     *
+     * @param action Session action
+     */
+    private synchronized void runAction(final String action) {
+        switch (action) {
             case SessionActionEvent.START:
                 start();
                 break;
@@ -159,54 +383,83 @@ public class SessionRecorder {
     }
 
     /**
-     * Triggered when a new distance is calculated. Add distance to session.
+     * Called on the location thread for each live metrics snapshot. Add the
+     * distance to the session and buffer the DataPoints to be inserted into
+     * the database, the DataPoints of a batch are written in one transaction.
      *
-     * @param event Distance event
+     * @param metrics Live metrics snapshot
      */
-    @Subscribe
-    public final void onDistanceEvent(final DistanceEvent event) {
+    @Override
+    public final synchronized void onLiveMetrics(final LiveMetrics metrics) {
         if (!running) {
             return;
         }
-        Float currentDistance = session.getDistance();
-        float newDistance = currentDistance + event.getValue();
-        session.setDistance(newDistance);
-        session.update();
-        callback.onDistanceUpdated(newDistance);
+        if (metrics.isMeasured()) {
+            distance += metrics.getDistance();
+            publishState();
+            final float newDistance = distance;
+            uiHandler.post(() -> callback.onDistanceUpdated(newDistance));
+            skippedWrites++;
+        }
+        if (metrics.isBatch()) {
+            List<DataPoint> dataPoints = new ArrayList<>(
+                    metrics.getCoordinates().size());
+            for (Coordinate c : metrics.getCoordinates()) {
+                dataPoints.add(toDataPoint(c));
+            }
+            dataPointWriter.addAll(dataPoints);
+        } else {
+            dataPointWriter.add(toDataPoint(metrics.getCoordinate()));
+        }
     }
 
     /**
-     * Triggered when new coordinates are received. Insert the data into the
-     * database.
+     * Create the DataPoint of the given coordinate for the current session.
      *
-     * @param event Coordinate event
+     * @param c Coordinate
+     * @return DataPoint
      */
-    @Subscribe
-    public final void onCoordinateEvent(final CoordinateEvent event) {
-        if (!running) {
-            return;
-        }
-        Coordinate c = event.getValues();
-        DataPoint dataPoint = new DataPoint(null, c.getTime(),
-                c.getLatitude(), c.getLongitude(), c.getElevation(),
-                session.getId());
-        DataPointDao dataPointDao = Db.getInstance().getDaoSession()
-                .getDataPointDao();
-        dataPointDao.insert(dataPoint);
+    private DataPoint toDataPoint(final Coordinate c) {
+        return new DataPoint(null, c.getTime(), c.getLatitude(),
+                c.getLongitude(), c.getElevation(), session.getId());
+    }
+
+    /**
+     * @return true if the session is running (not paused nor stopped), false
+     * otherwise
+     */
+    public final synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return Last snapshot published by the recorder, the idle snapshot if
+     * no session is recorded
+     */
+    public static RecorderState getCurrentState() {
+        return currentState;
     }
 
     /**
      * @return Session instance
      */
-    public final Session getSession() {
+    public final synchronized Session getSession() {
         return session;
     }
 
     /**
      * @return Current session's duration
      */
-    public final long getCurrentDuration() {
-        return session.getDuration();
+    public final synchronized long getCurrentDuration() {
+        return duration;
+    }
+
+    /**
+     * @return Number of session writes avoided by keeping the values in
+     * memory
+     */
+    public final synchronized int getSkippedWrites() {
+        return skippedWrites;
     }
 
     /**
@@ -227,5 +480,13 @@ public class SessionRecorder {
          * @param distance New distance.
          */
         void onDistanceUpdated(float distance);
+
+        /**
+         * Called when the session has been stopped and written into the
+         * database.
+         *
+         * @param sessionId Id of the stopped session
+         */
+        void onSessionStopped(long sessionId);
     }
 }
@@ -0,0 +1,59 @@
+package com.alkisum.android.cloudrun.tasks;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.AsyncTask;
+import android.preference.PreferenceManager;
+
+import com.alkisum.android.cloudrun.database.Db;
+import com.alkisum.android.cloudrun.events.StatsRebuiltEvent;
+import com.alkisum.android.cloudrun.utils.Pref;
+import com.alkisum.android.cloudrun.utils.Statistics;
+
+import org.greenrobot.eventbus.EventBus;
+
+/**
+ * Class rebuilding the statistics when the rule splitting the time into
+ * periods has changed since they were computed, see
+ * {@link Statistics#getPeriodRule()}. The statistics are also built here
+ * after the statistics table has been created, no rule being stored then.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class StatsRebuilder extends AsyncTask<Void, Void, Boolean> {
+
+    /**
+     * Shared preferences storing the rule of the statistics.
+     */
+    private final SharedPreferences sharedPref;
+
+    /**
+     * StatsRebuilder constructor.
+     *
+     * @param context Context
+     */
+    public StatsRebuilder(final Context context) {
+        sharedPref = PreferenceManager.getDefaultSharedPreferences(context);
+    }
+
+    @Override
+    protected final Boolean doInBackground(final Void... params) {
+        String rule = Statistics.getPeriodRule();
+        if (rule.equals(sharedPref.getString(Pref.STATS_PERIOD_RULE,
+                null))) {
+            return false;
+        }
+        Statistics.rebuild(Db.getInstance().getDaoSession());
+        sharedPref.edit().putString(Pref.STATS_PERIOD_RULE, rule).apply();
+        return true;
+    }
+
+    @Override
+    protected final void onPostExecute(final Boolean rebuilt) {
+        if (rebuilt) {
+            EventBus.getDefault().post(new StatsRebuiltEvent());
+        }
+    }
+}
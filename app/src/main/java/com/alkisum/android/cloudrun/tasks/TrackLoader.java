@@ -0,0 +1,48 @@
+package com.alkisum.android.cloudrun.tasks;
+
+import android.os.AsyncTask;
+
+import com.alkisum.android.cloudrun.events.TrackLoadedEvent;
+import com.alkisum.android.cloudrun.location.Track;
+import com.alkisum.android.cloudrun.model.Session;
+import com.alkisum.android.cloudrun.utils.Tracks;
+
+import org.greenrobot.eventbus.EventBus;
+
+/**
+ * Class loading the track of a session in the background. The DataPoints
+ * still buffered by the recorder are written first, so that the track of the
+ * session in progress is complete.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class TrackLoader extends AsyncTask<Void, Void, Track> {
+
+    /**
+     * Session to load the track from.
+     */
+    private final Session session;
+
+    /**
+     * TrackLoader constructor.
+     *
+     * @param session Session to load the track from
+     */
+    public TrackLoader(final Session session) {
+        this.session = session;
+    }
+
+    @Override
+    protected final Track doInBackground(final Void... params) {
+        SessionRecorder.flushActiveSession();
+        return Tracks.load(session);
+    }
+
+    @Override
+    protected final void onPostExecute(final Track track) {
+        EventBus.getDefault().post(new TrackLoadedEvent(session.getId(),
+                track));
+    }
+}
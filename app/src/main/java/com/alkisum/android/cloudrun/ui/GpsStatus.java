@@ -2,24 +2,26 @@ package com.alkisum.android.cloudrun.ui;
 
 import android.content.Context;
 import android.os.Handler;
+import android.os.SystemClock;
 
 import com.alkisum.android.cloudrun.R;
-import com.alkisum.android.cloudrun.events.CoordinateEvent;
 import com.alkisum.android.cloudrun.events.GpsStatusEvent;
+import com.alkisum.android.cloudrun.location.LiveMetrics;
+import com.alkisum.android.cloudrun.location.LiveMetricsBus;
 import com.alkisum.android.cloudrun.location.LocationHelper;
+import com.alkisum.android.cloudrun.location.LocationProfile;
 import com.alkisum.android.cloudrun.location.LocationUtils;
 
 import org.greenrobot.eventbus.EventBus;
-import org.greenrobot.eventbus.Subscribe;
 
 /**
  * Class to handle the GPS status view show on toolbars.
  *
  * @author Alkisum
- * @version 4.0
+ * @version 4.2
  * @since 3.0
  */
-public class GpsStatus {
+public class GpsStatus implements LiveMetricsBus.Observer {
 
     /**
      * Context.
@@ -32,9 +34,10 @@ public class GpsStatus {
     private final Handler gpsStatusHandler = new Handler();
 
     /**
-     * Flag set to true when new GPS data has been received, false otherwise.
+     * Time in milliseconds since boot when the last GPS data has been
+     * received, 0 if none.
      */
-    private boolean newGpsDataReceived;
+    private volatile long lastGpsDataTime;
 
     /**
      * EventBus instance.
@@ -60,7 +63,7 @@ public class GpsStatus {
      * Start monitoring GPS to get status.
      */
     public final void start() {
-        eventBus.register(this);
+        LiveMetricsBus.getDefault().register(this);
         gpsStatusHandler.postDelayed(gpsStatusTask,
                 LocationHelper.LOCATION_REQUEST_INTERVAL * 2);
     }
@@ -70,7 +73,7 @@ public class GpsStatus {
      */
     public final void stop() {
         gpsStatusHandler.removeCallbacks(gpsStatusTask);
-        eventBus.unregister(this);
+        LiveMetricsBus.getDefault().unregister(this);
     }
 
     /**
@@ -83,19 +86,22 @@ public class GpsStatus {
                     LocationHelper.LOCATION_REQUEST_INTERVAL * 2);
             lastIcon = getIcon();
             eventBus.post(new GpsStatusEvent(lastIcon));
-            newGpsDataReceived = false;
         }
     };
 
     /**
-     * Check GPS status and return GPS status icon accordingly.
+     * Check GPS status and return GPS status icon accordingly. The GPS is
+     * fixed if GPS data has been received within the status timeout of the
+     * current location profile, see {@link LocationProfile#getStatusTimeout()}.
      *
      * @return Drawable id
      */
     private int getIcon() {
         if (!LocationUtils.isLocationEnabled(context)) {
             return R.drawable.ic_gps_off_white_24dp;
-        } else if (newGpsDataReceived) {
+        } else if (lastGpsDataTime != 0
+                && SystemClock.elapsedRealtime() - lastGpsDataTime
+                <= LocationHelper.getCurrentProfile().getStatusTimeout()) {
             return R.drawable.ic_gps_fixed_white_24dp;
         } else {
             return R.drawable.ic_gps_not_fixed_white_24dp;
@@ -110,12 +116,12 @@ public class GpsStatus {
     }
 
     /**
-     * Triggered when new coordinates are received.
+     * Called on the location thread when new coordinates are received.
      *
-     * @param event Coordinate event
+     * @param metrics Live metrics snapshot
      */
-    @Subscribe
-    public final void onCoordinateEvent(final CoordinateEvent event) {
-        newGpsDataReceived = true;
+    @Override
+    public final void onLiveMetrics(final LiveMetrics metrics) {
+        lastGpsDataTime = SystemClock.elapsedRealtime();
     }
 }
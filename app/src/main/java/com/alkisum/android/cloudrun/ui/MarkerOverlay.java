@@ -0,0 +1,395 @@
+package com.alkisum.android.cloudrun.ui;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.graphics.drawable.Drawable;
+
+import com.alkisum.android.cloudrun.R;
+import com.alkisum.android.cloudrun.model.Marker;
+
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.overlay.ItemizedIconOverlay;
+import org.osmdroid.views.overlay.OverlayItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import androidx.core.content.ContextCompat;
+
+/**
+ * Single overlay showing a list of markers with a shared drawable. The
+ * markers closer to each other than the size of the drawable at the current
+ * zoom level are grouped into one cluster item, drawn with the number of
+ * markers it contains. Tapping a cluster zooms in on it. The items are only
+ * built for all the markers when the zoom level changes, a change of the
+ * markers only updates the items of the cells it affects.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class MarkerOverlay extends ItemizedIconOverlay<OverlayItem> {
+
+    /**
+     * Size of the world in pixels at zoom level 0.
+     */
+    private static final double WORLD_SIZE = 256;
+
+    /**
+     * Number of zoom levels added when tapping a cluster.
+     */
+    private static final double CLUSTER_ZOOM_STEP = 2;
+
+    /**
+     * Listener notified when a marker is pressed, null if none.
+     */
+    private final Listener listener;
+
+    /**
+     * Size of the clustering cells in pixels, the width of the drawable.
+     */
+    private final int cellSize;
+
+    /**
+     * Height of the drawable in pixels.
+     */
+    private final int drawableHeight;
+
+    /**
+     * Paint of the count badge of the clusters.
+     */
+    private final Paint badgePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    /**
+     * Paint of the count drawn in the badge.
+     */
+    private final Paint countPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    /**
+     * Markers shown by the overlay, by marker ID.
+     */
+    private Map<Long, Marker> markers = new LinkedHashMap<>();
+
+    /**
+     * Markers of each cell of the pixel grid at the current zoom level, by
+     * cell key.
+     */
+    private final Map<Long, List<Marker>> cells = new LinkedHashMap<>();
+
+    /**
+     * Item of each cell, by cell key.
+     */
+    private final Map<Long, OverlayItem> cellItems = new HashMap<>();
+
+    /**
+     * Cell key of each item.
+     */
+    private final Map<OverlayItem, Long> itemCells = new HashMap<>();
+
+    /**
+     * Zoom level the items have been built for, -1 if not built yet.
+     */
+    private int level = -1;
+
+    /**
+     * MarkerOverlay constructor.
+     *
+     * @param context  Context
+     * @param listener Listener notified when a marker is pressed, null if
+     *                 none
+     */
+    public MarkerOverlay(final Context context, final Listener listener) {
+        this(context, listener, ContextCompat.getDrawable(context,
+                R.drawable.ic_place_red_24dp));
+    }
+
+    /**
+     * MarkerOverlay constructor.
+     *
+     * @param context  Context
+     * @param listener Listener notified when a marker is pressed, null if
+     *                 none
+     * @param drawable Drawable shared by all the items
+     */
+    private MarkerOverlay(final Context context, final Listener listener,
+                          final Drawable drawable) {
+        super(new ArrayList<>(), drawable, null, context);
+        this.listener = listener;
+        this.cellSize = Math.max(1, drawable.getIntrinsicWidth());
+        this.drawableHeight = drawable.getIntrinsicHeight();
+        badgePaint.setColor(ContextCompat.getColor(context,
+                R.color.primaryDark));
+        countPaint.setColor(ContextCompat.getColor(context,
+                android.R.color.white));
+        countPaint.setTextAlign(Paint.Align.CENTER);
+        countPaint.setFakeBoldText(true);
+        countPaint.setTextSize(cellSize / 3f);
+    }
+
+    /**
+     * Set the markers to show. The markers are matched with the ones shown
+     * by their ID, only the items of the cells where a marker has been
+     * added, moved or removed are built again.
+     *
+     * @param newMarkers Markers to show
+     */
+    public final void setMarkers(final List<Marker> newMarkers) {
+        Map<Long, Marker> newMap = new LinkedHashMap<>();
+        for (Marker marker : newMarkers) {
+            newMap.put(marker.getId(), marker);
+        }
+        if (level < 0) {
+            // items built on the next draw
+            markers = newMap;
+            return;
+        }
+
+        Set<Long> changedCells = new HashSet<>();
+        for (Marker old : markers.values()) {
+            Marker marker = newMap.get(old.getId());
+            if (marker == null || isMoved(old, marker)) {
+                changedCells.add(removeFromCell(old));
+            }
+        }
+        for (Marker marker : newMap.values()) {
+            Marker old = markers.get(marker.getId());
+            if (old == null || isMoved(old, marker)) {
+                changedCells.add(addToCell(marker));
+            } else if (old != marker) {
+                // same position, the item is kept
+                List<Marker> cell = cells.get(getCellKey(old));
+                cell.set(cell.indexOf(old), marker);
+            }
+        }
+        markers = newMap;
+        for (long key : changedCells) {
+            updateItem(key);
+        }
+    }
+
+    @Override
+    public final void draw(final Canvas canvas, final MapView mapView,
+                           final boolean shadow) {
+        int newLevel = (int) Math.floor(mapView.getZoomLevelDouble());
+        if (newLevel != level) {
+            level = newLevel;
+            buildItems();
+        }
+        super.draw(canvas, mapView, shadow);
+    }
+
+    @Override
+    protected final boolean onDrawItem(final Canvas canvas,
+                                       final OverlayItem item,
+                                       final Point curScreenCoords,
+                                       final MapView mapView) {
+        boolean drawn = super.onDrawItem(canvas, item, curScreenCoords,
+                mapView);
+        List<Marker> cell = cells.get(itemCells.get(item));
+        if (drawn && cell != null && cell.size() > 1) {
+            // badge on the top right corner of the drawable, which is drawn
+            // above its bottom center hotspot
+            float radius = cellSize / 4f;
+            float x = curScreenCoords.x + radius;
+            float y = curScreenCoords.y - drawableHeight + radius;
+            canvas.drawCircle(x, y, radius, badgePaint);
+            canvas.drawText(String.valueOf(cell.size()), x,
+                    y - (countPaint.ascent() + countPaint.descent()) / 2,
+                    countPaint);
+        }
+        return drawn;
+    }
+
+    /**
+     * Build the items of all the markers for the current zoom level,
+     * grouping the markers lying in the same cell of the pixel grid.
+     */
+    private void buildItems() {
+        cells.clear();
+        cellItems.clear();
+        itemCells.clear();
+        for (Marker marker : markers.values()) {
+            addToCell(marker);
+        }
+        List<OverlayItem> items = new ArrayList<>(cells.size());
+        for (Map.Entry<Long, List<Marker>> entry : cells.entrySet()) {
+            OverlayItem item = buildItem(entry.getValue());
+            cellItems.put(entry.getKey(), item);
+            itemCells.put(item, entry.getKey());
+            items.add(item);
+        }
+        removeAllItems(false);
+        addItems(items);
+    }
+
+    /**
+     * Replace the item of the given cell by a new item built from the
+     * markers of the cell, or remove it if the cell is empty. The item keeps
+     * its position in the list, the other items are not changed.
+     *
+     * @param key Cell key
+     */
+    private void updateItem(final long key) {
+        int index = size();
+        OverlayItem old = cellItems.remove(key);
+        if (old != null) {
+            itemCells.remove(old);
+            index = mItemList.indexOf(old);
+            removeItem(index);
+        }
+        List<Marker> cell = cells.get(key);
+        if (cell == null || cell.isEmpty()) {
+            cells.remove(key);
+            return;
+        }
+        OverlayItem item = buildItem(cell);
+        cellItems.put(key, item);
+        itemCells.put(item, key);
+        addItem(index, item);
+    }
+
+    /**
+     * Build the item of the given markers, a cluster item at their mean
+     * position if there are several markers.
+     *
+     * @param cell Markers of a cell
+     * @return Item
+     */
+    private static OverlayItem buildItem(final List<Marker> cell) {
+        if (cell.size() == 1) {
+            Marker marker = cell.get(0);
+            return new OverlayItem(String.valueOf(marker.getId()), "", "",
+                    new GeoPoint(marker.getLatitude(),
+                            marker.getLongitude()));
+        }
+        double latitude = 0;
+        double longitude = 0;
+        for (Marker marker : cell) {
+            latitude += marker.getLatitude();
+            longitude += marker.getLongitude();
+        }
+        return new OverlayItem(null, String.valueOf(cell.size()), "",
+                new GeoPoint(latitude / cell.size(),
+                        longitude / cell.size()));
+    }
+
+    /**
+     * Add the given marker to its cell.
+     *
+     * @param marker Marker to add
+     * @return Key of the cell
+     */
+    private long addToCell(final Marker marker) {
+        long key = getCellKey(marker);
+        List<Marker> cell = cells.get(key);
+        if (cell == null) {
+            cell = new ArrayList<>();
+            cells.put(key, cell);
+        }
+        cell.add(marker);
+        return key;
+    }
+
+    /**
+     * Remove the given marker from its cell.
+     *
+     * @param marker Marker to remove, the instance added to the cell
+     * @return Key of the cell
+     */
+    private long removeFromCell(final Marker marker) {
+        long key = getCellKey(marker);
+        List<Marker> cell = cells.get(key);
+        if (cell != null) {
+            cell.remove(marker);
+        }
+        return key;
+    }
+
+    /**
+     * Get the key of the cell of the pixel grid containing the given marker
+     * at the current zoom level.
+     *
+     * @param marker Marker
+     * @return Cell key
+     */
+    private long getCellKey(final Marker marker) {
+        double worldSize = WORLD_SIZE * Math.pow(2, level);
+        double x = (marker.getLongitude() + 180) / 360 * worldSize;
+        double sinLat = Math.sin(Math.toRadians(marker.getLatitude()));
+        double y = (0.5 - Math.log((1 + sinLat) / (1 - sinLat))
+                / (4 * Math.PI)) * worldSize;
+        return ((long) (x / cellSize) << 32)
+                | ((long) (y / cellSize) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param old    Marker shown
+     * @param marker New version of the marker
+     * @return true if the new version of the marker has another position
+     */
+    private static boolean isMoved(final Marker old, final Marker marker) {
+        return !old.getLatitude().equals(marker.getLatitude())
+                || !old.getLongitude().equals(marker.getLongitude());
+    }
+
+    @Override
+    protected final boolean onSingleTapUpHelper(final int index,
+                                                final OverlayItem item,
+                                                final MapView mapView) {
+        List<Marker> cell = cells.get(itemCells.get(item));
+        if (cell == null) {
+            return false;
+        }
+        if (cell.size() > 1) {
+            // zoom in on the cluster
+            mapView.getController().setZoom(
+                    mapView.getZoomLevelDouble() + CLUSTER_ZOOM_STEP);
+            mapView.getController().setCenter(item.getPoint());
+            return true;
+        }
+        if (listener != null) {
+            listener.onMarkerSingleTapUp(cell.get(0));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected final boolean onLongPressHelper(final int index,
+                                              final OverlayItem item) {
+        List<Marker> cell = cells.get(itemCells.get(item));
+        if (cell != null && cell.size() == 1 && listener != null) {
+            listener.onMarkerLongPress(cell.get(0));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Listener notified when a marker is pressed.
+     */
+    public interface Listener {
+
+        /**
+         * Called when a marker is tapped.
+         *
+         * @param marker Tapped marker
+         */
+        void onMarkerSingleTapUp(Marker marker);
+
+        /**
+         * Called when a marker is pressed long.
+         *
+         * @param marker Pressed marker
+         */
+        void onMarkerLongPress(Marker marker);
+    }
+}
@@ -0,0 +1,162 @@
+package com.alkisum.android.cloudrun.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import com.alkisum.android.cloudrun.location.LocationProcessor;
+import com.alkisum.android.cloudrun.location.MarkerIndex;
+import com.alkisum.android.cloudrun.model.Marker;
+import com.alkisum.android.cloudrun.model.Route;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Singleton class caching the active routes and their markers. The cache is
+ * loaded on first access and invalidated when the active routes preference
+ * changes or when routes and markers are inserted, updated, deleted or
+ * restored. Once loaded, reading the cache does not access the database or
+ * the preferences.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class ActiveMarkerCache implements
+        SharedPreferences.OnSharedPreferenceChangeListener,
+        LocationProcessor.MarkerSource {
+
+    /**
+     * ActiveMarkerCache instance.
+     */
+    private static ActiveMarkerCache instance = null;
+
+    /**
+     * Application context.
+     */
+    private Context context;
+
+    /**
+     * Active routes, null if the cache must be loaded.
+     */
+    private List<Route> activeRoutes;
+
+    /**
+     * Markers of the active routes.
+     */
+    private List<Marker> activeMarkers;
+
+    /**
+     * Spatial index of the active markers.
+     */
+    private MarkerIndex markerIndex;
+
+    /**
+     * Distance in meters a marker must be within to trigger a marker alert.
+     */
+    private int distanceToMarker;
+
+    /**
+     * ActiveMarkerCache constructor.
+     */
+    private ActiveMarkerCache() {
+
+    }
+
+    /**
+     * @return ActiveMarkerCache instance
+     */
+    public static synchronized ActiveMarkerCache getInstance() {
+        if (instance == null) {
+            instance = new ActiveMarkerCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Initialize the cache and listen to the preference changes.
+     *
+     * @param context Context
+     */
+    public void init(final Context context) {
+        this.context = context.getApplicationContext();
+        PreferenceManager.getDefaultSharedPreferences(this.context)
+                .registerOnSharedPreferenceChangeListener(this);
+    }
+
+    /**
+     * @return Active routes
+     */
+    public synchronized List<Route> getActiveRoutes() {
+        load();
+        return activeRoutes;
+    }
+
+    /**
+     * @return Markers of the active routes
+     */
+    public synchronized List<Marker> getActiveMarkers() {
+        load();
+        return activeMarkers;
+    }
+
+    /**
+     * @return Spatial index of the active markers
+     */
+    @Override
+    public synchronized MarkerIndex getMarkerIndex() {
+        load();
+        return markerIndex;
+    }
+
+    /**
+     * @return Distance in meters a marker must be within to trigger a marker
+     * alert
+     */
+    @Override
+    public synchronized int getDistanceToMarker() {
+        load();
+        return distanceToMarker;
+    }
+
+    /**
+     * Discard the cached values, to be loaded again on next access.
+     */
+    public synchronized void invalidate() {
+        activeRoutes = null;
+        activeMarkers = null;
+        markerIndex = null;
+    }
+
+    /**
+     * Load the active routes and markers if the cache has been invalidated.
+     */
+    private void load() {
+        if (activeRoutes != null) {
+            return;
+        }
+        List<Route> routes = Routes.getActiveRoutes(context);
+        List<Marker> markers = new ArrayList<>();
+        for (Route route : routes) {
+            // the route entity can be shared with the DAO identity scope,
+            // make sure its markers are up to date
+            route.resetMarkers();
+            markers.addAll(route.getMarkers());
+        }
+        activeRoutes = Collections.unmodifiableList(routes);
+        activeMarkers = Collections.unmodifiableList(markers);
+        markerIndex = new MarkerIndex(markers);
+        distanceToMarker = Markers.getDistanceToMarkerPref(context);
+    }
+
+    @Override
+    public void onSharedPreferenceChanged(
+            final SharedPreferences sharedPreferences, final String key) {
+        if (Pref.ACTIVE_ROUTES.equals(key)
+                || Pref.DISTANCE_TO_MARKER.equals(key)) {
+            invalidate();
+        }
+    }
+}
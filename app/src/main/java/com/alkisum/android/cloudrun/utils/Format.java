@@ -55,6 +55,13 @@ public final class Format {
         return new SimpleDateFormat("EEE. MMM. dd, yyyy", Locale.getDefault());
     }
 
+    /**
+     * @return Format for month in history list
+     */
+    public static SimpleDateFormat getMonthHistory() {
+        return new SimpleDateFormat("MMMM yyyy", Locale.getDefault());
+    }
+
     /**
      * @return Format for date when adding a session
      */
@@ -1,16 +1,13 @@
 package com.alkisum.android.cloudrun.utils;
 
 import android.content.Context;
-import android.location.Location;
 import android.preference.PreferenceManager;
 
 import com.alkisum.android.cloudrun.database.Db;
 import com.alkisum.android.cloudrun.location.Coordinate;
 import com.alkisum.android.cloudrun.model.Marker;
 import com.alkisum.android.cloudrun.model.MarkerDao;
-import com.alkisum.android.cloudrun.model.Route;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -18,7 +15,7 @@ import java.util.Objects;
  * Utility class for marker operations.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 4.0
  */
 public final class Markers {
@@ -56,6 +53,7 @@ public final class Markers {
         marker.setLongitude(longitude);
         marker.setRouteId(routeId);
         dao.insert(marker);
+        ActiveMarkerCache.getInstance().invalidate();
     }
 
     /**
@@ -68,84 +66,16 @@ public final class Markers {
         MarkerDao dao = Db.getInstance().getDaoSession().getMarkerDao();
         marker.setLabel(label);
         dao.update(marker);
-    }
-
-    /**
-     * Find marker attached to the given route using the given coordinates.
-     *
-     * @param route     Route containing the marker to find
-     * @param latitude  Latitude of the marker to find
-     * @param longitude Longitude of the marker to find
-     * @return Marker if found, null otherwise
-     */
-    public static Marker getMarkerByCoordinates(final Route route,
-                                                final double latitude,
-                                                final double longitude) {
-        for (Marker marker : route.getMarkers()) {
-            if (marker.getLatitude() == latitude
-                    && marker.getLongitude() == longitude) {
-                return marker;
-            }
-        }
-        return null;
+        ActiveMarkerCache.getInstance().invalidate();
     }
 
     /**
      * Retrieve all markers from active routes.
      *
-     * @param context Context
      * @return List of active marker
      */
-    public static List<Marker> getActiveMarkers(final Context context) {
-        List<Marker> markers = new ArrayList<>();
-        List<Route> routes = Routes.getActiveRoutes(context);
-        for (Route route : routes) {
-            markers.addAll(route.getMarkers());
-        }
-        return markers;
-    }
-
-    /**
-     * Check distance between current location and each active marker.
-     *
-     * @param context Context
-     * @param current Current location
-     * @return List of markers located within
-     * {@link com.alkisum.android.cloudrun.utils.Pref#DISTANCE_TO_MARKER}
-     */
-    public static List<Marker> getSurroundingMarkers(final Context context,
-                                                     final Coordinate current) {
-        List<Marker> surroundingMarkers = new ArrayList<>();
-
-        // check distance to each active marker
-        for (Marker marker : getActiveMarkers(context)) {
-            if (distanceToMarker(current, marker)
-                    <= getDistanceToMarkerPref(context)) {
-                surroundingMarkers.add(marker);
-            }
-        }
-
-        return surroundingMarkers;
-    }
-
-    /**
-     * Calculate the distance between the current location and the given marker.
-     *
-     * @param current Current location
-     * @param marker  Marker
-     * @return Distance between the 2 locations
-     */
-    private static float distanceToMarker(final Coordinate current,
-                                          final Marker marker) {
-        Location currentLocation = new Location("Current");
-        currentLocation.setLatitude(current.getLatitude());
-        currentLocation.setLongitude(current.getLongitude());
-
-        Location markerLocation = new Location("Marker");
-        markerLocation.setLatitude(marker.getLatitude());
-        markerLocation.setLongitude(marker.getLongitude());
-
-        return currentLocation.distanceTo(markerLocation);
+    public static List<Marker> getActiveMarkers() {
+        return ActiveMarkerCache.getInstance().getActiveMarkers();
     }
 
     /**
@@ -170,7 +100,7 @@ public final class Markers {
      * @param context Context
      * @return Distance to marker set in preferences
      */
-    private static int getDistanceToMarkerPref(final Context context) {
+    public static int getDistanceToMarkerPref(final Context context) {
         String s = PreferenceManager.getDefaultSharedPreferences(context)
                 .getString(Pref.DISTANCE_TO_MARKER, DISTANCE_TO_MARKER_DEFAULT);
         try {
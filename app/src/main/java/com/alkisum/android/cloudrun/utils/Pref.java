@@ -5,13 +5,15 @@ import android.content.SharedPreferences;
 import android.preference.PreferenceManager;
 
 import com.alkisum.android.cloudlib.utils.CloudPref;
+import com.alkisum.android.cloudrun.location.LocationFilters;
 import com.alkisum.android.cloudrun.location.LocationHelper;
+import com.alkisum.android.cloudrun.tasks.SessionRecorder;
 
 /**
  * Class defining constants for SharedPreferences.
  *
  * @author Alkisum
- * @version 4.0
+ * @version 4.2
  * @since 1.0
  */
 public final class Pref {
@@ -71,6 +73,22 @@ public final class Pref {
      */
     public static final String DISTANCE_TO_MARKER = "distanceToMarker";
 
+    /**
+     * Preference key for session save interval.
+     */
+    public static final String SESSION_SAVE_INTERVAL = "sessionSaveInterval";
+
+    /**
+     * Preference key for location filter.
+     */
+    public static final String LOCATION_FILTER = "locationFilter";
+
+    /**
+     * Preference key for the rule the statistics periods were computed
+     * with, not set until the statistics are checked for the first time.
+     */
+    public static final String STATS_PERIOD_RULE = "statsPeriodRule";
+
     /**
      * CloudPref constructor.
      */
@@ -113,6 +131,13 @@ public final class Pref {
             editor.putString(DISTANCE_TO_MARKER,
                     Markers.DISTANCE_TO_MARKER_DEFAULT);
         }
+        if (!sharedPref.contains(SESSION_SAVE_INTERVAL)) {
+            editor.putInt(SESSION_SAVE_INTERVAL,
+                    SessionRecorder.SAVE_INTERVAL_DEFAULT);
+        }
+        if (!sharedPref.contains(LOCATION_FILTER)) {
+            editor.putString(LOCATION_FILTER, LocationFilters.DEFAULT);
+        }
         editor.apply();
     }
 }
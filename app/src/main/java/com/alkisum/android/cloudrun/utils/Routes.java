@@ -58,23 +58,6 @@ public final class Routes {
         return dao.load(routeId);
     }
 
-    /**
-     * Load all the routes from the database and return only the selected
-     * ones.
-     *
-     * @return List of selected routes.
-     */
-    public static List<Route> getSelectedRoutes() {
-        RouteDao dao = Db.getInstance().getDaoSession().getRouteDao();
-        List<Route> selectedRoutes = new ArrayList<>();
-        for (Route route : dao.loadAll()) {
-            if (route.getSelected()) {
-                selectedRoutes.add(route);
-            }
-        }
-        return selectedRoutes;
-    }
-
     /**
      * Load the active routes by reading the preferences.
      *
@@ -1,30 +1,43 @@
 package com.alkisum.android.cloudrun.utils;
 
+import android.database.Cursor;
+
 import com.alkisum.android.cloudlib.file.json.JsonFile;
 import com.alkisum.android.cloudrun.database.Db;
+import com.alkisum.android.cloudrun.location.Coordinate;
+import com.alkisum.android.cloudrun.location.Track;
 import com.alkisum.android.cloudrun.model.DaoSession;
 import com.alkisum.android.cloudrun.model.DataPoint;
-import com.alkisum.android.cloudrun.model.DataPointDao;
 import com.alkisum.android.cloudrun.model.Session;
 import com.alkisum.android.cloudrun.model.SessionDao;
 
+import org.greenrobot.greendao.query.LazyList;
+import org.greenrobot.greendao.query.QueryBuilder;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Utility class for session operations.
  *
  * @author Alkisum
- * @version 4.1
+ * @version 4.2
  * @since 1.1
  */
 public final class Sessions {
 
+    /**
+     * Maximum number of IDs given to an IN clause, below the SQLite limit of
+     * host parameters.
+     */
+    private static final int MAX_IDS_PER_QUERY = 500;
+
     /**
      * Sessions constructor.
      */
@@ -32,40 +45,124 @@ public final class Sessions {
 
     }
 
+    /**
+     * Build the query selecting all the sessions from the database except the
+     * one that is currently running (if exists).
+     *
+     * @param ignoreSessionId ID of the session that should be ignored because
+     *                        it is still running. The ID is null if no session
+     *                        is running.
+     * @return Query builder in the anti-chronological order
+     */
+    private static QueryBuilder<Session> querySessions(
+            final Long ignoreSessionId) {
+        QueryBuilder<Session> queryBuilder = Db.getInstance().getDaoSession()
+                .getSessionDao().queryBuilder();
+        if (ignoreSessionId != null) {
+            queryBuilder.where(SessionDao.Properties.Id.notEq(
+                    ignoreSessionId));
+        }
+        return queryBuilder.orderDesc(SessionDao.Properties.Start);
+    }
+
     /**
      * Load all the sessions from the database except the one that is currently
-     * running (if exists).
+     * running (if exists). The sessions are read from the cursor only when
+     * accessed and are not kept by the list, the list must be closed when not
+     * used anymore.
      *
      * @param ignoreSessionId ID of the session that should be ignored because
      *                        it is still running. The ID is null if no session
      *                        is running.
-     * @return List of sessions in the anti-chronological order
+     * @return Lazy list of sessions in the anti-chronological order
      */
-    public static List<Session> loadSessions(final Long ignoreSessionId) {
-        SessionDao dao = Db.getInstance().getDaoSession().getSessionDao();
-        List<Session> sessions = dao.queryBuilder().orderDesc(
-                SessionDao.Properties.Start).list();
+    public static LazyList<Session> loadSessions(final Long ignoreSessionId) {
+        return querySessions(ignoreSessionId).listLazyUncached();
+    }
+
+    /**
+     * Load the IDs of all the sessions from the database except the one that
+     * is currently running (if exists), without loading the sessions.
+     *
+     * @param ignoreSessionId ID of the session that should be ignored because
+     *                        it is still running. The ID is null if no session
+     *                        is running.
+     * @return List of session IDs
+     */
+    public static List<Long> loadSessionIds(final Long ignoreSessionId) {
+        String sql = "SELECT " + SessionDao.Properties.Id.columnName
+                + " FROM " + SessionDao.TABLENAME;
+        String[] args = null;
         if (ignoreSessionId != null) {
-            sessions.remove(dao.load(ignoreSessionId));
+            sql += " WHERE " + SessionDao.Properties.Id.columnName + " != ?";
+            args = new String[]{String.valueOf(ignoreSessionId)};
         }
-        return sessions;
+        List<Long> ids = new ArrayList<>();
+        Cursor cursor = Db.getInstance().getDaoSession().getDatabase()
+                .rawQuery(sql, args);
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return ids;
     }
 
     /**
-     * Load all the sessions from the database and return only the selected
-     * ones.
+     * Load the start times of all the sessions from the database except the
+     * one that is currently running (if exists), without loading the
+     * sessions. The start times are in the same order as the sessions
+     * returned by {@link #loadSessions(Long)}.
      *
-     * @return List of selected sessions.
+     * @param ignoreSessionId ID of the session that should be ignored because
+     *                        it is still running. The ID is null if no session
+     *                        is running.
+     * @return Start times in milliseconds, in the anti-chronological order
      */
-    public static List<Session> getSelectedSessions() {
-        SessionDao dao = Db.getInstance().getDaoSession().getSessionDao();
-        List<Session> selectedSessions = new ArrayList<>();
-        for (Session session : dao.loadAll()) {
-            if (session.getSelected()) {
-                selectedSessions.add(session);
+    public static long[] loadSessionStarts(final Long ignoreSessionId) {
+        String sql = "SELECT " + SessionDao.Properties.Start.columnName
+                + " FROM " + SessionDao.TABLENAME;
+        String[] args = null;
+        if (ignoreSessionId != null) {
+            sql += " WHERE " + SessionDao.Properties.Id.columnName + " != ?";
+            args = new String[]{String.valueOf(ignoreSessionId)};
+        }
+        sql += " ORDER BY " + SessionDao.Properties.Start.columnName
+                + " DESC";
+        Cursor cursor = Db.getInstance().getDaoSession().getDatabase()
+                .rawQuery(sql, args);
+        try {
+            long[] starts = new long[cursor.getCount()];
+            for (int i = 0; i < starts.length && cursor.moveToNext(); i++) {
+                starts[i] = cursor.getLong(0);
             }
+            return starts;
+        } finally {
+            cursor.close();
         }
-        return selectedSessions;
+    }
+
+    /**
+     * Load the sessions having the given IDs from the database.
+     *
+     * @param ids Session IDs
+     * @return List of sessions in the anti-chronological order
+     */
+    public static List<Session> loadSessionsById(final Collection<Long> ids) {
+        SessionDao dao = Db.getInstance().getDaoSession().getSessionDao();
+        List<Long> idList = new ArrayList<>(ids);
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < idList.size(); i += MAX_IDS_PER_QUERY) {
+            sessions.addAll(dao.queryBuilder().where(
+                    SessionDao.Properties.Id.in(idList.subList(i,
+                            Math.min(i + MAX_IDS_PER_QUERY, idList.size()))))
+                    .list());
+        }
+        Collections.sort(sessions,
+                (s1, s2) -> Long.compare(s2.getStart(), s1.getStart()));
+        return sessions;
     }
 
     /**
@@ -76,11 +173,10 @@ public final class Sessions {
      *                        is running.
      */
     public static void fixSessions(final Long ignoreSessionId) {
-        List<Session> sessions = loadSessions(ignoreSessionId);
+        List<Session> sessions = querySessions(ignoreSessionId)
+                .where(SessionDao.Properties.End.isNull()).list();
         for (Session session : sessions) {
-            if (session.getEnd() == null) {
-                fixSession(session);
-            }
+            fixSession(session);
         }
     }
 
@@ -97,24 +193,27 @@ public final class Sessions {
 
     /**
      * Fix the session. Use DataPoints of the session to get the end and to
-     * calculate the distance.
+     * calculate the distance. The DataPoints are archived once the session is
+     * fixed.
      *
      * @param session Session to fix
      */
     private static void fixSession(final Session session) {
-        List<DataPoint> dataPoints = session.getDataPoints();
+        Track track = Tracks.load(session);
 
         // Initialize end time and total distance
         long end = session.getStart();
 
-        if (!dataPoints.isEmpty()) {
+        if (!track.isEmpty()) {
             // Get end from the last datapoint recorded during the session
-            end = dataPoints.get(dataPoints.size() - 1).getTime();
+            end = track.getTime(track.size() - 1);
         }
 
         // Update database with the new session's information
         session.setEnd(end);
         session.update();
+        Statistics.addSession(session);
+        Tracks.archive(session.getId());
     }
 
     /**
@@ -150,15 +249,16 @@ public final class Sessions {
 
         // build JSON array for datapoints
         JSONArray jsonDataPoints = new JSONArray();
-        List<DataPoint> dataPoints = session.getDataPoints();
-        for (DataPoint dataPoint : dataPoints) {
+        Track track = Tracks.load(session);
+        for (int i = 0; i < track.size(); i++) {
             JSONObject jsonDataPoint = new JSONObject();
-            jsonDataPoint.put(Json.DATAPOINT_TIME, dataPoint.getTime());
-            jsonDataPoint.put(Json.DATAPOINT_LATITUDE, dataPoint.getLatitude());
-            jsonDataPoint.put(Json.DATAPOINT_LONGITUDE,
-                    dataPoint.getLongitude());
-            jsonDataPoint.put(Json.DATAPOINT_ELEVATION,
-                    dataPoint.getElevation());
+            jsonDataPoint.put(Json.DATAPOINT_TIME, track.getTime(i));
+            putValue(jsonDataPoint, Json.DATAPOINT_LATITUDE,
+                    track.getLatitude(i));
+            putValue(jsonDataPoint, Json.DATAPOINT_LONGITUDE,
+                    track.getLongitude(i));
+            putValue(jsonDataPoint, Json.DATAPOINT_ELEVATION,
+                    track.getElevation(i));
             jsonDataPoints.put(jsonDataPoint);
         }
 
@@ -171,6 +271,22 @@ public final class Sessions {
         return jsonBase;
     }
 
+    /**
+     * Put the given value into the JSON object, unless it is missing.
+     *
+     * @param jsonObject JSON object
+     * @param name       Name of the value
+     * @param value      Value, NaN if missing
+     * @throws JSONException Exception thrown while building JSON object
+     */
+    private static void putValue(final JSONObject jsonObject,
+                                 final String name, final double value)
+            throws JSONException {
+        if (!Double.isNaN(value)) {
+            jsonObject.put(name, value);
+        }
+    }
+
     /**
      * Build session from Json file version 1.
      *
@@ -182,7 +298,6 @@ public final class Sessions {
         // get DAOs
         DaoSession daoSession = Db.getInstance().getDaoSession();
         SessionDao sessionDao = daoSession.getSessionDao();
-        DataPointDao dataPointDao = daoSession.getDataPointDao();
 
         // build session
         JSONObject jsonSession = jsonBase.getJSONObject(Json.SESSION);
@@ -212,12 +327,13 @@ public final class Sessions {
                     Json.DATAPOINT_LONGITUDE));
             dataPoint.setElevation(jsonDataPoint.getDouble(
                     Json.DATAPOINT_ELEVATION));
-            dataPoint.setSession(session);
             dataPoints.add(dataPoint);
         }
 
-        // insert datapoints
-        dataPointDao.insertInTx(dataPoints);
+        // archive datapoints
+        Tracks.insert(session.getId(), Tracks.fromDataPoints(dataPoints));
+
+        Statistics.addSession(session);
     }
 
     /**
@@ -232,7 +348,6 @@ public final class Sessions {
         // get DAOs
         DaoSession daoSession = Db.getInstance().getDaoSession();
         SessionDao sessionDao = daoSession.getSessionDao();
-        DataPointDao dataPointDao = daoSession.getDataPointDao();
 
         // build session
         JSONObject jsonSession = jsonBase.getJSONObject(Json.SESSION);
@@ -259,12 +374,37 @@ public final class Sessions {
                     Json.DATAPOINT_LONGITUDE));
             dataPoint.setElevation(jsonDataPoint.getDouble(
                     Json.DATAPOINT_ELEVATION));
-            dataPoint.setSession(session);
             dataPoints.add(dataPoint);
         }
 
-        // insert datapoints
-        dataPointDao.insertInTx(dataPoints);
+        // archive datapoints
+        Tracks.insert(session.getId(), Tracks.fromDataPoints(dataPoints));
+
+        Statistics.addSession(session);
+    }
+
+    /**
+     * Read the locations of the datapoints from the given JSON object. The
+     * datapoints have the same structure in all the JSON file versions.
+     *
+     * @param jsonBase JSONObject the structure is based on
+     * @return List of locations
+     * @throws JSONException An error occurred while parsing the JSON object
+     */
+    public static List<Coordinate> readCoordinates(final JSONObject jsonBase)
+            throws JSONException {
+        JSONArray jsonDataPoints = jsonBase.getJSONArray(Json.DATAPOINTS);
+        List<Coordinate> coordinates = new ArrayList<>(
+                jsonDataPoints.length());
+        for (int i = 0; i < jsonDataPoints.length(); i++) {
+            JSONObject jsonDataPoint = jsonDataPoints.getJSONObject(i);
+            coordinates.add(new Coordinate(
+                    jsonDataPoint.getLong(Json.DATAPOINT_TIME),
+                    jsonDataPoint.getDouble(Json.DATAPOINT_LATITUDE),
+                    jsonDataPoint.getDouble(Json.DATAPOINT_LONGITUDE),
+                    jsonDataPoint.getDouble(Json.DATAPOINT_ELEVATION)));
+        }
+        return coordinates;
     }
 
     /**
@@ -0,0 +1,411 @@
+package com.alkisum.android.cloudrun.utils;
+
+import com.alkisum.android.cloudrun.database.Db;
+import com.alkisum.android.cloudrun.model.DaoSession;
+import com.alkisum.android.cloudrun.model.Session;
+import com.alkisum.android.cloudrun.model.SessionDao;
+import com.alkisum.android.cloudrun.model.SessionStats;
+import com.alkisum.android.cloudrun.model.SessionStatsDao;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Utility class maintaining the session statistics aggregated per day, week,
+ * month and year. The statistics are updated incrementally when sessions are
+ * added or removed, so that reading them never requires scanning the
+ * sessions. Only the finished sessions (with an end) are counted. The
+ * periods follow the default time zone and the first day of the week of the
+ * default locale, the statistics are rebuilt when they change.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class Statistics {
+
+    /**
+     * Period for statistics per day.
+     */
+    public static final int DAY = 0;
+
+    /**
+     * Period for statistics per week.
+     */
+    public static final int WEEK = 1;
+
+    /**
+     * Period for statistics per month.
+     */
+    public static final int MONTH = 2;
+
+    /**
+     * Period for statistics per year.
+     */
+    public static final int YEAR = 3;
+
+    /**
+     * All the periods.
+     */
+    private static final int[] PERIODS = {DAY, WEEK, MONTH, YEAR};
+
+    /**
+     * Minimum distance in meters of a session for its pace to be taken as
+     * the best pace, shorter sessions being mostly GPS jitter.
+     */
+    private static final float BEST_PACE_MIN_DISTANCE = 500;
+
+    /**
+     * Minimum duration in milliseconds of a session for its pace to be taken
+     * as the best pace.
+     */
+    private static final long BEST_PACE_MIN_DURATION = 120000;
+
+    /**
+     * Version of the computation of the statistics, part of the period rule
+     * so that the statistics stored by a previous version are rebuilt.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Statistics constructor.
+     */
+    private Statistics() {
+
+    }
+
+    /**
+     * Add the given session to the statistics of its periods.
+     *
+     * @param session Session to add
+     */
+    public static synchronized void addSession(final Session session) {
+        if (session.getEnd() == null) {
+            return;
+        }
+        final DaoSession daoSession = Db.getInstance().getDaoSession();
+        final SessionStatsDao dao = daoSession.getSessionStatsDao();
+        daoSession.runInTx(() -> {
+            for (int period : PERIODS) {
+                long periodStart = getPeriodStart(period, session.getStart());
+                SessionStats stats = load(dao, period, periodStart);
+                if (stats == null) {
+                    stats = newStats(period, periodStart);
+                }
+                add(stats, session);
+                dao.insertOrReplace(stats);
+            }
+        });
+    }
+
+    /**
+     * Remove the given sessions, already deleted from the database, from the
+     * statistics. The statistics of the affected periods are computed again
+     * from the sessions remaining in these periods, as the best pace and the
+     * longest run cannot be updated by subtraction.
+     *
+     * @param sessions Deleted sessions
+     */
+    public static synchronized void removeSessions(
+            final List<Session> sessions) {
+        final DaoSession daoSession = Db.getInstance().getDaoSession();
+        final List<Set<Long>> periodStarts = new ArrayList<>();
+        for (int period : PERIODS) {
+            periodStarts.add(new HashSet<>());
+        }
+        for (Session session : sessions) {
+            if (session.getEnd() == null) {
+                continue;
+            }
+            for (int period : PERIODS) {
+                periodStarts.get(period).add(getPeriodStart(period,
+                        session.getStart()));
+            }
+        }
+        daoSession.runInTx(() -> {
+            for (int period : PERIODS) {
+                for (long periodStart : periodStarts.get(period)) {
+                    recompute(daoSession, period, periodStart);
+                }
+            }
+        });
+    }
+
+    /**
+     * Compute all the statistics again from the sessions stored in the
+     * database. Used when the statistics table is created and when the
+     * period rule has changed.
+     *
+     * @param daoSession DAO session to use
+     */
+    public static synchronized void rebuild(final DaoSession daoSession) {
+        final SessionStatsDao dao = daoSession.getSessionStatsDao();
+        List<Session> sessions = daoSession.getSessionDao().queryBuilder()
+                .where(SessionDao.Properties.End.isNotNull()).list();
+
+        List<Map<Long, SessionStats>> statsPerPeriod = new ArrayList<>();
+        for (int period : PERIODS) {
+            statsPerPeriod.add(new HashMap<>());
+        }
+        for (Session session : sessions) {
+            for (int period : PERIODS) {
+                long periodStart = getPeriodStart(period, session.getStart());
+                Map<Long, SessionStats> statsMap = statsPerPeriod.get(period);
+                SessionStats stats = statsMap.get(periodStart);
+                if (stats == null) {
+                    stats = newStats(period, periodStart);
+                    statsMap.put(periodStart, stats);
+                }
+                add(stats, session);
+            }
+        }
+
+        final List<SessionStats> allStats = new ArrayList<>();
+        for (Map<Long, SessionStats> statsMap : statsPerPeriod) {
+            allStats.addAll(statsMap.values());
+        }
+        daoSession.runInTx(() -> {
+            dao.deleteAll();
+            dao.insertInTx(allStats);
+        });
+    }
+
+    /**
+     * Get the rule splitting the time into periods. The statistics must be
+     * rebuilt when it changes, their period starts would not match the ones
+     * computed afterwards.
+     *
+     * @return Rule made of the default time zone, the first day of the week
+     * of the default locale and the version of the computation
+     */
+    public static String getPeriodRule() {
+        return TimeZone.getDefault().getID() + ","
+                + Calendar.getInstance().getFirstDayOfWeek() + "," + VERSION;
+    }
+
+    /**
+     * Get the statistics of the period containing the given time.
+     *
+     * @param period Period, one of {@link #DAY}, {@link #WEEK},
+     *               {@link #MONTH} or {@link #YEAR}
+     * @param time   Time in milliseconds
+     * @return Statistics, null if no session has been done in this period
+     */
+    public static SessionStats getStats(final int period, final long time) {
+        return load(Db.getInstance().getDaoSession().getSessionStatsDao(),
+                period, getPeriodStart(period, time));
+    }
+
+    /**
+     * Get the statistics of all the periods of the given type.
+     *
+     * @param period Period, one of {@link #DAY}, {@link #WEEK},
+     *               {@link #MONTH} or {@link #YEAR}
+     * @return Map of statistics by period start
+     */
+    public static Map<Long, SessionStats> getStatsByPeriodStart(
+            final int period) {
+        List<SessionStats> statsList = Db.getInstance().getDaoSession()
+                .getSessionStatsDao().queryBuilder()
+                .where(SessionStatsDao.Properties.Period.eq(period)).list();
+        Map<Long, SessionStats> statsMap = new HashMap<>();
+        for (SessionStats stats : statsList) {
+            statsMap.put(stats.getPeriodStart(), stats);
+        }
+        return statsMap;
+    }
+
+    /**
+     * Get the statistics of all the sessions, combined from the yearly
+     * statistics.
+     *
+     * @return Statistics of all the sessions
+     */
+    public static SessionStats getTotalStats() {
+        SessionStats total = newStats(YEAR, 0);
+        for (SessionStats stats : getStatsByPeriodStart(YEAR).values()) {
+            total.setCount(total.getCount() + stats.getCount());
+            total.setDistance(total.getDistance() + stats.getDistance());
+            total.setDuration(total.getDuration() + stats.getDuration());
+            total.setBestPace(min(total.getBestPace(), stats.getBestPace()));
+            total.setLongestDistance(Math.max(total.getLongestDistance(),
+                    stats.getLongestDistance()));
+        }
+        return total;
+    }
+
+    /**
+     * Get the start of the period containing the given time, in the default
+     * time zone and locale.
+     *
+     * @param period Period, one of {@link #DAY}, {@link #WEEK},
+     *               {@link #MONTH} or {@link #YEAR}
+     * @param time   Time in milliseconds
+     * @return Start of the period in milliseconds
+     */
+    public static long getPeriodStart(final int period, final long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        switch (period) {
+            case WEEK:
+                int offset = (calendar.get(Calendar.DAY_OF_WEEK)
+                        - calendar.getFirstDayOfWeek() + 7) % 7;
+                calendar.add(Calendar.DAY_OF_MONTH, -offset);
+                break;
+            case MONTH:
+                calendar.set(Calendar.DAY_OF_MONTH, 1);
+                break;
+            case YEAR:
+                calendar.set(Calendar.DAY_OF_YEAR, 1);
+                break;
+            default:
+                break;
+        }
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Get the end of the period starting at the given time.
+     *
+     * @param period      Period, one of {@link #DAY}, {@link #WEEK},
+     *                    {@link #MONTH} or {@link #YEAR}
+     * @param periodStart Start of the period in milliseconds
+     * @return End of the period (excluded) in milliseconds
+     */
+    private static long getPeriodEnd(final int period,
+                                     final long periodStart) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(periodStart);
+        switch (period) {
+            case WEEK:
+                calendar.add(Calendar.WEEK_OF_YEAR, 1);
+                break;
+            case MONTH:
+                calendar.add(Calendar.MONTH, 1);
+                break;
+            case YEAR:
+                calendar.add(Calendar.YEAR, 1);
+                break;
+            default:
+                calendar.add(Calendar.DAY_OF_MONTH, 1);
+                break;
+        }
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Compute the statistics of the given period again from the sessions
+     * stored in the database. The statistics are deleted if no session is
+     * left in the period.
+     *
+     * @param daoSession  DAO session to use
+     * @param period      Period
+     * @param periodStart Start of the period in milliseconds
+     */
+    private static void recompute(final DaoSession daoSession,
+                                  final int period, final long periodStart) {
+        SessionStatsDao dao = daoSession.getSessionStatsDao();
+        SessionStats stats = load(dao, period, periodStart);
+        List<Session> sessions = daoSession.getSessionDao().queryBuilder()
+                .where(SessionDao.Properties.Start.ge(periodStart),
+                        SessionDao.Properties.Start.lt(
+                                getPeriodEnd(period, periodStart)),
+                        SessionDao.Properties.End.isNotNull())
+                .list();
+        if (sessions.isEmpty()) {
+            if (stats != null) {
+                dao.delete(stats);
+            }
+            return;
+        }
+        SessionStats newStats = newStats(period, periodStart);
+        if (stats != null) {
+            newStats.setId(stats.getId());
+        }
+        for (Session session : sessions) {
+            add(newStats, session);
+        }
+        dao.insertOrReplace(newStats);
+    }
+
+    /**
+     * Load the statistics of the given period.
+     *
+     * @param dao         SessionStats DAO
+     * @param period      Period
+     * @param periodStart Start of the period in milliseconds
+     * @return Statistics, null if they do not exist
+     */
+    private static SessionStats load(final SessionStatsDao dao,
+                                     final int period,
+                                     final long periodStart) {
+        return dao.queryBuilder().where(
+                SessionStatsDao.Properties.Period.eq(period),
+                SessionStatsDao.Properties.PeriodStart.eq(periodStart))
+                .unique();
+    }
+
+    /**
+     * Create empty statistics for the given period.
+     *
+     * @param period      Period
+     * @param periodStart Start of the period in milliseconds
+     * @return Empty statistics
+     */
+    private static SessionStats newStats(final int period,
+                                         final long periodStart) {
+        return new SessionStats(null, period, periodStart, 0, 0, 0, null, 0);
+    }
+
+    /**
+     * Add the values of the given session to the given statistics.
+     *
+     * @param stats   Statistics to update
+     * @param session Session to add
+     */
+    private static void add(final SessionStats stats, final Session session) {
+        float distance = 0;
+        if (session.getDistance() != null) {
+            distance = session.getDistance();
+        }
+        long duration = 0;
+        if (session.getDuration() != null) {
+            duration = session.getDuration();
+        }
+        stats.setCount(stats.getCount() + 1);
+        stats.setDistance(stats.getDistance() + distance);
+        stats.setDuration(stats.getDuration() + duration);
+        if (distance >= BEST_PACE_MIN_DISTANCE
+                && duration >= BEST_PACE_MIN_DURATION) {
+            long pace = Math.round(duration / (distance / 1000f));
+            stats.setBestPace(min(stats.getBestPace(), pace));
+        }
+        stats.setLongestDistance(Math.max(stats.getLongestDistance(),
+                distance));
+    }
+
+    /**
+     * @param a First value, can be null
+     * @param b Second value, can be null
+     * @return Smallest of the non-null values, null if both are null
+     */
+    private static Long min(final Long a, final Long b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return Math.min(a, b);
+    }
+}
@@ -0,0 +1,291 @@
+package com.alkisum.android.cloudrun.utils;
+
+import android.database.Cursor;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.alkisum.android.cloudrun.database.Db;
+import com.alkisum.android.cloudrun.location.Track;
+import com.alkisum.android.cloudrun.location.TrackCodec;
+import com.alkisum.android.cloudrun.location.TrackPyramid;
+import com.alkisum.android.cloudrun.model.DaoSession;
+import com.alkisum.android.cloudrun.model.DataPoint;
+import com.alkisum.android.cloudrun.model.DataPointDao;
+import com.alkisum.android.cloudrun.model.Session;
+import com.alkisum.android.cloudrun.model.SessionDao;
+import com.alkisum.android.cloudrun.model.SessionTrack;
+import com.alkisum.android.cloudrun.model.SessionTrackDao;
+
+import org.greenrobot.greendao.database.Database;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for the tracks of the sessions. The datapoints of a finished
+ * session are archived into a single compact blob, encoded by
+ * {@link TrackCodec} and stored in the SessionTrack table, and the datapoint
+ * rows are deleted.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public final class Tracks {
+
+    /**
+     * Log tag.
+     */
+    private static final String TAG = "Tracks";
+
+    /**
+     * Number of simplified tracks kept in memory.
+     */
+    private static final int PYRAMID_CACHE_SIZE = 4;
+
+    /**
+     * Pause in milliseconds between two sessions archived by
+     * {@link #archiveAll()}, letting the other writers take the database.
+     */
+    private static final long ARCHIVE_PAUSE = 50;
+
+    /**
+     * Simplified tracks of the last finished sessions shown, by session ID.
+     * Created on first use, so that loading and storing tracks does not need
+     * the Android framework.
+     */
+    private static LruCache<Long, TrackPyramid> pyramids;
+
+    /**
+     * Tracks constructor.
+     */
+    private Tracks() {
+
+    }
+
+    /**
+     * Load the track of the given session, from the archived blob if the
+     * session has been archived, from the datapoints otherwise.
+     *
+     * @param session Session to load the track from
+     * @return Track of the session
+     */
+    public static Track load(final Session session) {
+        DaoSession daoSession = Db.getInstance().getDaoSession();
+        // Read in a transaction to not miss the track if the session is
+        // archived in the meantime
+        return daoSession.callInTxNoException(() -> {
+            SessionTrack sessionTrack = daoSession.getSessionTrackDao()
+                    .load(session.getId());
+            if (sessionTrack != null) {
+                return TrackCodec.decode(sessionTrack.getData());
+            }
+            return queryDataPoints(daoSession.getDatabase(),
+                    session.getId());
+        });
+    }
+
+    /**
+     * Load the track of the given session simplified for each zoom level.
+     * The simplified tracks of the last finished sessions are cached, a
+     * finished session's track does not change anymore. The track of the
+     * session being recorded is loaded again each time.
+     *
+     * @param session Session to load the track from
+     * @return Simplified track of the session
+     */
+    public static synchronized TrackPyramid loadPyramid(
+            final Session session) {
+        if (pyramids == null) {
+            pyramids = new LruCache<>(PYRAMID_CACHE_SIZE);
+        }
+        if (session.getEnd() == null) {
+            return new TrackPyramid(load(session));
+        }
+        TrackPyramid pyramid = pyramids.get(session.getId());
+        if (pyramid == null) {
+            pyramid = new TrackPyramid(load(session));
+            pyramids.put(session.getId(), pyramid);
+        }
+        return pyramid;
+    }
+
+    /**
+     * Read the datapoints of the given session straight from a cursor over
+     * the DataPoint table, without building the DataPoint entities.
+     *
+     * @param db        Database
+     * @param sessionId Session ID
+     * @return Track of the session
+     */
+    private static Track queryDataPoints(final Database db,
+                                         final long sessionId) {
+        String sql = "SELECT \"" + DataPointDao.Properties.Time.columnName
+                + "\", " + DataPointDao.Properties.Latitude.columnName
+                + ", " + DataPointDao.Properties.Longitude.columnName
+                + ", " + DataPointDao.Properties.Elevation.columnName
+                + " FROM " + DataPointDao.TABLENAME
+                + " WHERE " + DataPointDao.Properties.SessionId.columnName
+                + " = ? ORDER BY " + DataPointDao.Properties.Id.columnName;
+        Cursor cursor = db.rawQuery(sql,
+                new String[]{String.valueOf(sessionId)});
+        try {
+            int size = cursor.getCount();
+            long[] times = new long[size];
+            double[] latitudes = new double[size];
+            double[] longitudes = new double[size];
+            double[] elevations = new double[size];
+            for (int i = 0; i < size && cursor.moveToNext(); i++) {
+                times[i] = cursor.getLong(0);
+                latitudes[i] = getDouble(cursor, 1);
+                longitudes[i] = getDouble(cursor, 2);
+                elevations[i] = getDouble(cursor, 3);
+            }
+            return new Track(times, latitudes, longitudes, elevations);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @param cursor Cursor
+     * @param column Column index
+     * @return Value of the column, NaN if null
+     */
+    private static double getDouble(final Cursor cursor, final int column) {
+        if (cursor.isNull(column)) {
+            return Double.NaN;
+        }
+        return cursor.getDouble(column);
+    }
+
+    /**
+     * Store the given track as the archived track of the given session.
+     *
+     * @param sessionId Session ID
+     * @param track     Track to store
+     */
+    public static void insert(final long sessionId, final Track track) {
+        if (track.isEmpty()) {
+            return;
+        }
+        Db.getInstance().getDaoSession().getSessionTrackDao().insertOrReplace(
+                new SessionTrack(sessionId, TrackCodec.encode(track)));
+    }
+
+    /**
+     * Archive the datapoints of the given session.
+     *
+     * @param sessionId Session ID
+     */
+    public static void archive(final long sessionId) {
+        archive(Db.getInstance().getDaoSession(), sessionId);
+    }
+
+    /**
+     * Archive the datapoints of all the finished sessions that have not been
+     * archived yet. Used to migrate the sessions recorded before the
+     * archiving was introduced. Each session is archived in its own
+     * transaction, with a pause between two sessions so that the migration
+     * never holds the database for long. Stops early if the thread is
+     * interrupted, the remaining sessions being archived on the next call.
+     */
+    public static void archiveAll() {
+        DaoSession daoSession = Db.getInstance().getDaoSession();
+        String sessionId = DataPointDao.Properties.SessionId.columnName;
+        String sql = "SELECT DISTINCT " + sessionId
+                + " FROM " + DataPointDao.TABLENAME
+                + " WHERE " + sessionId + " IN (SELECT "
+                + SessionDao.Properties.Id.columnName
+                + " FROM " + SessionDao.TABLENAME
+                + " WHERE \"" + SessionDao.Properties.End.columnName
+                + "\" IS NOT NULL)";
+        List<Long> sessionIds = new ArrayList<>();
+        Cursor cursor = daoSession.getDatabase().rawQuery(sql, null);
+        try {
+            while (cursor.moveToNext()) {
+                sessionIds.add(cursor.getLong(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        int archived = 0;
+        for (long id : sessionIds) {
+            archive(daoSession, id);
+            archived++;
+            try {
+                Thread.sleep(ARCHIVE_PAUSE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (archived > 0) {
+            Log.i(TAG, archived + " sessions archived");
+        }
+    }
+
+    /**
+     * Archive the datapoints of the given session in a single transaction.
+     * The datapoints are only deleted once the blob has been read back.
+     *
+     * @param daoSession DAO session to use
+     * @param sessionId  Session ID
+     */
+    private static void archive(final DaoSession daoSession,
+                                final long sessionId) {
+        Database db = daoSession.getDatabase();
+        SessionTrackDao sessionTrackDao = daoSession.getSessionTrackDao();
+        daoSession.runInTx(() -> {
+            Track track = queryDataPoints(db, sessionId);
+            if (track.isEmpty()) {
+                return;
+            }
+            byte[] blob = TrackCodec.encode(track);
+            // keep the rows if the blob cannot be read back
+            if (TrackCodec.decode(blob).size() != track.size()) {
+                Log.e(TAG, "Session " + sessionId + " not archived");
+                return;
+            }
+            sessionTrackDao.insertOrReplace(new SessionTrack(sessionId, blob));
+            db.execSQL("DELETE FROM " + DataPointDao.TABLENAME + " WHERE "
+                    + DataPointDao.Properties.SessionId.columnName + " = ?",
+                    new Object[]{sessionId});
+        });
+        // The rows have been deleted without the DAO, forget the entities
+        daoSession.getDataPointDao().detachAll();
+    }
+
+    /**
+     * Build a track from the given datapoints.
+     *
+     * @param dataPoints Datapoints
+     * @return Track
+     */
+    public static Track fromDataPoints(final List<DataPoint> dataPoints) {
+        int size = dataPoints.size();
+        long[] times = new long[size];
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        double[] elevations = new double[size];
+        for (int i = 0; i < size; i++) {
+            DataPoint dataPoint = dataPoints.get(i);
+            times[i] = dataPoint.getTime();
+            latitudes[i] = valueOf(dataPoint.getLatitude());
+            longitudes[i] = valueOf(dataPoint.getLongitude());
+            elevations[i] = valueOf(dataPoint.getElevation());
+        }
+        return new Track(times, latitudes, longitudes, elevations);
+    }
+
+    /**
+     * @param value Value, can be null
+     * @return Value, NaN if null
+     */
+    private static double valueOf(final Double value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,115 @@
+package com.alkisum.android.cloudrun.benchmark;
+
+import com.alkisum.android.cloudrun.location.Coordinate;
+import com.alkisum.android.cloudrun.location.Geodesy;
+import com.alkisum.android.cloudrun.location.Track;
+import com.alkisum.android.cloudrun.model.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Utility class creating the realistic inputs of the benchmarks.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+final class BenchmarkData {
+
+    /**
+     * Number of locations of a 3-hour session recorded at 1 Hz.
+     */
+    static final int SESSION_SIZE = 3 * 3600;
+
+    /**
+     * Latitude of the first location in degrees.
+     */
+    static final double LATITUDE = 48.15;
+
+    /**
+     * Longitude of the first location in degrees.
+     */
+    static final double LONGITUDE = 11.58;
+
+    /**
+     * BenchmarkData constructor.
+     */
+    private BenchmarkData() {
+
+    }
+
+    /**
+     * Create the locations of a 3-hour run recorded at about 1 Hz.
+     *
+     * @param seed Seed of the random generator
+     * @return Locations
+     */
+    static List<Coordinate> createSession(final long seed) {
+        Random random = new Random(seed);
+        List<Coordinate> coordinates = new ArrayList<>(SESSION_SIZE);
+        long time = 1552206600000L;
+        double latitude = LATITUDE;
+        double longitude = LONGITUDE;
+        double elevation = 520;
+        double bearing = 0;
+        for (int i = 0; i < SESSION_SIZE; i++) {
+            time += 1000 + random.nextInt(50) - 25;
+            bearing += random.nextGaussian() * 0.1;
+            double step = 3 + random.nextGaussian() * 0.2;
+            latitude += Geodesy.latitudeDelta(step * Math.cos(bearing));
+            longitude += Geodesy.longitudeDelta(latitude,
+                    step * Math.sin(bearing));
+            elevation += random.nextGaussian() * 0.3;
+            coordinates.add(new Coordinate(time, latitude, longitude,
+                    elevation));
+        }
+        return coordinates;
+    }
+
+    /**
+     * Create the track of a 3-hour run recorded at about 1 Hz.
+     *
+     * @param seed Seed of the random generator
+     * @return Track
+     */
+    static Track createTrack(final long seed) {
+        List<Coordinate> coordinates = createSession(seed);
+        int size = coordinates.size();
+        long[] times = new long[size];
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        double[] elevations = new double[size];
+        for (int i = 0; i < size; i++) {
+            Coordinate coordinate = coordinates.get(i);
+            times[i] = coordinate.getTime();
+            latitudes[i] = coordinate.getLatitude();
+            longitudes[i] = coordinate.getLongitude();
+            elevations[i] = coordinate.getElevation();
+        }
+        return new Track(times, latitudes, longitudes, elevations);
+    }
+
+    /**
+     * Create markers spread randomly over a square area starting at the
+     * first location of the sessions.
+     *
+     * @param count  Number of markers
+     * @param spread Size of the area in degrees
+     * @param random Random generator
+     * @return Markers
+     */
+    static List<Marker> createMarkers(final int count, final double spread,
+                                      final Random random) {
+        List<Marker> markers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Marker marker = new Marker();
+            marker.setId((long) i);
+            marker.setLatitude(LATITUDE + random.nextDouble() * spread);
+            marker.setLongitude(LONGITUDE + random.nextDouble() * spread);
+            markers.add(marker);
+        }
+        return markers;
+    }
+}
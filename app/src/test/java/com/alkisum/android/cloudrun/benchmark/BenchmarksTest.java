@@ -0,0 +1,66 @@
+package com.alkisum.android.cloudrun.benchmark;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runner of the JMH benchmarks of this package. The benchmarks take a few
+ * minutes and only run when the benchmark system property is set:
+ * <pre>
+ * ./gradlew testDebugUnitTest --tests '*.BenchmarksTest' -Dbenchmark=true
+ * </pre>
+ * The benchmarks run in the test JVM (no fork), the Gradle test worker does
+ * not expose its classpath to a forked JVM. The scores are printed in the
+ * test output with the memory allocated per operation (gc.alloc.rate.norm),
+ * and can be filtered with the benchmark property, for example
+ * {@code -Dbenchmark=LocationBenchmark}.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class BenchmarksTest {
+
+    /**
+     * System property enabling the benchmarks.
+     */
+    private static final String PROPERTY = "benchmark";
+
+    /**
+     * Run the benchmarks.
+     *
+     * @throws Exception An error occurred while running the benchmarks
+     */
+    @Test
+    public void run() throws Exception {
+        String value = System.getProperty(PROPERTY, "false");
+        Assume.assumeFalse("false".equals(value));
+
+        String include = getClass().getPackage().getName();
+        if ("true".equals(value)) {
+            include += ".*Benchmark";
+        } else {
+            include += "." + value;
+        }
+        Options options = new OptionsBuilder()
+                .include(include)
+                .forks(0)
+                .mode(Mode.AverageTime)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.alkisum.android.cloudrun.benchmark;
+
+import com.alkisum.android.cloudrun.database.Db;
+import com.alkisum.android.cloudrun.database.JdbcDatabase;
+import com.alkisum.android.cloudrun.model.DaoMaster;
+import com.alkisum.android.cloudrun.model.DaoSession;
+import com.alkisum.android.cloudrun.model.DataPoint;
+import com.alkisum.android.cloudrun.model.Session;
+import com.alkisum.android.cloudrun.utils.Sessions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks of the queries run when a session or the monitor is opened, on
+ * an in-memory database of 300 sessions of 3000 datapoints, with and without
+ * the indexes of schema version 5.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+@State(Scope.Thread)
+public class DbIndexBenchmark {
+
+    /**
+     * Number of sessions in the database.
+     */
+    private static final int SESSION_COUNT = 300;
+
+    /**
+     * Number of datapoints per session.
+     */
+    private static final int SESSION_SIZE = 3000;
+
+    /**
+     * Whether the indexes exist.
+     */
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    /**
+     * In-memory database.
+     */
+    private JdbcDatabase db;
+
+    /**
+     * Random generator picking the loaded session.
+     */
+    private final Random random = new Random(2);
+
+    /**
+     * Create and fill the database.
+     *
+     * @throws SQLException An error occurred while filling the database
+     */
+    @Setup
+    public void setUp() throws SQLException {
+        db = JdbcDatabase.openInMemory();
+        DaoMaster.createAllTables(db, false);
+        if (!indexed) {
+            db.execSQL("DROP INDEX IDX_DATA_POINT_SESSION_ID");
+            db.execSQL("DROP INDEX IDX_SESSION_START");
+        }
+        Db.getInstance().init(db);
+
+        Connection connection = (Connection) db.getRawDatabase();
+        connection.setAutoCommit(false);
+        PreparedStatement insertSession = connection.prepareStatement(
+                "INSERT INTO SESSION (START, \"END\", DURATION, DISTANCE) "
+                        + "VALUES (?, ?, ?, ?)");
+        PreparedStatement insertDataPoint = connection.prepareStatement(
+                "INSERT INTO DATA_POINT (TIME, LATITUDE, LONGITUDE, "
+                        + "ELEVATION, SESSION_ID) VALUES (?, ?, ?, ?, ?)");
+        Random data = new Random(1);
+        // sessions recorded every other day, inserted out of order as after
+        // an import
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            long start = 1420070400000L
+                    + data.nextInt(SESSION_COUNT * 2) * 86400000L;
+            long duration = SESSION_SIZE * 1000L;
+            insertSession.setLong(1, start);
+            insertSession.setLong(2, start + duration);
+            insertSession.setLong(3, duration);
+            insertSession.setFloat(4, SESSION_SIZE * 3f);
+            insertSession.executeUpdate();
+            for (int j = 0; j < SESSION_SIZE; j++) {
+                insertDataPoint.setLong(1, start + j * 1000L);
+                insertDataPoint.setDouble(2, 48.15 + j * 1e-5);
+                insertDataPoint.setDouble(3, 11.58 + j * 1e-5);
+                insertDataPoint.setDouble(4, 520);
+                insertDataPoint.setLong(5, i + 1);
+                insertDataPoint.addBatch();
+            }
+            insertDataPoint.executeBatch();
+        }
+        insertSession.close();
+        insertDataPoint.close();
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    /**
+     * Close the database.
+     */
+    @TearDown
+    public void tearDown() {
+        db.close();
+    }
+
+    /**
+     * @return Datapoints of a random session, loaded as by
+     * Session.getDataPoints when the session is opened for the first time
+     */
+    @Benchmark
+    public List<DataPoint> dataPoints() {
+        DaoSession daoSession = Db.getInstance().getDaoSession();
+        daoSession.clear();
+        return daoSession.getDataPointDao()._querySession_DataPoints(
+                random.nextInt(SESSION_COUNT) + 1);
+    }
+
+    /**
+     * @return Last session
+     */
+    @Benchmark
+    public Session lastSession() {
+        return Sessions.getLastSession();
+    }
+}
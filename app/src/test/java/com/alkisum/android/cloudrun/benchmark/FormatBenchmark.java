@@ -0,0 +1,74 @@
+package com.alkisum.android.cloudrun.benchmark;
+
+import com.alkisum.android.cloudrun.utils.Format;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the formatting done each time a value is shown on the
+ * monitor or in the history.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+@State(Scope.Thread)
+public class FormatBenchmark {
+
+    /**
+     * Duration of the formatted session in milliseconds.
+     */
+    private long duration = 10123456;
+
+    /**
+     * Distance of the formatted session in meters.
+     */
+    private float distance = 32456.7f;
+
+    /**
+     * Pace in milliseconds per kilometer.
+     */
+    private long pace = 311000;
+
+    /**
+     * @return Formatted duration
+     */
+    @Benchmark
+    public String formatDuration() {
+        return Format.formatDuration(duration);
+    }
+
+    /**
+     * @return Formatted distance
+     */
+    @Benchmark
+    public String formatDistance() {
+        return Format.formatDistance(distance);
+    }
+
+    /**
+     * @return Formatted pace
+     */
+    @Benchmark
+    public String formatPace() {
+        return Format.formatPace(pace);
+    }
+
+    /**
+     * @return Formatted average speed
+     */
+    @Benchmark
+    public String formatSpeedAvg() {
+        return Format.formatSpeedAvg(duration, distance);
+    }
+
+    /**
+     * @return Formatted average pace
+     */
+    @Benchmark
+    public String formatPaceAvg() {
+        return Format.formatPaceAvg(duration, distance);
+    }
+}
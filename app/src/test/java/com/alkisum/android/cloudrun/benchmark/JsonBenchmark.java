@@ -0,0 +1,147 @@
+package com.alkisum.android.cloudrun.benchmark;
+
+import com.alkisum.android.cloudrun.database.Db;
+import com.alkisum.android.cloudrun.database.JdbcDatabase;
+import com.alkisum.android.cloudrun.location.Coordinate;
+import com.alkisum.android.cloudrun.model.DaoMaster;
+import com.alkisum.android.cloudrun.model.DaoSession;
+import com.alkisum.android.cloudrun.model.DataPoint;
+import com.alkisum.android.cloudrun.model.DataPointDao;
+import com.alkisum.android.cloudrun.model.Session;
+import com.alkisum.android.cloudrun.model.SessionDao;
+import com.alkisum.android.cloudrun.model.SessionTrackDao;
+import com.alkisum.android.cloudrun.utils.Sessions;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of the JSON export and import of a 3-hour session, run against
+ * an in-memory SQLite database. The export loads the track of the session
+ * and writes the JSON text, the imports parse the JSON text and store the
+ * session with its archived track.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+@State(Scope.Thread)
+public class JsonBenchmark {
+
+    /**
+     * In-memory database.
+     */
+    private JdbcDatabase db;
+
+    /**
+     * Exported session.
+     */
+    private Session session;
+
+    /**
+     * JSON text of the exported session. Version 1 and version 2 files only
+     * differ by the session duration, which the version 1 parser does not
+     * read, so both parsers read this text.
+     */
+    private String json;
+
+    /**
+     * Create the database and insert the exported session.
+     *
+     * @throws JSONException An error occurred while building the JSON text
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws JSONException {
+        db = JdbcDatabase.openInMemory();
+        DaoMaster.createAllTables(db, false);
+        Db.getInstance().init(db);
+        DaoSession daoSession = Db.getInstance().getDaoSession();
+
+        List<Coordinate> coordinates = BenchmarkData.createSession(1);
+        session = new Session();
+        session.setStart(coordinates.get(0).getTime());
+        session.setEnd(coordinates.get(coordinates.size() - 1).getTime());
+        session.setDuration(session.getEnd() - session.getStart());
+        session.setDistance(32000f);
+        daoSession.getSessionDao().insert(session);
+        List<DataPoint> dataPoints = new ArrayList<>(coordinates.size());
+        for (Coordinate coordinate : coordinates) {
+            DataPoint dataPoint = new DataPoint();
+            dataPoint.setTime(coordinate.getTime());
+            dataPoint.setLatitude(coordinate.getLatitude());
+            dataPoint.setLongitude(coordinate.getLongitude());
+            dataPoint.setElevation(coordinate.getElevation());
+            dataPoint.setSession(session);
+            dataPoints.add(dataPoint);
+        }
+        daoSession.getDataPointDao().insertInTx(dataPoints);
+        json = Sessions.buildJson(session).toString();
+    }
+
+    /**
+     * Delete the imported sessions, so that each iteration imports into the
+     * same database.
+     */
+    @TearDown(Level.Iteration)
+    public void deleteImported() {
+        DaoSession daoSession = Db.getInstance().getDaoSession();
+        daoSession.getDataPointDao().queryBuilder()
+                .where(DataPointDao.Properties.SessionId.notEq(
+                        session.getId()))
+                .buildDelete().executeDeleteWithoutDetachingEntities();
+        daoSession.getSessionDao().queryBuilder()
+                .where(SessionDao.Properties.Id.notEq(session.getId()))
+                .buildDelete().executeDeleteWithoutDetachingEntities();
+        daoSession.getSessionTrackDao().queryBuilder()
+                .where(SessionTrackDao.Properties.Id.notEq(session.getId()))
+                .buildDelete().executeDeleteWithoutDetachingEntities();
+        daoSession.clear();
+    }
+
+    /**
+     * Close the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    /**
+     * @return JSON text of the session, with the track loaded from the
+     * database
+     * @throws JSONException An error occurred while building the JSON text
+     */
+    @Benchmark
+    public String buildJson() throws JSONException {
+        return Sessions.buildJson(session).toString();
+    }
+
+    /**
+     * Import the session from a version 1 file.
+     *
+     * @throws JSONException An error occurred while parsing the JSON text
+     */
+    @Benchmark
+    public void parseVersion1() throws JSONException {
+        Sessions.buildFromJsonVersion1(new JSONObject(json));
+    }
+
+    /**
+     * Import the session from a version 2 file.
+     *
+     * @throws JSONException An error occurred while parsing the JSON text
+     */
+    @Benchmark
+    public void parseVersion2() throws JSONException {
+        Sessions.buildFromJsonVersion2(new JSONObject(json));
+    }
+}
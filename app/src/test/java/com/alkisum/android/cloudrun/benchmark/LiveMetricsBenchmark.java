@@ -0,0 +1,402 @@
+package com.alkisum.android.cloudrun.benchmark;
+
+import com.alkisum.android.cloudrun.location.Coordinate;
+import com.alkisum.android.cloudrun.location.LiveMetrics;
+import com.alkisum.android.cloudrun.location.LiveMetricsBus;
+import com.alkisum.android.cloudrun.location.LocationFilters;
+import com.alkisum.android.cloudrun.location.LocationProcessor;
+import com.alkisum.android.cloudrun.location.MarkerIndex;
+import com.alkisum.android.cloudrun.model.Marker;
+
+import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Benchmarks of the publication of the live values computed for each
+ * location of a 3-hour session, to the observers of the live screen: the
+ * session recorder, the GPS status and the monitor. The snapshot published
+ * on {@link LiveMetricsBus} is compared with the previous fan-out of one
+ * EventBus event per value, posted here from the snapshot. The scores are
+ * given per location and include the processing of the location.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+@State(Scope.Thread)
+public class LiveMetricsBenchmark {
+
+    /**
+     * Accuracy given to each location in meters.
+     */
+    private static final float ACCURACY = 5;
+
+    /**
+     * Number of distance values used to calculate the speed and the pace.
+     */
+    private static final int DISTANCE_CNT = 5;
+
+    /**
+     * Number of snapshots published before the conflated deliveries run,
+     * the main thread falling behind.
+     */
+    private static final int DELIVERY_PERIOD = 10;
+
+    /**
+     * Locations of the session.
+     */
+    private List<Coordinate> session;
+
+    /**
+     * Blackhole consuming the values received by the observers.
+     */
+    private Blackhole blackhole;
+
+    /**
+     * Deliveries handed to the executor of the conflated observer.
+     */
+    private final Queue<Runnable> deliveries = new ArrayDeque<>();
+
+    /**
+     * Processor publishing to a bus with the observers delivered directly.
+     */
+    private LocationProcessor directProcessor;
+
+    /**
+     * Processor publishing to a bus with the monitor conflated.
+     */
+    private LocationProcessor conflatedProcessor;
+
+    /**
+     * Processor publishing to a bus whose only observer posts the values on
+     * {@link #eventBus}.
+     */
+    private LocationProcessor eventProcessor;
+
+    /**
+     * EventBus with the subscribers of the per-value events.
+     */
+    private EventBus eventBus;
+
+    /**
+     * Create the session, the processors and the observers.
+     *
+     * @param bh Blackhole consuming the values received by the observers
+     */
+    @Setup
+    public void setUp(final Blackhole bh) {
+        session = BenchmarkData.createSession(1);
+        blackhole = bh;
+
+        LiveMetricsBus directBus = new LiveMetricsBus();
+        directBus.register(this::onRecorderMetrics);
+        directBus.register(this::onGpsStatusMetrics);
+        directBus.register(this::onMonitorMetrics);
+        directProcessor = createProcessor(directBus);
+
+        LiveMetricsBus conflatedBus = new LiveMetricsBus();
+        conflatedBus.register(this::onRecorderMetrics);
+        conflatedBus.register(this::onGpsStatusMetrics);
+        conflatedBus.register(this::onMonitorMetrics, deliveries::add);
+        conflatedProcessor = createProcessor(conflatedBus);
+
+        LiveMetricsBus eventBusBridge = new LiveMetricsBus();
+        eventBusBridge.register(this::postEvents);
+        eventProcessor = createProcessor(eventBusBridge);
+        eventBus = EventBus.builder().logNoSubscriberMessages(false)
+                .sendNoSubscriberEvent(false).build();
+        eventBus.register(new RecorderSubscriber());
+        eventBus.register(new GpsStatusSubscriber());
+        eventBus.register(new MonitorSubscriber());
+    }
+
+    /**
+     * Process each location and deliver the snapshot directly to the
+     * observers.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SESSION_SIZE)
+    public void snapshot() {
+        for (Coordinate coordinate : session) {
+            directProcessor.process(coordinate, ACCURACY);
+        }
+    }
+
+    /**
+     * Process each location and deliver the snapshots to the monitor
+     * through its executor, run every {@link #DELIVERY_PERIOD} locations so
+     * that the snapshots are merged.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SESSION_SIZE)
+    public void snapshotConflated() {
+        int i = 0;
+        for (Coordinate coordinate : session) {
+            conflatedProcessor.process(coordinate, ACCURACY);
+            if (++i % DELIVERY_PERIOD == 0) {
+                runDeliveries();
+            }
+        }
+        runDeliveries();
+    }
+
+    /**
+     * Process each location and post one EventBus event per value, as done
+     * before the snapshots: coordinate, distance, speed and pace.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SESSION_SIZE)
+    public void eventBusFanOut() {
+        for (Coordinate coordinate : session) {
+            eventProcessor.process(coordinate, ACCURACY);
+        }
+    }
+
+    /**
+     * Post the values of the given snapshot on the EventBus, one event per
+     * value.
+     *
+     * @param metrics Live metrics snapshot
+     */
+    private void postEvents(final LiveMetrics metrics) {
+        eventBus.post(new CoordinateEvent(metrics.getCoordinate()));
+        if (metrics.isMeasured()) {
+            eventBus.post(new DistanceEvent(metrics.getDistance()));
+            eventBus.post(new SpeedEvent(metrics.getSpeed()));
+            eventBus.post(new PaceEvent(metrics.getPace()));
+        }
+    }
+
+    /**
+     * Run the deliveries handed to the executor of the conflated observer.
+     */
+    private void runDeliveries() {
+        Runnable delivery;
+        while ((delivery = deliveries.poll()) != null) {
+            delivery.run();
+        }
+    }
+
+    /**
+     * Create a processor without filter nor marker, publishing to the given
+     * bus.
+     *
+     * @param bus Bus the live metrics are published on
+     * @return Processor
+     */
+    private static LocationProcessor createProcessor(
+            final LiveMetricsBus bus) {
+        final MarkerIndex index = new MarkerIndex(
+                Collections.<Marker>emptyList());
+        return new LocationProcessor(EventBus.builder()
+                .logNoSubscriberMessages(false).sendNoSubscriberEvent(false)
+                .build(), bus, new LocationProcessor.MarkerSource() {
+                    @Override
+                    public MarkerIndex getMarkerIndex() {
+                        return index;
+                    }
+
+                    @Override
+                    public int getDistanceToMarker() {
+                        return 0;
+                    }
+                }, () -> 0, LocationFilters.create(LocationFilters.NONE),
+                DISTANCE_CNT);
+    }
+
+    /**
+     * Read the values used by the session recorder.
+     *
+     * @param metrics Live metrics snapshot
+     */
+    private void onRecorderMetrics(final LiveMetrics metrics) {
+        blackhole.consume(metrics.getDistance());
+        blackhole.consume(metrics.getCoordinates());
+    }
+
+    /**
+     * Read the values used by the GPS status.
+     *
+     * @param metrics Live metrics snapshot
+     */
+    private void onGpsStatusMetrics(final LiveMetrics metrics) {
+        blackhole.consume(metrics.getSequence());
+    }
+
+    /**
+     * Read the values used by the monitor.
+     *
+     * @param metrics Live metrics snapshot
+     */
+    private void onMonitorMetrics(final LiveMetrics metrics) {
+        blackhole.consume(metrics.getCoordinate());
+        blackhole.consume(metrics.getSpeed());
+        blackhole.consume(metrics.getPace());
+        blackhole.consume(metrics.getLastDistance());
+    }
+
+    /**
+     * Coordinate event, as posted before the snapshots.
+     */
+    public static final class CoordinateEvent {
+
+        /**
+         * Received coordinate.
+         */
+        private final Coordinate coordinate;
+
+        /**
+         * CoordinateEvent constructor.
+         *
+         * @param coordinate Received coordinate
+         */
+        CoordinateEvent(final Coordinate coordinate) {
+            this.coordinate = coordinate;
+        }
+    }
+
+    /**
+     * Distance event, as posted before the snapshots.
+     */
+    public static final class DistanceEvent {
+
+        /**
+         * Distance in meters.
+         */
+        private final float value;
+
+        /**
+         * DistanceEvent constructor.
+         *
+         * @param value Distance in meters
+         */
+        DistanceEvent(final float value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Speed event, as posted before the snapshots.
+     */
+    public static final class SpeedEvent {
+
+        /**
+         * Speed in km/h.
+         */
+        private final float value;
+
+        /**
+         * SpeedEvent constructor.
+         *
+         * @param value Speed in km/h
+         */
+        SpeedEvent(final float value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Pace event, as posted before the snapshots.
+     */
+    public static final class PaceEvent {
+
+        /**
+         * Pace in milliseconds per kilometer.
+         */
+        private final long value;
+
+        /**
+         * PaceEvent constructor.
+         *
+         * @param value Pace in milliseconds per kilometer
+         */
+        PaceEvent(final long value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Subscriber of the session recorder before the snapshots.
+     */
+    public final class RecorderSubscriber {
+
+        /**
+         * @param event Coordinate event
+         */
+        @Subscribe
+        public void onCoordinateEvent(final CoordinateEvent event) {
+            blackhole.consume(event.coordinate);
+        }
+
+        /**
+         * @param event Distance event
+         */
+        @Subscribe
+        public void onDistanceEvent(final DistanceEvent event) {
+            blackhole.consume(event.value);
+        }
+    }
+
+    /**
+     * Subscriber of the GPS status before the snapshots.
+     */
+    public final class GpsStatusSubscriber {
+
+        /**
+         * @param event Coordinate event
+         */
+        @Subscribe
+        public void onCoordinateEvent(final CoordinateEvent event) {
+            blackhole.consume(event);
+        }
+    }
+
+    /**
+     * Subscriber of the monitor before the snapshots.
+     */
+    public final class MonitorSubscriber {
+
+        /**
+         * @param event Coordinate event
+         */
+        @Subscribe
+        public void onCoordinateEvent(final CoordinateEvent event) {
+            blackhole.consume(event.coordinate);
+        }
+
+        /**
+         * @param event Distance event
+         */
+        @Subscribe
+        public void onDistanceEvent(final DistanceEvent event) {
+            blackhole.consume(event.value);
+        }
+
+        /**
+         * @param event Speed event
+         */
+        @Subscribe
+        public void onSpeedEvent(final SpeedEvent event) {
+            blackhole.consume(event.value);
+        }
+
+        /**
+         * @param event Pace event
+         */
+        @Subscribe
+        public void onPaceEvent(final PaceEvent event) {
+            blackhole.consume(event.value);
+        }
+    }
+}
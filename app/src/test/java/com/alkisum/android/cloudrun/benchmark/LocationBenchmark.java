@@ -0,0 +1,124 @@
+package com.alkisum.android.cloudrun.benchmark;
+
+import com.alkisum.android.cloudrun.location.Coordinate;
+import com.alkisum.android.cloudrun.location.Geodesy;
+import com.alkisum.android.cloudrun.location.RollingWindow;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * Benchmarks of the computations done for each location: distance, speed
+ * and pace window. Each operation processes every location of a 3-hour
+ * session, the scores are given per location.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+@State(Scope.Thread)
+public class LocationBenchmark {
+
+    /**
+     * Number of distance values of the speed and pace window.
+     */
+    private static final int DISTANCE_CNT = 5;
+
+    /**
+     * Locations of the session.
+     */
+    private List<Coordinate> session;
+
+    /**
+     * Distance between each location and the previous one in meters.
+     */
+    private float[] distances;
+
+    /**
+     * Create the session.
+     */
+    @Setup
+    public void setUp() {
+        session = BenchmarkData.createSession(1);
+        distances = new float[session.size()];
+        for (int i = 1; i < session.size(); i++) {
+            Coordinate a = session.get(i - 1);
+            Coordinate b = session.get(i);
+            distances[i] = (float) Geodesy.haversine(a.getLatitude(),
+                    a.getLongitude(), b.getLatitude(), b.getLongitude());
+        }
+    }
+
+    /**
+     * @return Sum of the Vincenty distances of the session, the distance
+     * saved with the session
+     */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SESSION_SIZE)
+    public double vincenty() {
+        double sum = 0;
+        for (int i = 1; i < session.size(); i++) {
+            Coordinate a = session.get(i - 1);
+            Coordinate b = session.get(i);
+            sum += Geodesy.vincenty(a.getLatitude(), a.getLongitude(),
+                    b.getLatitude(), b.getLongitude());
+        }
+        return sum;
+    }
+
+    /**
+     * @return Sum of the haversine distances of the session
+     */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SESSION_SIZE)
+    public double haversine() {
+        double sum = 0;
+        for (int i = 1; i < session.size(); i++) {
+            Coordinate a = session.get(i - 1);
+            Coordinate b = session.get(i);
+            sum += Geodesy.haversine(a.getLatitude(), a.getLongitude(),
+                    b.getLatitude(), b.getLongitude());
+        }
+        return sum;
+    }
+
+    /**
+     * @return Sum of the equirectangular distances of the session
+     */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SESSION_SIZE)
+    public double equirectangular() {
+        double sum = 0;
+        for (int i = 1; i < session.size(); i++) {
+            Coordinate a = session.get(i - 1);
+            Coordinate b = session.get(i);
+            sum += Geodesy.equirectangular(a.getLatitude(), a.getLongitude(),
+                    b.getLatitude(), b.getLongitude());
+        }
+        return sum;
+    }
+
+    /**
+     * Add each distance to the window and read the speed and the pace, as
+     * done for each location.
+     *
+     * @param blackhole Blackhole consuming the speeds and paces
+     */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SESSION_SIZE)
+    public void rollingWindow(final Blackhole blackhole) {
+        RollingWindow window = new RollingWindow(DISTANCE_CNT);
+        for (int i = 1; i < session.size(); i++) {
+            window.add(distances[i], session.get(i).getTime()
+                    - session.get(i - 1).getTime());
+            blackhole.consume(window.getSpeed());
+            blackhole.consume(window.getPace());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.alkisum.android.cloudrun.benchmark;
+
+import com.alkisum.android.cloudrun.location.Coordinate;
+import com.alkisum.android.cloudrun.location.LocationFilters;
+import com.alkisum.android.cloudrun.location.LocationProcessor;
+import com.alkisum.android.cloudrun.location.MarkerIndex;
+import com.alkisum.android.cloudrun.location.TraceReplayer;
+import com.alkisum.android.cloudrun.model.Marker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Benchmark of the processing of each location of a 3-hour session through
+ * each location filter, from the filter to the published live metrics. The
+ * scores are given per location.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+@State(Scope.Thread)
+public class LocationFilterBenchmark {
+
+    /**
+     * Accuracy given to each location in meters.
+     */
+    private static final float ACCURACY = 5;
+
+    /**
+     * Number of distance values used to calculate the speed and the pace.
+     */
+    private static final int DISTANCE_CNT = 5;
+
+    /**
+     * Location filter preference value.
+     */
+    @Param({LocationFilters.NONE, LocationFilters.OUTLIER,
+            LocationFilters.KALMAN, LocationFilters.STATIONARY,
+            LocationFilters.ALL})
+    public String locationFilter;
+
+    /**
+     * Locations of the session.
+     */
+    private List<Coordinate> session;
+
+    /**
+     * Replayer of the session.
+     */
+    private TraceReplayer replayer;
+
+    /**
+     * Create the session and the replayer, without any marker.
+     */
+    @Setup
+    public void setUp() {
+        session = BenchmarkData.createSession(1);
+        final MarkerIndex index = new MarkerIndex(
+                Collections.<Marker>emptyList());
+        replayer = new TraceReplayer(locationFilter, DISTANCE_CNT,
+                new LocationProcessor.MarkerSource() {
+                    @Override
+                    public MarkerIndex getMarkerIndex() {
+                        return index;
+                    }
+
+                    @Override
+                    public int getDistanceToMarker() {
+                        return 0;
+                    }
+                }, () -> 0);
+    }
+
+    /**
+     * @return Report of the replay of the session
+     * @throws InterruptedException The replay has been interrupted
+     */
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.SESSION_SIZE)
+    public TraceReplayer.Report replay() throws InterruptedException {
+        return replayer.replay(session, ACCURACY, 0);
+    }
+}
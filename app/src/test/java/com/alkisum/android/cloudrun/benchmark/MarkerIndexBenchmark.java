@@ -0,0 +1,123 @@
+package com.alkisum.android.cloudrun.benchmark;
+
+import com.alkisum.android.cloudrun.location.Geodesy;
+import com.alkisum.android.cloudrun.location.MarkerIndex;
+import com.alkisum.android.cloudrun.model.Marker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks of the marker proximity search done for each location, with
+ * the grid index and with a scan of every marker, for a small, a medium and
+ * a large number of markers. The scores are given per location.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+@State(Scope.Thread)
+public class MarkerIndexBenchmark {
+
+    /**
+     * Size of the area the markers are spread over in degrees.
+     */
+    private static final double SPREAD = 0.1;
+
+    /**
+     * Radius of the search in meters.
+     */
+    private static final double RADIUS = 50;
+
+    /**
+     * Number of searched locations, must be a power of 2.
+     */
+    private static final int LOCATION_COUNT = 1024;
+
+    /**
+     * Number of markers.
+     */
+    @Param({"10", "1000", "100000"})
+    public int markerCount;
+
+    /**
+     * Markers spread over the area.
+     */
+    private List<Marker> markers;
+
+    /**
+     * Index of the markers.
+     */
+    private MarkerIndex index;
+
+    /**
+     * Latitudes of the searched locations.
+     */
+    private final double[] latitudes = new double[LOCATION_COUNT];
+
+    /**
+     * Longitudes of the searched locations.
+     */
+    private final double[] longitudes = new double[LOCATION_COUNT];
+
+    /**
+     * Index of the next searched location.
+     */
+    private int next;
+
+    /**
+     * List receiving the markers found.
+     */
+    private final List<Marker> result = new ArrayList<>();
+
+    /**
+     * Create the markers, the index and the searched locations.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(markerCount);
+        markers = BenchmarkData.createMarkers(markerCount, SPREAD, random);
+        index = new MarkerIndex(markers);
+        for (int i = 0; i < LOCATION_COUNT; i++) {
+            latitudes[i] = BenchmarkData.LATITUDE
+                    + random.nextDouble() * SPREAD;
+            longitudes[i] = BenchmarkData.LONGITUDE
+                    + random.nextDouble() * SPREAD;
+        }
+    }
+
+    /**
+     * @return Number of markers found around the next location with the
+     * index
+     */
+    @Benchmark
+    public int index() {
+        int i = next++ & (LOCATION_COUNT - 1);
+        index.getMarkersWithin(latitudes[i], longitudes[i], RADIUS, result);
+        return result.size();
+    }
+
+    /**
+     * @return Number of markers found around the next location by computing
+     * the distance to every marker
+     */
+    @Benchmark
+    public int linearScan() {
+        int i = next++ & (LOCATION_COUNT - 1);
+        int found = 0;
+        for (Marker marker : markers) {
+            if (Geodesy.haversine(latitudes[i], longitudes[i],
+                    marker.getLatitude(), marker.getLongitude()) <= RADIUS) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
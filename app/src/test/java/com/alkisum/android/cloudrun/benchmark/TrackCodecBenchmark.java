@@ -0,0 +1,191 @@
+package com.alkisum.android.cloudrun.benchmark;
+
+import com.alkisum.android.cloudrun.database.JdbcDatabase;
+import com.alkisum.android.cloudrun.location.Track;
+import com.alkisum.android.cloudrun.location.TrackCodec;
+import com.alkisum.android.cloudrun.location.TrackPyramid;
+import com.alkisum.android.cloudrun.model.DaoMaster;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Benchmarks of the archiving and the loading of a 3-hour session: blob
+ * encoding and decoding, loading from the datapoint rows and from the
+ * archived blob of an in-memory database, and simplification for the map.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+@State(Scope.Thread)
+public class TrackCodecBenchmark {
+
+    /**
+     * Number of sessions stored in the database.
+     */
+    private static final int SESSION_COUNT = 10;
+
+    /**
+     * Session to encode.
+     */
+    private Track track;
+
+    /**
+     * Blob of the session.
+     */
+    private byte[] data;
+
+    /**
+     * In-memory database storing the sessions both as datapoint rows and as
+     * archived blobs.
+     */
+    private JdbcDatabase db;
+
+    /**
+     * Query loading the datapoints of a session, as done by Tracks for a
+     * session not archived yet.
+     */
+    private PreparedStatement rowsQuery;
+
+    /**
+     * Query loading the archived blob of a session.
+     */
+    private PreparedStatement blobQuery;
+
+    /**
+     * ID of the next loaded session.
+     */
+    private int next;
+
+    /**
+     * Create the sessions, their blobs and the database.
+     *
+     * @throws SQLException An error occurred while filling the database
+     */
+    @Setup
+    public void setUp() throws SQLException {
+        track = BenchmarkData.createTrack(2);
+        data = TrackCodec.encode(track);
+
+        db = JdbcDatabase.openInMemory();
+        DaoMaster.createAllTables(db, false);
+        Connection connection = (Connection) db.getRawDatabase();
+        connection.setAutoCommit(false);
+        PreparedStatement insertRow = connection.prepareStatement(
+                "INSERT INTO DATA_POINT (TIME, LATITUDE, LONGITUDE, "
+                        + "ELEVATION, SESSION_ID) VALUES (?, ?, ?, ?, ?)");
+        PreparedStatement insertBlob = connection.prepareStatement(
+                "INSERT INTO SESSION_TRACK (_id, DATA) VALUES (?, ?)");
+        for (int id = 1; id <= SESSION_COUNT; id++) {
+            Track session = BenchmarkData.createTrack(id);
+            for (int i = 0; i < session.size(); i++) {
+                insertRow.setLong(1, session.getTime(i));
+                insertRow.setDouble(2, session.getLatitude(i));
+                insertRow.setDouble(3, session.getLongitude(i));
+                insertRow.setDouble(4, session.getElevation(i));
+                insertRow.setLong(5, id);
+                insertRow.addBatch();
+            }
+            insertRow.executeBatch();
+            insertBlob.setLong(1, id);
+            insertBlob.setBytes(2, TrackCodec.encode(session));
+            insertBlob.executeUpdate();
+        }
+        insertRow.close();
+        insertBlob.close();
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        rowsQuery = connection.prepareStatement("SELECT \"TIME\", LATITUDE, "
+                + "LONGITUDE, ELEVATION FROM DATA_POINT WHERE SESSION_ID = ? "
+                + "ORDER BY _id");
+        blobQuery = connection.prepareStatement(
+                "SELECT DATA FROM SESSION_TRACK WHERE _id = ?");
+    }
+
+    /**
+     * Close the database.
+     *
+     * @throws SQLException An error occurred while closing the queries
+     */
+    @TearDown
+    public void tearDown() throws SQLException {
+        rowsQuery.close();
+        blobQuery.close();
+        db.close();
+    }
+
+    /**
+     * @return Blob of the session
+     */
+    @Benchmark
+    public byte[] encode() {
+        return TrackCodec.encode(track);
+    }
+
+    /**
+     * @return Session decoded from the blob
+     */
+    @Benchmark
+    public Track decode() {
+        return TrackCodec.decode(data);
+    }
+
+    /**
+     * @return Session loaded from the datapoint rows
+     * @throws SQLException An error occurred while querying the database
+     */
+    @Benchmark
+    public Track loadRows() throws SQLException {
+        rowsQuery.setLong(1, next++ % SESSION_COUNT + 1);
+        ResultSet resultSet = rowsQuery.executeQuery();
+        int size = BenchmarkData.SESSION_SIZE;
+        long[] times = new long[size];
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        double[] elevations = new double[size];
+        for (int i = 0; i < size && resultSet.next(); i++) {
+            times[i] = resultSet.getLong(1);
+            latitudes[i] = resultSet.getDouble(2);
+            longitudes[i] = resultSet.getDouble(3);
+            elevations[i] = resultSet.getDouble(4);
+        }
+        resultSet.close();
+        return new Track(times, latitudes, longitudes, elevations);
+    }
+
+    /**
+     * @return Session loaded from the archived blob
+     * @throws SQLException An error occurred while querying the database
+     */
+    @Benchmark
+    public Track loadBlob() throws SQLException {
+        blobQuery.setLong(1, next++ % SESSION_COUNT + 1);
+        ResultSet resultSet = blobQuery.executeQuery();
+        byte[] blob = resultSet.getBytes(1);
+        resultSet.close();
+        return TrackCodec.decode(blob);
+    }
+
+    /**
+     * @return Session simplified for each zoom level, with the simplified
+     * tracks of all the levels built
+     */
+    @Benchmark
+    public TrackPyramid simplify() {
+        TrackPyramid pyramid = new TrackPyramid(track);
+        for (int level = 0; level <= TrackPyramid.MAX_LEVEL; level++) {
+            pyramid.getIndices(level);
+        }
+        return pyramid;
+    }
+}
@@ -0,0 +1,114 @@
+package com.alkisum.android.cloudrun.database;
+
+import android.database.Cursor;
+
+import com.alkisum.android.cloudrun.model.DaoMaster;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests checking that SQLite uses the indexes declared on the entities to
+ * load the datapoints of a session and the last session, both on a new
+ * database and on a database migrated to schema version 5 by {@link Db}.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class DbIndexTest {
+
+    /**
+     * Query loading the datapoints of a session, as generated by greenDAO
+     * for Session.getDataPoints.
+     */
+    private static final String DATA_POINTS_QUERY = "SELECT T.\"_id\","
+            + "T.\"TIME\",T.\"LATITUDE\",T.\"LONGITUDE\",T.\"ELEVATION\","
+            + "T.\"SESSION_ID\" FROM \"DATA_POINT\" T "
+            + "WHERE T.\"SESSION_ID\"=?";
+
+    /**
+     * Query loading the last session, as generated by greenDAO for
+     * Sessions.getLastSession.
+     */
+    private static final String LAST_SESSION_QUERY = "SELECT T.\"_id\","
+            + "T.\"START\",T.\"END\",T.\"DURATION\",T.\"DISTANCE\" "
+            + "FROM \"SESSION\" T ORDER BY T.'START' DESC LIMIT 1";
+
+    /**
+     * In-memory database.
+     */
+    private JdbcDatabase db;
+
+    /**
+     * Create the database with the tables generated by greenDAO.
+     */
+    @Before
+    public void setUp() {
+        db = JdbcDatabase.openInMemory();
+        DaoMaster.createAllTables(db, false);
+    }
+
+    /**
+     * Close the database.
+     */
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    /**
+     * Check that the queries use the indexes created with the tables.
+     */
+    @Test
+    public void newDatabaseUsesIndexes() {
+        assertTrue(getQueryPlan(DATA_POINTS_QUERY).contains(
+                "USING INDEX IDX_DATA_POINT_SESSION_ID"));
+        assertTrue(getQueryPlan(LAST_SESSION_QUERY).contains(
+                "USING INDEX IDX_SESSION_START"));
+    }
+
+    /**
+     * Check that the queries scan the tables of a database of schema version
+     * 4, and use the indexes once the migration to schema version 5 has
+     * created them.
+     */
+    @Test
+    public void migratedDatabaseUsesIndexes() {
+        db.execSQL("DROP INDEX IDX_DATA_POINT_SESSION_ID");
+        db.execSQL("DROP INDEX IDX_SESSION_START");
+        assertFalse(getQueryPlan(DATA_POINTS_QUERY).contains("USING INDEX"));
+        assertFalse(getQueryPlan(LAST_SESSION_QUERY).contains("USING INDEX"));
+
+        // same statements as the migration to schema version 5
+        db.execSQL("CREATE INDEX IF NOT EXISTS IDX_DATA_POINT_SESSION_ID ON "
+                + "\"DATA_POINT\" (\"SESSION_ID\" ASC);");
+        db.execSQL("CREATE INDEX IF NOT EXISTS IDX_SESSION_START ON "
+                + "\"SESSION\" (\"START\" ASC);");
+
+        assertTrue(getQueryPlan(DATA_POINTS_QUERY).contains(
+                "USING INDEX IDX_DATA_POINT_SESSION_ID"));
+        assertTrue(getQueryPlan(LAST_SESSION_QUERY).contains(
+                "USING INDEX IDX_SESSION_START"));
+    }
+
+    /**
+     * @param sql Query, its parameters are set to 1
+     * @return Query plan chosen by SQLite
+     */
+    private String getQueryPlan(final String sql) {
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN "
+                + sql.replace("?", "1"), null);
+        StringBuilder plan = new StringBuilder();
+        while (cursor.moveToNext()) {
+            plan.append(cursor.getString(cursor.getColumnIndex("detail")))
+                    .append('\n');
+        }
+        cursor.close();
+        return plan.toString();
+    }
+}
@@ -0,0 +1,620 @@
+package com.alkisum.android.cloudrun.database;
+
+import android.content.ContentResolver;
+import android.database.CharArrayBuffer;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.DataSetObserver;
+import android.net.Uri;
+import android.os.Bundle;
+
+import org.greenrobot.greendao.database.Database;
+import org.greenrobot.greendao.database.DatabaseStatement;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * greenDAO database backed by a sqlite-jdbc connection, used to run the
+ * database code on the JVM in the tests and the benchmarks. Nested
+ * transactions behave as on Android: the outermost transaction is committed
+ * only if every nested transaction has been marked as successful.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class JdbcDatabase implements Database {
+
+    /**
+     * JDBC connection.
+     */
+    private final Connection connection;
+
+    /**
+     * Number of transactions currently open.
+     */
+    private int transactionDepth;
+
+    /**
+     * Flag set when the innermost open transaction is marked as successful.
+     */
+    private boolean successful;
+
+    /**
+     * Flag set when a nested transaction ended without being marked as
+     * successful, the outermost transaction is then rolled back.
+     */
+    private boolean failed;
+
+    /**
+     * JdbcDatabase constructor.
+     *
+     * @param connection JDBC connection
+     */
+    public JdbcDatabase(final Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Open a new in-memory database.
+     *
+     * @return Database
+     */
+    public static JdbcDatabase openInMemory() {
+        try {
+            return new JdbcDatabase(
+                    DriverManager.getConnection("jdbc:sqlite::memory:"));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public Cursor rawQuery(final String sql, final String[] selectionArgs) {
+        try {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            try {
+                if (selectionArgs != null) {
+                    for (int i = 0; i < selectionArgs.length; i++) {
+                        statement.setString(i + 1, selectionArgs[i]);
+                    }
+                }
+                return new JdbcCursor(statement.executeQuery());
+            } finally {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void execSQL(final String sql) {
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                statement.execute(sql);
+            } finally {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void execSQL(final String sql, final Object[] bindArgs) {
+        try {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            try {
+                for (int i = 0; i < bindArgs.length; i++) {
+                    statement.setObject(i + 1, bindArgs[i]);
+                }
+                statement.execute();
+            } finally {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void beginTransaction() {
+        try {
+            if (transactionDepth == 0) {
+                connection.setAutoCommit(false);
+                failed = false;
+            }
+            transactionDepth++;
+            successful = false;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void endTransaction() {
+        if (transactionDepth == 0) {
+            throw new IllegalStateException("No transaction in progress");
+        }
+        if (!successful) {
+            failed = true;
+        }
+        transactionDepth--;
+        successful = false;
+        if (transactionDepth > 0) {
+            return;
+        }
+        try {
+            if (failed) {
+                connection.rollback();
+            } else {
+                connection.commit();
+            }
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean inTransaction() {
+        return transactionDepth > 0;
+    }
+
+    @Override
+    public void setTransactionSuccessful() {
+        successful = true;
+    }
+
+    @Override
+    public DatabaseStatement compileStatement(final String sql) {
+        try {
+            return new JdbcStatement(connection.prepareStatement(sql));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean isDbLockedByCurrentThread() {
+        return transactionDepth > 0;
+    }
+
+    @Override
+    public void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public Object getRawDatabase() {
+        return connection;
+    }
+
+    /**
+     * Statement wrapping a JDBC prepared statement.
+     */
+    private final class JdbcStatement implements DatabaseStatement {
+
+        /**
+         * JDBC prepared statement.
+         */
+        private final PreparedStatement statement;
+
+        /**
+         * JdbcStatement constructor.
+         *
+         * @param statement JDBC prepared statement
+         */
+        JdbcStatement(final PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public void execute() {
+            try {
+                statement.execute();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            try {
+                ResultSet resultSet = statement.executeQuery();
+                try {
+                    resultSet.next();
+                    return resultSet.getLong(1);
+                } finally {
+                    resultSet.close();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public long executeInsert() {
+            try {
+                statement.executeUpdate();
+                Statement query = connection.createStatement();
+                try {
+                    ResultSet resultSet = query.executeQuery(
+                            "SELECT last_insert_rowid()");
+                    resultSet.next();
+                    return resultSet.getLong(1);
+                } finally {
+                    query.close();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void bindNull(final int index) {
+            bind(index, null);
+        }
+
+        @Override
+        public void bindString(final int index, final String value) {
+            bind(index, value);
+        }
+
+        @Override
+        public void bindBlob(final int index, final byte[] value) {
+            bind(index, value);
+        }
+
+        @Override
+        public void bindLong(final int index, final long value) {
+            bind(index, value);
+        }
+
+        @Override
+        public void bindDouble(final int index, final double value) {
+            bind(index, value);
+        }
+
+        /**
+         * Bind the given value to the given parameter.
+         *
+         * @param index Index of the parameter, starting at 1
+         * @param value Value to bind
+         */
+        private void bind(final int index, final Object value) {
+            try {
+                statement.setObject(index, value);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Bind null to every parameter, unbound parameters are null on
+         * Android but rejected by JDBC.
+         */
+        @Override
+        public void clearBindings() {
+            try {
+                int count = statement.getParameterMetaData()
+                        .getParameterCount();
+                for (int i = 1; i <= count; i++) {
+                    statement.setObject(i, null);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Object getRawStatement() {
+            return statement;
+        }
+    }
+
+    /**
+     * Cursor over the rows of a JDBC result set, read entirely when the
+     * cursor is created.
+     */
+    private static final class JdbcCursor implements Cursor {
+
+        /**
+         * Column names.
+         */
+        private final String[] columnNames;
+
+        /**
+         * Rows of the result set.
+         */
+        private final List<Object[]> rows = new ArrayList<>();
+
+        /**
+         * Current position, -1 before the first row.
+         */
+        private int position = -1;
+
+        /**
+         * Flag set when the cursor is closed.
+         */
+        private boolean closed;
+
+        /**
+         * JdbcCursor constructor.
+         *
+         * @param resultSet Result set to read the rows from
+         * @throws SQLException An error occurred while reading the rows
+         */
+        JdbcCursor(final ResultSet resultSet) throws SQLException {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            columnNames = new String[metaData.getColumnCount()];
+            for (int i = 0; i < columnNames.length; i++) {
+                columnNames[i] = metaData.getColumnName(i + 1);
+            }
+            while (resultSet.next()) {
+                Object[] row = new Object[columnNames.length];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = resultSet.getObject(i + 1);
+                }
+                rows.add(row);
+            }
+        }
+
+        /**
+         * @param column Column index
+         * @return Value of the column in the current row
+         */
+        private Object get(final int column) {
+            return rows.get(position)[column];
+        }
+
+        @Override
+        public int getCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getPosition() {
+            return position;
+        }
+
+        @Override
+        public boolean move(final int offset) {
+            return moveToPosition(position + offset);
+        }
+
+        @Override
+        public boolean moveToPosition(final int newPosition) {
+            position = Math.max(-1, Math.min(rows.size(), newPosition));
+            return position >= 0 && position < rows.size();
+        }
+
+        @Override
+        public boolean moveToFirst() {
+            return moveToPosition(0);
+        }
+
+        @Override
+        public boolean moveToLast() {
+            return moveToPosition(rows.size() - 1);
+        }
+
+        @Override
+        public boolean moveToNext() {
+            return moveToPosition(position + 1);
+        }
+
+        @Override
+        public boolean moveToPrevious() {
+            return moveToPosition(position - 1);
+        }
+
+        @Override
+        public boolean isFirst() {
+            return position == 0 && !rows.isEmpty();
+        }
+
+        @Override
+        public boolean isLast() {
+            return position == rows.size() - 1 && !rows.isEmpty();
+        }
+
+        @Override
+        public boolean isBeforeFirst() {
+            return rows.isEmpty() || position == -1;
+        }
+
+        @Override
+        public boolean isAfterLast() {
+            return rows.isEmpty() || position == rows.size();
+        }
+
+        @Override
+        public int getColumnIndex(final String columnName) {
+            for (int i = 0; i < columnNames.length; i++) {
+                if (columnNames[i].equalsIgnoreCase(columnName)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int getColumnIndexOrThrow(final String columnName) {
+            int index = getColumnIndex(columnName);
+            if (index == -1) {
+                throw new IllegalArgumentException(
+                        "Unknown column " + columnName);
+            }
+            return index;
+        }
+
+        @Override
+        public String getColumnName(final int columnIndex) {
+            return columnNames[columnIndex];
+        }
+
+        @Override
+        public String[] getColumnNames() {
+            return columnNames.clone();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        @Override
+        public byte[] getBlob(final int columnIndex) {
+            return (byte[]) get(columnIndex);
+        }
+
+        @Override
+        public String getString(final int columnIndex) {
+            Object value = get(columnIndex);
+            return value == null ? null : String.valueOf(value);
+        }
+
+        @Override
+        public void copyStringToBuffer(final int columnIndex,
+                                       final CharArrayBuffer buffer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public short getShort(final int columnIndex) {
+            return (short) getLong(columnIndex);
+        }
+
+        @Override
+        public int getInt(final int columnIndex) {
+            return (int) getLong(columnIndex);
+        }
+
+        @Override
+        public long getLong(final int columnIndex) {
+            Object value = get(columnIndex);
+            return value == null ? 0 : ((Number) value).longValue();
+        }
+
+        @Override
+        public float getFloat(final int columnIndex) {
+            return (float) getDouble(columnIndex);
+        }
+
+        @Override
+        public double getDouble(final int columnIndex) {
+            Object value = get(columnIndex);
+            return value == null ? 0 : ((Number) value).doubleValue();
+        }
+
+        @Override
+        public int getType(final int columnIndex) {
+            Object value = get(columnIndex);
+            if (value == null) {
+                return FIELD_TYPE_NULL;
+            } else if (value instanceof Double || value instanceof Float) {
+                return FIELD_TYPE_FLOAT;
+            } else if (value instanceof Number) {
+                return FIELD_TYPE_INTEGER;
+            } else if (value instanceof byte[]) {
+                return FIELD_TYPE_BLOB;
+            }
+            return FIELD_TYPE_STRING;
+        }
+
+        @Override
+        public boolean isNull(final int columnIndex) {
+            return get(columnIndex) == null;
+        }
+
+        @Override
+        public void deactivate() {
+        }
+
+        @Override
+        public boolean requery() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void registerContentObserver(final ContentObserver observer) {
+        }
+
+        @Override
+        public void unregisterContentObserver(
+                final ContentObserver observer) {
+        }
+
+        @Override
+        public void registerDataSetObserver(final DataSetObserver observer) {
+        }
+
+        @Override
+        public void unregisterDataSetObserver(
+                final DataSetObserver observer) {
+        }
+
+        @Override
+        public void setNotificationUri(final ContentResolver cr,
+                                       final Uri uri) {
+        }
+
+        @Override
+        public Uri getNotificationUri() {
+            return null;
+        }
+
+        @Override
+        public boolean getWantsAllOnMoveCalls() {
+            return false;
+        }
+
+        @Override
+        public void setExtras(final Bundle extras) {
+        }
+
+        @Override
+        public Bundle getExtras() {
+            return null;
+        }
+
+        @Override
+        public Bundle respond(final Bundle extras) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.alkisum.android.cloudrun.location;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests comparing the distances computed by the spherical formulas of
+ * {@link Geodesy} with the ellipsoidal distance given by the Vincenty inverse
+ * formula, which is the one used by
+ * {@code android.location.Location#distanceTo}. The time per distance of each
+ * formula is measured by {@code LocationBenchmark}.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class GeodesyTest {
+
+    /**
+     * Number of location pairs compared.
+     */
+    private static final int PAIRS = 100000;
+
+    /**
+     * Check that the haversine distance stays within 0.6% of the ellipsoidal
+     * distance for the distances between two fixes, up to 1 km, at latitudes
+     * up to 70 degrees.
+     */
+    @Test
+    public void haversineAccuracy() {
+        double maxError = maxRelativeError(new Random(1), 1000, false);
+        assertTrue(maxError < 0.006);
+    }
+
+    /**
+     * Check that the equirectangular distance stays within 0.6% of the
+     * ellipsoidal distance under the same conditions.
+     */
+    @Test
+    public void equirectangularAccuracy() {
+        double maxError = maxRelativeError(new Random(2), 1000, true);
+        assertTrue(maxError < 0.006);
+    }
+
+    /**
+     * Check the distances on known cases.
+     */
+    @Test
+    public void knownDistances() {
+        assertEquals(0, Geodesy.haversine(48.1, 11.5, 48.1, 11.5), 0);
+        // one degree of latitude on the mean sphere
+        assertEquals(111195.08, Geodesy.haversine(0, 0, 1, 0), 0.01);
+        // one degree of longitude at 60 degrees is half the one at the
+        // equator
+        assertEquals(Geodesy.haversine(0, 0, 0, 1) / 2,
+                Geodesy.haversine(60, 0, 60, 1), 1);
+        // antipodes
+        assertEquals(Math.PI * Geodesy.EARTH_RADIUS,
+                Geodesy.haversine(10, 20, -10, -160), 1);
+    }
+
+    /**
+     * Check the ellipsoidal distances on known cases of the WGS84
+     * ellipsoid.
+     */
+    @Test
+    public void knownVincentyDistances() {
+        assertEquals(0, Geodesy.vincenty(48.1, 11.5, 48.1, 11.5), 0);
+        // one degree of latitude at the equator
+        assertEquals(110574.39, Geodesy.vincenty(0, 0, 1, 0), 0.01);
+        // one degree of longitude at the equator
+        assertEquals(111319.49, Geodesy.vincenty(0, 0, 0, 1), 0.01);
+        // symmetric
+        assertEquals(Geodesy.vincenty(48.15, 11.58, 48.16, 11.6),
+                Geodesy.vincenty(48.16, 11.6, 48.15, 11.58), 1e-6);
+    }
+
+    /**
+     * Compute the largest relative error of a spherical formula compared to
+     * the Vincenty formula over random location pairs.
+     *
+     * @param random          Random generator
+     * @param maxDistance     Maximum distance between two locations in meters
+     * @param equirectangular true to check the equirectangular formula, false
+     *                        to check the haversine formula
+     * @return Largest relative error
+     */
+    private static double maxRelativeError(final Random random,
+                                           final double maxDistance,
+                                           final boolean equirectangular) {
+        double maxError = 0;
+        for (double[] pair : createPairs(random, maxDistance)) {
+            double expected = Geodesy.vincenty(pair[0], pair[1], pair[2],
+                    pair[3]);
+            double actual;
+            if (equirectangular) {
+                actual = Geodesy.equirectangular(pair[0], pair[1], pair[2],
+                        pair[3]);
+            } else {
+                actual = Geodesy.haversine(pair[0], pair[1], pair[2], pair[3]);
+            }
+            if (expected > 1) {
+                maxError = Math.max(maxError,
+                        Math.abs(actual - expected) / expected);
+            }
+        }
+        return maxError;
+    }
+
+    /**
+     * Create random location pairs, the first location at a latitude up to
+     * 70 degrees north or south, the second one at a random bearing and
+     * distance from the first one.
+     *
+     * @param random      Random generator
+     * @param maxDistance Maximum distance between two locations in meters
+     * @return Location pairs as latitude and longitude quadruplets
+     */
+    private static double[][] createPairs(final Random random,
+                                          final double maxDistance) {
+        double[][] pairs = new double[PAIRS][];
+        for (int i = 0; i < PAIRS; i++) {
+            double lat = (random.nextDouble() * 2 - 1) * 70;
+            double lon = (random.nextDouble() * 2 - 1) * 180;
+            double distance = random.nextDouble() * maxDistance;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            double lat2 = lat + Geodesy.latitudeDelta(
+                    distance * Math.cos(bearing));
+            double lon2 = lon + Geodesy.longitudeDelta(lat,
+                    distance * Math.sin(bearing));
+            pairs[i] = new double[]{lat, lon, lat2, lon2};
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,220 @@
+package com.alkisum.android.cloudrun.location;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the delivery of the {@link LiveMetrics} snapshots by
+ * {@link LiveMetricsBus} to the direct and to the conflated observers.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class LiveMetricsBusTest {
+
+    /**
+     * Number of snapshots published by the concurrent test.
+     */
+    private static final int PUBLISHED = 100000;
+
+    /**
+     * Check that an observer registered without executor receives every
+     * snapshot on the publishing thread.
+     */
+    @Test
+    public void directObserver() {
+        LiveMetricsBus bus = new LiveMetricsBus();
+        List<LiveMetrics> received = new ArrayList<>();
+        bus.register(received::add);
+
+        LiveMetrics first = createMetrics(1);
+        LiveMetrics second = createMetrics(2);
+        bus.publish(first);
+        bus.publish(second);
+
+        assertEquals(2, received.size());
+        assertSame(first, received.get(0));
+        assertSame(second, received.get(1));
+    }
+
+    /**
+     * Check that the snapshots published while a delivery is pending are
+     * merged into it, and that a new delivery is handed to the executor once
+     * the pending one has run.
+     */
+    @Test
+    public void conflatedObserver() {
+        LiveMetricsBus bus = new LiveMetricsBus();
+        Queue<Runnable> executor = new ArrayDeque<>();
+        List<LiveMetrics> received = new ArrayList<>();
+        bus.register(received::add, executor::add);
+
+        bus.publish(createMetrics(1));
+        bus.publish(createMetrics(2));
+        bus.publish(createMetrics(3));
+        assertEquals(1, executor.size());
+        assertTrue(received.isEmpty());
+
+        executor.poll().run();
+        assertEquals(1, received.size());
+        LiveMetrics merged = received.get(0);
+        assertEquals(3, merged.getSequence());
+        assertEquals(3, merged.getCoordinates().size());
+        assertEquals(3, merged.getDistance(), 0);
+
+        bus.publish(createMetrics(4));
+        assertEquals(1, executor.size());
+        executor.poll().run();
+        assertEquals(2, received.size());
+        assertEquals(4, received.get(1).getSequence());
+        assertEquals(1, received.get(1).getCoordinates().size());
+    }
+
+    /**
+     * Check that a direct and a conflated observer registered on the same
+     * bus both receive every coordinate, the direct one in separate
+     * snapshots.
+     */
+    @Test
+    public void directAndConflatedObservers() {
+        LiveMetricsBus bus = new LiveMetricsBus();
+        Queue<Runnable> executor = new ArrayDeque<>();
+        List<LiveMetrics> direct = new ArrayList<>();
+        List<LiveMetrics> conflated = new ArrayList<>();
+        bus.register(direct::add);
+        bus.register(conflated::add, executor::add);
+
+        for (int i = 1; i <= 5; i++) {
+            bus.publish(createMetrics(i));
+        }
+        executor.poll().run();
+
+        assertEquals(5, direct.size());
+        assertEquals(1, conflated.size());
+        assertEquals(5, conflated.get(0).getCoordinates().size());
+        assertTrue(executor.isEmpty());
+    }
+
+    /**
+     * Check that a delivery already handed to the executor does not reach an
+     * observer unregistered meanwhile.
+     */
+    @Test
+    public void unregisterWithPendingDelivery() {
+        LiveMetricsBus bus = new LiveMetricsBus();
+        Queue<Runnable> executor = new ArrayDeque<>();
+        List<LiveMetrics> received = new ArrayList<>();
+        LiveMetricsBus.Observer observer = received::add;
+        bus.register(observer, executor::add);
+
+        bus.publish(createMetrics(1));
+        bus.unregister(observer);
+        executor.poll().run();
+        bus.publish(createMetrics(2));
+
+        assertTrue(received.isEmpty());
+        assertTrue(executor.isEmpty());
+    }
+
+    /**
+     * Check that an observer unregistering itself while a snapshot is
+     * published does not prevent the other observers from receiving it.
+     */
+    @Test
+    public void unregisterDuringPublish() {
+        final LiveMetricsBus bus = new LiveMetricsBus();
+        final List<LiveMetrics> first = new ArrayList<>();
+        List<LiveMetrics> second = new ArrayList<>();
+        bus.register(new LiveMetricsBus.Observer() {
+            @Override
+            public void onLiveMetrics(final LiveMetrics metrics) {
+                first.add(metrics);
+                bus.unregister(this);
+            }
+        });
+        bus.register(second::add);
+
+        bus.publish(createMetrics(1));
+        bus.publish(createMetrics(2));
+
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+    }
+
+    /**
+     * Check that no coordinate is lost or delivered twice when the
+     * deliveries run on another thread while the snapshots are published,
+     * the merge racing with the delivery taking the pending snapshot.
+     *
+     * @throws InterruptedException The test has been interrupted
+     */
+    @Test
+    public void concurrentDelivery() throws InterruptedException {
+        LiveMetricsBus bus = new LiveMetricsBus();
+        final BlockingQueue<Runnable> executor = new LinkedBlockingQueue<>();
+        final List<Long> times = new ArrayList<>();
+        final long[] lastSequence = {0};
+        final int[] deliveries = {0};
+        bus.register(metrics -> {
+            for (Coordinate coordinate : metrics.getCoordinates()) {
+                times.add(coordinate.getTime());
+            }
+            lastSequence[0] = metrics.getSequence();
+            deliveries[0]++;
+        }, executor::add);
+
+        Thread consumer = new Thread(() -> {
+            try {
+                while (true) {
+                    Runnable delivery = executor.poll(1, TimeUnit.SECONDS);
+                    if (delivery == null) {
+                        return;
+                    }
+                    delivery.run();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        for (int i = 1; i <= PUBLISHED; i++) {
+            bus.publish(createMetrics(i));
+        }
+        consumer.join();
+
+        assertEquals(PUBLISHED, times.size());
+        for (int i = 0; i < PUBLISHED; i++) {
+            assertEquals(i + 1, (long) times.get(i));
+        }
+        assertEquals(PUBLISHED, lastSequence[0]);
+        assertTrue(deliveries[0] <= PUBLISHED);
+        assertFalse(deliveries[0] == 0);
+    }
+
+    /**
+     * Create a single-location snapshot with the given sequence number. The
+     * time of the location is the sequence number, and the distance is 1 m.
+     *
+     * @param sequence Sequence number
+     * @return Snapshot
+     */
+    private static LiveMetrics createMetrics(final long sequence) {
+        return new LiveMetrics(sequence, Collections.singletonList(
+                new Coordinate(sequence, 48.15, 11.58, 520)), false, 1, 1,
+                true, 10, 360000, sequence * 1000, 5);
+    }
+}
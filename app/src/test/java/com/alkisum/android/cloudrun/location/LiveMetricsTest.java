@@ -0,0 +1,95 @@
+package com.alkisum.android.cloudrun.location;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the merge of the {@link LiveMetrics} snapshots conflated by
+ * {@link LiveMetricsBus} for a slow observer.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class LiveMetricsTest {
+
+    /**
+     * Check that the merged snapshot holds the coordinates and the distance
+     * of both snapshots, and the latest values.
+     */
+    @Test
+    public void merge() {
+        Coordinate first = new Coordinate(1000, 48.15, 11.58, 520);
+        Coordinate second = new Coordinate(2000, 48.1501, 11.58, 520);
+        Coordinate third = new Coordinate(3000, 48.1502, 11.58, 520);
+        LiveMetrics older = new LiveMetrics(1, Collections.singletonList(
+                first), false, 0, 0, false, 0, 0, 1000, 8);
+        LiveMetrics newer = new LiveMetrics(2, Arrays.asList(second, third),
+                true, 22.2f, 11.1f, true, 10.5f, 342857, 3000, 4);
+
+        LiveMetrics merged = older.merge(newer);
+
+        assertEquals(2, merged.getSequence());
+        assertEquals(Arrays.asList(first, second, third),
+                merged.getCoordinates());
+        assertSame(third, merged.getCoordinate());
+        assertTrue(merged.isBatch());
+        assertEquals(22.2f, merged.getDistance(), 0);
+        assertEquals(11.1f, merged.getLastDistance(), 0);
+        assertTrue(merged.isMeasured());
+        assertEquals(10.5f, merged.getSpeed(), 0);
+        assertEquals(342857, merged.getPace());
+        assertEquals(3000, merged.getDuration());
+        assertEquals(4, merged.getAccuracy(), 0);
+    }
+
+    /**
+     * Check that the distances are added and that the snapshot is measured
+     * if any of the merged snapshots is.
+     */
+    @Test
+    public void mergeDistances() {
+        LiveMetrics older = new LiveMetrics(5, Collections.singletonList(
+                new Coordinate(1000, 48.15, 11.58, 520)), false, 3, 3, true,
+                10, 360000, 0, 5);
+        LiveMetrics newer = new LiveMetrics(6, Collections.singletonList(
+                new Coordinate(2000, 48.15, 11.58, 520)), false, 0, 0, false,
+                0, 0, 0, 5);
+
+        LiveMetrics merged = older.merge(newer);
+
+        assertEquals(3, merged.getDistance(), 0);
+        assertTrue(merged.isMeasured());
+        assertFalse(newer.isBatch());
+        assertEquals(1, newer.getCoordinates().size());
+    }
+
+    /**
+     * Check that snapshots of single locations merged together are not
+     * reported as a batch, and keep the distance to the last location apart
+     * from the summed distance.
+     */
+    @Test
+    public void mergeSingleLocations() {
+        LiveMetrics older = new LiveMetrics(7, Collections.singletonList(
+                new Coordinate(1000, 48.15, 11.58, 520)), false, 4, 4, true,
+                10, 360000, 0, 5);
+        LiveMetrics newer = new LiveMetrics(8, Collections.singletonList(
+                new Coordinate(2000, 48.15004, 11.58, 520)), false, 4.5f, 4.5f,
+                true, 12, 300000, 0, 3);
+
+        LiveMetrics merged = older.merge(newer);
+
+        assertFalse(merged.isBatch());
+        assertEquals(2, merged.getCoordinates().size());
+        assertEquals(8.5f, merged.getDistance(), 0);
+        assertEquals(4.5f, merged.getLastDistance(), 0);
+    }
+}
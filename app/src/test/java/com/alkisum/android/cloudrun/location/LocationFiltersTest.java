@@ -0,0 +1,153 @@
+package com.alkisum.android.cloudrun.location;
+
+import com.alkisum.android.cloudrun.model.Marker;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests replaying the {@link TestTraces#LOOP} session through each location
+ * filter and checking the accepted locations and the distance against the
+ * actual length of the loop. The processing time per location is measured
+ * by {@code LocationFilterBenchmark}.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class LocationFiltersTest {
+
+    /**
+     * Accuracy given to each location in meters.
+     */
+    private static final float ACCURACY = 5;
+
+    /**
+     * Number of distance values used to calculate the speed and the pace.
+     */
+    private static final int DISTANCE_CNT = 5;
+
+    /**
+     * Tolerance on the distances in meters.
+     */
+    private static final float DELTA = 1;
+
+    /**
+     * Number of locations of the session.
+     */
+    private static final int FIX_COUNT = 626;
+
+    /**
+     * Locations of the session.
+     */
+    private static List<Coordinate> trace;
+
+    /**
+     * Read the session.
+     *
+     * @throws Exception An error occurred while reading the session
+     */
+    @BeforeClass
+    public static void readTrace() throws Exception {
+        trace = TestTraces.read(TestTraces.LOOP);
+    }
+
+    /**
+     * Without filter, every location is accepted and the three spikes add
+     * almost 30% to the distance.
+     *
+     * @throws Exception The replay has been interrupted
+     */
+    @Test
+    public void none() throws Exception {
+        TraceReplayer.Report report = replay(LocationFilters.NONE);
+
+        assertEquals(FIX_COUNT, report.getAcceptedCount());
+        assertEquals(2331.0f, report.getDistance(), DELTA);
+        assertEquals(0, report.getMarkerAlertCount());
+    }
+
+    /**
+     * The outlier filter discards the three spikes.
+     *
+     * @throws Exception The replay has been interrupted
+     */
+    @Test
+    public void outlier() throws Exception {
+        TraceReplayer.Report report = replay(LocationFilters.OUTLIER);
+
+        assertEquals(FIX_COUNT - 3, report.getAcceptedCount());
+        assertEquals(1868.8f, report.getDistance(), DELTA);
+        assertEquals(0, report.getMarkerAlertCount());
+    }
+
+    /**
+     * The Kalman filter accepts every location and smooths the spikes and
+     * the jitter.
+     *
+     * @throws Exception The replay has been interrupted
+     */
+    @Test
+    public void kalman() throws Exception {
+        TraceReplayer.Report report = replay(LocationFilters.KALMAN);
+
+        assertEquals(FIX_COUNT, report.getAcceptedCount());
+        assertEquals(2033.4f, report.getDistance(), DELTA);
+        assertEquals(0, report.getMarkerAlertCount());
+    }
+
+    /**
+     * The stationary filter accepts every location and pins the ones of
+     * the stop.
+     *
+     * @throws Exception The replay has been interrupted
+     */
+    @Test
+    public void stationary() throws Exception {
+        TraceReplayer.Report report = replay(LocationFilters.STATIONARY);
+
+        assertEquals(FIX_COUNT, report.getAcceptedCount());
+        assertEquals(2278.6f, report.getDistance(), DELTA);
+        assertEquals(0, report.getMarkerAlertCount());
+    }
+
+    /**
+     * The whole chain discards the spikes and brings the distance within 2%
+     * of the length of the loop.
+     *
+     * @throws Exception The replay has been interrupted
+     */
+    @Test
+    public void all() throws Exception {
+        TraceReplayer.Report report = replay(LocationFilters.ALL);
+
+        assertEquals(FIX_COUNT - 3, report.getAcceptedCount());
+        assertEquals(1822.5f, report.getDistance(), DELTA);
+        assertEquals(0, report.getMarkerAlertCount());
+        assertTrue(Math.abs(report.getDistance() - TestTraces.LOOP_LENGTH)
+                < TestTraces.LOOP_LENGTH * 0.02);
+    }
+
+    /**
+     * Replay the session without waiting between the locations.
+     *
+     * @param locationFilter Location filter preference value
+     * @return Replay report
+     * @throws InterruptedException The replay has been interrupted
+     */
+    private static TraceReplayer.Report replay(final String locationFilter)
+            throws InterruptedException {
+        TraceReplayer replayer = new TraceReplayer(locationFilter,
+                DISTANCE_CNT, TestTraces.createMarkerSource(
+                        Collections.<Marker>emptyList(), 0), () -> 0);
+        TraceReplayer.Report report = replayer.replay(trace, ACCURACY, 0);
+        assertEquals(FIX_COUNT, report.getFixCount());
+        return report;
+    }
+}
@@ -0,0 +1,174 @@
+package com.alkisum.android.cloudrun.location;
+
+import com.alkisum.android.cloudrun.model.Marker;
+
+import org.greenrobot.eventbus.EventBus;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests comparing the locations delivered by batch to
+ * {@link LocationProcessor} with the same locations delivered one by one.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class LocationProcessorTest {
+
+    /**
+     * Accuracy given to the accepted locations in meters.
+     */
+    private static final float ACCURACY = 5;
+
+    /**
+     * Number of distance values used to calculate the speed and the pace.
+     */
+    private static final int DISTANCE_CNT = 5;
+
+    /**
+     * Number of locations in a batch.
+     */
+    private static final int BATCH_SIZE = 5;
+
+    /**
+     * Check that a session delivered by batch gives the same distance, speed
+     * and pace as the session delivered one location at a time, with one
+     * snapshot per batch.
+     */
+    @Test
+    public void batchSameAsSingle() {
+        List<Coordinate> session = createSession(new Random(1), 600);
+        List<LiveMetrics> single = new ArrayList<>();
+        List<LiveMetrics> batched = new ArrayList<>();
+        LocationProcessor singleProcessor = createProcessor(single::add);
+        LocationProcessor batchProcessor = createProcessor(batched::add);
+
+        for (Coordinate coordinate : session) {
+            assertTrue(singleProcessor.process(coordinate, ACCURACY));
+        }
+        float[] accuracies = new float[BATCH_SIZE];
+        Arrays.fill(accuracies, ACCURACY);
+        for (int i = 0; i < session.size(); i += BATCH_SIZE) {
+            assertEquals(BATCH_SIZE, batchProcessor.process(
+                    session.subList(i, i + BATCH_SIZE), accuracies));
+        }
+
+        assertEquals(session.size(), single.size());
+        assertEquals(session.size() / BATCH_SIZE, batched.size());
+        assertEquals(sumDistances(single), sumDistances(batched), 0.01);
+        for (int i = 0; i < batched.size(); i++) {
+            LiveMetrics batch = batched.get(i);
+            LiveMetrics last = single.get((i + 1) * BATCH_SIZE - 1);
+            assertTrue(batch.isBatch());
+            assertEquals(BATCH_SIZE, batch.getCoordinates().size());
+            assertEquals(last.getSpeed(), batch.getSpeed(), 0);
+            assertEquals(last.getPace(), batch.getPace());
+            assertEquals(last.getDistance(), batch.getLastDistance(), 0);
+        }
+        for (LiveMetrics metrics : single) {
+            assertFalse(metrics.isBatch());
+            assertEquals(metrics.getDistance(), metrics.getLastDistance(), 0);
+        }
+    }
+
+    /**
+     * Check that the inaccurate locations of a batch are left out of the
+     * snapshot, and that no snapshot is published if none is accepted.
+     */
+    @Test
+    public void batchWithInaccurateLocations() {
+        List<Coordinate> session = createSession(new Random(2), 3);
+        List<LiveMetrics> published = new ArrayList<>();
+        LocationProcessor processor = createProcessor(published::add);
+
+        assertEquals(0, processor.process(session, new float[]{
+                LocationProcessor.LOCATION_ACCURACY, 50, 100}));
+        assertTrue(published.isEmpty());
+
+        assertEquals(2, processor.process(session, new float[]{
+                ACCURACY, 50, ACCURACY}));
+        assertEquals(1, published.size());
+        LiveMetrics metrics = published.get(0);
+        assertEquals(Arrays.asList(session.get(0), session.get(2)),
+                metrics.getCoordinates());
+        assertEquals(session.get(2).distanceTo(session.get(0)),
+                metrics.getDistance(), 0.01);
+        assertEquals(metrics.getDistance(), metrics.getLastDistance(), 0);
+    }
+
+    /**
+     * Check that a batch of a single location is processed as a single
+     * location.
+     */
+    @Test
+    public void batchOfOneLocation() {
+        List<LiveMetrics> published = new ArrayList<>();
+        LocationProcessor processor = createProcessor(published::add);
+
+        assertEquals(1, processor.process(Collections.singletonList(
+                new Coordinate(1000, 48.15, 11.58, 520)),
+                new float[]{ACCURACY}));
+
+        assertEquals(1, published.size());
+        assertFalse(published.get(0).isBatch());
+    }
+
+    /**
+     * Create a processor without filter nor marker, publishing to the given
+     * observer.
+     *
+     * @param observer Observer of the published snapshots
+     * @return Processor
+     */
+    private static LocationProcessor createProcessor(
+            final LiveMetricsBus.Observer observer) {
+        LiveMetricsBus bus = new LiveMetricsBus();
+        bus.register(observer);
+        return new LocationProcessor(EventBus.builder()
+                .logNoSubscriberMessages(false).sendNoSubscriberEvent(false)
+                .build(), bus, TestTraces.createMarkerSource(
+                Collections.<Marker>emptyList(), 0), () -> 0,
+                LocationFilters.create(LocationFilters.NONE), DISTANCE_CNT);
+    }
+
+    /**
+     * Create the locations of a run recorded at about 1 Hz.
+     *
+     * @param random Random generator
+     * @param size   Number of locations
+     * @return Locations
+     */
+    private static List<Coordinate> createSession(final Random random,
+                                                  final int size) {
+        Track track = TestTraces.createTrack(random, size);
+        List<Coordinate> session = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            session.add(new Coordinate(track.getTime(i),
+                    track.getLatitude(i), track.getLongitude(i),
+                    track.getElevation(i)));
+        }
+        return session;
+    }
+
+    /**
+     * @param metrics Published snapshots
+     * @return Sum of the distances of the given snapshots in meters
+     */
+    private static double sumDistances(final List<LiveMetrics> metrics) {
+        double sum = 0;
+        for (LiveMetrics m : metrics) {
+            sum += m.getDistance();
+        }
+        return sum;
+    }
+}
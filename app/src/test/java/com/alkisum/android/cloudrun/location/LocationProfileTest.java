@@ -0,0 +1,172 @@
+package com.alkisum.android.cloudrun.location;
+
+import com.alkisum.android.cloudrun.tasks.RecorderState;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests of the selection of the {@link LocationProfile} from the recorder
+ * state, the speed and the visibility of the screen and of the map.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class LocationProfileTest {
+
+    /**
+     * Check the profiles selected when no session is running.
+     */
+    @Test
+    public void standby() {
+        assertSame(LocationProfile.STANDBY, select(null, RecorderState.IDLE,
+                0, true, false));
+        assertSame(LocationProfile.STANDBY, select(null, RecorderState.IDLE,
+                10, true, true));
+        assertSame(LocationProfile.STANDBY_BACKGROUND, select(null,
+                RecorderState.IDLE, 10, false, false));
+        assertSame(LocationProfile.STANDBY, select(null,
+                RecorderState.PAUSED, 0, true, false));
+        assertSame(LocationProfile.PAUSED_BACKGROUND, select(
+                LocationProfile.RUNNING_BACKGROUND, RecorderState.PAUSED, 10,
+                false, false));
+    }
+
+    /**
+     * Check the profiles selected when a session is running, in foreground
+     * and in background.
+     */
+    @Test
+    public void running() {
+        assertSame(LocationProfile.RUNNING, select(null,
+                RecorderState.RUNNING, 10, true, false));
+        assertSame(LocationProfile.RUNNING_MAP, select(null,
+                RecorderState.RUNNING, 10, true, true));
+        assertSame(LocationProfile.RUNNING_MAP, select(
+                LocationProfile.RUNNING_STILL, RecorderState.RUNNING, 0, true,
+                true));
+        assertSame(LocationProfile.RUNNING_BACKGROUND, select(null,
+                RecorderState.RUNNING, 10, false, false));
+        // the map is not drawn while the screen is off
+        assertSame(LocationProfile.RUNNING_BACKGROUND, select(null,
+                RecorderState.RUNNING, 10, false, true));
+        assertSame(LocationProfile.RUNNING_STILL_BACKGROUND, select(null,
+                RecorderState.RUNNING, 0, false, false));
+    }
+
+    /**
+     * Check that a moving user is considered still under 2 km/h only.
+     */
+    @Test
+    public void movingToStill() {
+        assertSame(LocationProfile.RUNNING, select(LocationProfile.RUNNING,
+                RecorderState.RUNNING, 2, true, false));
+        assertSame(LocationProfile.RUNNING_STILL, select(
+                LocationProfile.RUNNING, RecorderState.RUNNING, 1.99f, true,
+                false));
+        assertSame(LocationProfile.RUNNING_BACKGROUND, select(
+                LocationProfile.RUNNING_BACKGROUND, RecorderState.RUNNING, 2,
+                false, false));
+        assertSame(LocationProfile.RUNNING_STILL_BACKGROUND, select(
+                LocationProfile.RUNNING_BACKGROUND, RecorderState.RUNNING,
+                1.99f, false, false));
+    }
+
+    /**
+     * Check that a still user is considered moving again from 4 km/h only,
+     * so that a speed between 2 and 4 km/h does not switch the profiles back
+     * and forth.
+     */
+    @Test
+    public void stillToMoving() {
+        assertSame(LocationProfile.RUNNING_STILL, select(
+                LocationProfile.RUNNING_STILL, RecorderState.RUNNING, 3.99f,
+                true, false));
+        assertSame(LocationProfile.RUNNING, select(
+                LocationProfile.RUNNING_STILL, RecorderState.RUNNING, 4, true,
+                false));
+        assertSame(LocationProfile.RUNNING_STILL_BACKGROUND, select(
+                LocationProfile.RUNNING_STILL_BACKGROUND,
+                RecorderState.RUNNING, 3.99f, false, false));
+        assertSame(LocationProfile.RUNNING_BACKGROUND, select(
+                LocationProfile.RUNNING_STILL_BACKGROUND,
+                RecorderState.RUNNING, 4, false, false));
+        // the hysteresis is kept when the screen is turned on or off
+        assertSame(LocationProfile.RUNNING_STILL, select(
+                LocationProfile.RUNNING_STILL_BACKGROUND,
+                RecorderState.RUNNING, 3, true, false));
+        assertSame(LocationProfile.RUNNING_BACKGROUND, select(
+                LocationProfile.RUNNING, RecorderState.RUNNING, 3, false,
+                false));
+    }
+
+    /**
+     * Check that a speed oscillating between 2 and 4 km/h keeps the profile.
+     */
+    @Test
+    public void noFlapping() {
+        float[] speeds = {5, 3.5f, 2.5f, 3.9f, 1.5f, 2.5f, 3.9f, 2.1f, 4.5f};
+        LocationProfile[] expected = {
+                LocationProfile.RUNNING,
+                LocationProfile.RUNNING,
+                LocationProfile.RUNNING,
+                LocationProfile.RUNNING,
+                LocationProfile.RUNNING_STILL,
+                LocationProfile.RUNNING_STILL,
+                LocationProfile.RUNNING_STILL,
+                LocationProfile.RUNNING_STILL,
+                LocationProfile.RUNNING
+        };
+        LocationProfile profile = null;
+        int changes = 0;
+        for (int i = 0; i < speeds.length; i++) {
+            LocationProfile selected = select(profile, RecorderState.RUNNING,
+                    speeds[i], true, false);
+            if (profile != null && selected != profile) {
+                changes++;
+            }
+            profile = selected;
+            assertSame("speed " + speeds[i], expected[i], profile);
+        }
+        assertEquals(2, changes);
+    }
+
+    /**
+     * Check the time without location after which the GPS is not considered
+     * fixed anymore.
+     */
+    @Test
+    public void statusTimeout() {
+        assertEquals(4000, LocationProfile.STANDBY.getStatusTimeout());
+        assertEquals(2000, LocationProfile.RUNNING_MAP.getStatusTimeout());
+        assertEquals(6000, LocationProfile.RUNNING_STILL.getStatusTimeout());
+        assertEquals(22000,
+                LocationProfile.RUNNING_BACKGROUND.getStatusTimeout());
+        assertEquals(35000,
+                LocationProfile.RUNNING_STILL_BACKGROUND.getStatusTimeout());
+        assertEquals(70000,
+                LocationProfile.STANDBY_BACKGROUND.getStatusTimeout());
+    }
+
+    /**
+     * Select the profile with the given conditions.
+     *
+     * @param current       Profile currently used, null if none
+     * @param recorderState Recorder state
+     * @param speed         Last speed in km/h
+     * @param screenOn      true if the screen is on, false otherwise
+     * @param mapVisible    true if the map is visible, false otherwise
+     * @return Selected profile
+     */
+    private static LocationProfile select(final LocationProfile current,
+                                          final int recorderState,
+                                          final float speed,
+                                          final boolean screenOn,
+                                          final boolean mapVisible) {
+        return LocationProfile.select(current, recorderState, speed,
+                screenOn, mapVisible);
+    }
+}
@@ -0,0 +1,184 @@
+package com.alkisum.android.cloudrun.location;
+
+import com.alkisum.android.cloudrun.model.Marker;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests comparing the markers found by {@link MarkerIndex} with a linear scan
+ * of the markers.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class MarkerIndexTest {
+
+    /**
+     * Latitude of the area the markers are spread over.
+     */
+    private static final double LATITUDE = 48.137;
+
+    /**
+     * Longitude of the area the markers are spread over.
+     */
+    private static final double LONGITUDE = 11.575;
+
+    /**
+     * Size of the area the markers are spread over in degrees.
+     */
+    private static final double SPREAD = 0.1;
+
+    /**
+     * Radius of the queries in meters.
+     */
+    private static final double RADIUS = 50;
+
+    /**
+     * Maximum number of queries run for each marker count.
+     */
+    private static final int QUERIES = 2000;
+
+    /**
+     * Number of markers scanned over all the queries, used to limit the
+     * number of queries when the linear scan becomes slow.
+     */
+    private static final int SCANNED_MARKERS = 20000000;
+
+    /**
+     * Mean earth radius in meters.
+     */
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    /**
+     * Check that the index finds the same markers as the linear scan, for a
+     * small, a medium and a large number of markers.
+     */
+    @Test
+    public void sameResultsAsLinearScan() {
+        for (int count : new int[]{10, 1000, 100000}) {
+            List<Marker> markers = createMarkers(count, new Random(count));
+            MarkerIndex index = new MarkerIndex(markers);
+            Random random = new Random(-count);
+            List<Marker> result = new ArrayList<>();
+            for (int i = 0; i < getQueryCount(count); i++) {
+                double latitude = randomLatitude(random);
+                double longitude = randomLongitude(random);
+                index.getMarkersWithin(latitude, longitude, RADIUS, result);
+                assertEquals(new HashSet<>(linearScan(markers, latitude,
+                        longitude, RADIUS)), new HashSet<>(result));
+            }
+        }
+    }
+
+    /**
+     * Check that a radius covering the whole area, which visits more cells
+     * than there are markers, still finds every marker.
+     */
+    @Test
+    public void largeRadiusFindsEveryMarker() {
+        List<Marker> markers = createMarkers(1000, new Random(1));
+        MarkerIndex index = new MarkerIndex(markers);
+        List<Marker> result = new ArrayList<>();
+        index.getMarkersWithin(LATITUDE + SPREAD / 2,
+                LONGITUDE + SPREAD / 2, 20000, result);
+        assertEquals(markers.size(), result.size());
+    }
+
+    /**
+     * Find the markers within the given radius by computing the distance to
+     * every marker.
+     *
+     * @param markers   Markers to scan
+     * @param latitude  Latitude of the location
+     * @param longitude Longitude of the location
+     * @param radius    Radius in meters
+     * @return Markers found
+     */
+    private static List<Marker> linearScan(final List<Marker> markers,
+                                           final double latitude,
+                                           final double longitude,
+                                           final double radius) {
+        List<Marker> result = new ArrayList<>();
+        for (Marker marker : markers) {
+            if (haversine(latitude, longitude, marker.getLatitude(),
+                    marker.getLongitude()) <= radius) {
+                result.add(marker);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compute the great-circle distance between two locations with the
+     * haversine formula.
+     *
+     * @param lat1 Latitude of the first location
+     * @param lon1 Longitude of the first location
+     * @param lat2 Latitude of the second location
+     * @param lon2 Longitude of the second location
+     * @return Distance in meters
+     */
+    private static double haversine(final double lat1, final double lon1,
+                                    final double lat2, final double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinDeltaPhi = Math.sin((phi2 - phi1) / 2);
+        double sinDeltaLambda = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double a = sinDeltaPhi * sinDeltaPhi
+                + Math.cos(phi1) * Math.cos(phi2)
+                * sinDeltaLambda * sinDeltaLambda;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Create markers spread randomly over the area.
+     *
+     * @param count  Number of markers
+     * @param random Random generator
+     * @return Markers created
+     */
+    private static List<Marker> createMarkers(final int count,
+                                              final Random random) {
+        List<Marker> markers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Marker marker = new Marker();
+            marker.setId((long) i);
+            marker.setLatitude(randomLatitude(random));
+            marker.setLongitude(randomLongitude(random));
+            markers.add(marker);
+        }
+        return markers;
+    }
+
+    /**
+     * @param count Number of markers
+     * @return Number of queries to run for the given number of markers
+     */
+    private static int getQueryCount(final int count) {
+        return Math.min(QUERIES, SCANNED_MARKERS / count);
+    }
+
+    /**
+     * @param random Random generator
+     * @return Random latitude within the area
+     */
+    private static double randomLatitude(final Random random) {
+        return LATITUDE + random.nextDouble() * SPREAD;
+    }
+
+    /**
+     * @param random Random generator
+     * @return Random longitude within the area
+     */
+    private static double randomLongitude(final Random random) {
+        return LONGITUDE + random.nextDouble() * SPREAD;
+    }
+}
@@ -0,0 +1,141 @@
+package com.alkisum.android.cloudrun.location;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests checking the running sums of {@link RollingWindow} against sums
+ * computed from the values added, after the ring buffer has wrapped around
+ * and after the window has been resized.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class RollingWindowTest {
+
+    /**
+     * Maximum error allowed on the sum of the distances in meters.
+     */
+    private static final double DELTA = 0.001;
+
+    /**
+     * Check that the sums are the ones of the last values added, while the
+     * window fills up and after the ring buffer has wrapped around several
+     * times.
+     */
+    @Test
+    public void sumsAfterWraparound() {
+        Random random = new Random(1);
+        RollingWindow window = new RollingWindow(5);
+        float[] distances = new float[23];
+        long[] times = new long[distances.length];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = 1 + random.nextFloat() * 10;
+            times[i] = 500 + random.nextInt(2000);
+            window.add(distances[i], times[i]);
+            int size = Math.min(i + 1, 5);
+            assertEquals(size, window.size());
+            assertSums(window, distances, times, i + 1 - size, i + 1);
+        }
+    }
+
+    /**
+     * Check that resizing a wrapped window to a smaller capacity keeps the
+     * most recent values, and that the sums stay right when values are added
+     * afterwards.
+     */
+    @Test
+    public void resizeSmaller() {
+        RollingWindow window = new RollingWindow(5);
+        float[] distances = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        long[] times = {100, 200, 300, 400, 500, 600, 700, 800, 900, 1000};
+        for (int i = 0; i < 7; i++) {
+            window.add(distances[i], times[i]);
+        }
+
+        window.resize(3);
+        assertEquals(3, window.getCapacity());
+        assertEquals(3, window.size());
+        assertSums(window, distances, times, 4, 7);
+
+        for (int i = 7; i < distances.length; i++) {
+            window.add(distances[i], times[i]);
+            assertEquals(3, window.size());
+            assertSums(window, distances, times, i - 2, i + 1);
+        }
+    }
+
+    /**
+     * Check that resizing a wrapped window to a larger capacity keeps all
+     * the values, and that the window then grows up to the new capacity.
+     */
+    @Test
+    public void resizeLarger() {
+        RollingWindow window = new RollingWindow(3);
+        float[] distances = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        long[] times = {100, 200, 300, 400, 500, 600, 700, 800, 900, 1000};
+        for (int i = 0; i < 5; i++) {
+            window.add(distances[i], times[i]);
+        }
+
+        window.resize(6);
+        assertEquals(6, window.getCapacity());
+        assertEquals(3, window.size());
+        assertSums(window, distances, times, 2, 5);
+
+        for (int i = 5; i < distances.length; i++) {
+            window.add(distances[i], times[i]);
+            int size = Math.min(i - 1, 6);
+            assertEquals(size, window.size());
+            assertSums(window, distances, times, i + 1 - size, i + 1);
+        }
+    }
+
+    /**
+     * Check that the speed and the pace are computed from the sums.
+     */
+    @Test
+    public void speedAndPace() {
+        RollingWindow window = new RollingWindow(2);
+        window.add(50, 10000);
+        window.add(10, 1000);
+        window.add(10, 1000);
+
+        // 20 m in 2 s
+        assertEquals(36, window.getSpeed(), 0.001);
+        assertEquals(100000, window.getPace());
+
+        window.clear();
+        assertEquals(0, window.size());
+        assertEquals(0, window.getTotalDistance(), 0);
+        assertEquals(0, window.getTotalTime());
+    }
+
+    /**
+     * Check that the sums of the window are the ones of the given values
+     * between the given indexes.
+     *
+     * @param window    Window to check
+     * @param distances Distances added
+     * @param times     Times added
+     * @param from      Index of the oldest value expected in the window
+     * @param to        Index following the newest value in the window
+     */
+    private static void assertSums(final RollingWindow window,
+                                   final float[] distances,
+                                   final long[] times, final int from,
+                                   final int to) {
+        double distance = 0;
+        long time = 0;
+        for (int i = from; i < to; i++) {
+            distance += distances[i];
+            time += times[i];
+        }
+        assertEquals(distance, window.getTotalDistance(), DELTA);
+        assertEquals(time, window.getTotalTime());
+    }
+}
@@ -0,0 +1,138 @@
+package com.alkisum.android.cloudrun.location;
+
+import com.alkisum.android.cloudrun.model.Marker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Utility class providing the sessions used by the tests, read from the test
+ * resources or generated, and the markers to replay them with.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+final class TestTraces {
+
+    /**
+     * Session exported in the JSON format: a simulated loop sampled at 1 Hz
+     * for about 10 minutes, with a drifting GPS error, a 30-second stop and
+     * three location spikes.
+     */
+    static final String LOOP = "/CloudRun_2019-03-10_083000.json";
+
+    /**
+     * Actual length of the {@link #LOOP} session in meters.
+     */
+    static final float LOOP_LENGTH = 1800;
+
+    /**
+     * TestTraces constructor.
+     */
+    private TestTraces() {
+
+    }
+
+    /**
+     * Read the locations of the given exported session.
+     *
+     * @param resource Name of the session resource
+     * @return Locations of the session
+     * @throws IOException   An error occurred while reading the resource
+     * @throws JSONException An error occurred while parsing the JSON
+     */
+    static List<Coordinate> read(final String resource) throws IOException,
+            JSONException {
+        InputStream inputStream =
+                TestTraces.class.getResourceAsStream(resource);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+        }
+
+        JSONArray jsonDataPoints = new JSONObject(outputStream.toString(
+                "UTF-8")).getJSONArray("dataPoints");
+        List<Coordinate> coordinates = new ArrayList<>(
+                jsonDataPoints.length());
+        for (int i = 0; i < jsonDataPoints.length(); i++) {
+            JSONObject jsonDataPoint = jsonDataPoints.getJSONObject(i);
+            coordinates.add(new Coordinate(jsonDataPoint.getLong("time"),
+                    jsonDataPoint.getDouble("latitude"),
+                    jsonDataPoint.getDouble("longitude"),
+                    jsonDataPoint.getDouble("elevation")));
+        }
+        return coordinates;
+    }
+
+    /**
+     * Create a marker source returning the given markers.
+     *
+     * @param markers          Markers
+     * @param distanceToMarker Distance in meters a marker must be within to
+     *                         trigger a marker alert
+     * @return Marker source
+     */
+    static LocationProcessor.MarkerSource createMarkerSource(
+            final List<Marker> markers, final int distanceToMarker) {
+        final MarkerIndex index = new MarkerIndex(markers);
+        return new LocationProcessor.MarkerSource() {
+            @Override
+            public MarkerIndex getMarkerIndex() {
+                return index;
+            }
+
+            @Override
+            public int getDistanceToMarker() {
+                return distanceToMarker;
+            }
+        };
+    }
+
+    /**
+     * Create a track of a run recorded at about 1 Hz.
+     *
+     * @param random Random generator
+     * @param size   Number of locations
+     * @return Track
+     */
+    static Track createTrack(final Random random, final int size) {
+        long[] times = new long[size];
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        double[] elevations = new double[size];
+        long time = 1552206600000L;
+        double latitude = 48.15;
+        double longitude = 11.58;
+        double elevation = 520;
+        double bearing = 0;
+        for (int i = 0; i < size; i++) {
+            time += 1000 + random.nextInt(50) - 25;
+            bearing += random.nextGaussian() * 0.1;
+            double step = 3 + random.nextGaussian() * 0.2;
+            latitude += Geodesy.latitudeDelta(step * Math.cos(bearing));
+            longitude += Geodesy.longitudeDelta(latitude,
+                    step * Math.sin(bearing));
+            elevation += random.nextGaussian() * 0.3;
+            times[i] = time;
+            latitudes[i] = latitude;
+            longitudes[i] = longitude;
+            elevations[i] = elevation;
+        }
+        return new Track(times, latitudes, longitudes, elevations);
+    }
+}
@@ -0,0 +1,148 @@
+package com.alkisum.android.cloudrun.location;
+
+import com.alkisum.android.cloudrun.model.Marker;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests replaying the {@link TestTraces#LOOP} session through
+ * {@link TraceReplayer}.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class TraceReplayerTest {
+
+    /**
+     * Accuracy given to each location in meters, the export does not store
+     * it.
+     */
+    private static final float ACCURACY = 5;
+
+    /**
+     * Number of distance values used to calculate the speed and the pace.
+     */
+    private static final int DISTANCE_CNT = 5;
+
+    /**
+     * Distance in meters a marker must be within to trigger a marker alert.
+     */
+    private static final int DISTANCE_TO_MARKER = 20;
+
+    /**
+     * Marker source without any marker.
+     */
+    private static final LocationProcessor.MarkerSource NO_MARKERS =
+            TestTraces.createMarkerSource(Collections.<Marker>emptyList(),
+                    DISTANCE_TO_MARKER);
+
+    /**
+     * Locations of the session.
+     */
+    private static List<Coordinate> trace;
+
+    /**
+     * Read the session.
+     *
+     * @throws Exception An error occurred while reading the session
+     */
+    @BeforeClass
+    public static void readTrace() throws Exception {
+        trace = TestTraces.read(TestTraces.LOOP);
+    }
+
+    /**
+     * Without filter, every location is accepted and written, and the
+     * distance is the length of the raw trace, spikes included.
+     *
+     * @throws Exception The replay has been interrupted
+     */
+    @Test
+    public void replayWithoutFilter() throws Exception {
+        TraceReplayer.Report report = replay(LocationFilters.NONE, NO_MARKERS);
+
+        assertEquals(626, report.getFixCount());
+        assertEquals(626, report.getAcceptedCount());
+        assertEquals(626, report.getDataPointWrites());
+        assertEquals(getLength(trace), report.getDistance(), 0.5);
+        assertEquals(625000, report.getDuration());
+        assertEquals(0, report.getMarkerAlertCount());
+    }
+
+    /**
+     * With every filter, the three spikes are discarded, the locations of
+     * the stop are pinned, and the distance gets within 1.5% of the 1800
+     * meters of the loop.
+     *
+     * @throws Exception The replay has been interrupted
+     */
+    @Test
+    public void replayWithAllFilters() throws Exception {
+        TraceReplayer.Report report = replay(LocationFilters.ALL, NO_MARKERS);
+
+        assertEquals(626, report.getFixCount());
+        assertEquals(623, report.getAcceptedCount());
+        assertEquals(623, report.getDataPointWrites());
+        assertEquals(1822.5, report.getDistance(), 1);
+        assertEquals(625000, report.getDuration());
+        assertEquals(0, report.getMarkerAlertCount());
+    }
+
+    /**
+     * A marker on the loop triggers a single alert.
+     *
+     * @throws Exception The replay has been interrupted
+     */
+    @Test
+    public void replayWithMarker() throws Exception {
+        Marker marker = new Marker();
+        marker.setId(1L);
+        // corner at 600 meters east of the start
+        marker.setLatitude(48.15);
+        marker.setLongitude(11.58 + Geodesy.longitudeDelta(48.15, 600));
+        TraceReplayer.Report report = replay(LocationFilters.ALL,
+                TestTraces.createMarkerSource(
+                        Collections.singletonList(marker),
+                        DISTANCE_TO_MARKER));
+
+        assertEquals(623, report.getAcceptedCount());
+        assertEquals(1822.5, report.getDistance(), 1);
+        assertEquals(1, report.getMarkerAlertCount());
+    }
+
+    /**
+     * Replay the recorded session without waiting between the locations.
+     *
+     * @param locationFilter Location filter preference value
+     * @param markerSource   Source of the markers
+     * @return Replay report
+     * @throws InterruptedException The replay has been interrupted
+     */
+    private static TraceReplayer.Report replay(
+            final String locationFilter,
+            final LocationProcessor.MarkerSource markerSource)
+            throws InterruptedException {
+        TraceReplayer replayer = new TraceReplayer(locationFilter,
+                DISTANCE_CNT, markerSource, () -> 0);
+        return replayer.replay(trace, ACCURACY, 0);
+    }
+
+    /**
+     * @param coordinates Locations
+     * @return Sum of the distances between consecutive locations in meters
+     */
+    private static float getLength(final List<Coordinate> coordinates) {
+        float length = 0;
+        for (int i = 1; i < coordinates.size(); i++) {
+            length += coordinates.get(i).distanceTo(coordinates.get(i - 1));
+        }
+        return length;
+    }
+}
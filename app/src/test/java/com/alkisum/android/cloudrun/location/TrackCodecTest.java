@@ -0,0 +1,211 @@
+package com.alkisum.android.cloudrun.location;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link TrackCodec}, and comparison of the size of the archived
+ * tracks against the datapoint rows, on SQLite databases using the tables
+ * generated by greenDAO.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class TrackCodecTest {
+
+    /**
+     * Number of locations of a 3-hour session recorded at 1 Hz.
+     */
+    private static final int SESSION_SIZE = 3 * 3600;
+
+    /**
+     * Number of sessions stored in the compared databases.
+     */
+    private static final int SESSION_COUNT = 10;
+
+    /**
+     * Temporary folder for the compared databases.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Check that a decoded track matches the encoded one to the precision of
+     * the format.
+     */
+    @Test
+    public void roundTrip() {
+        Track track = TestTraces.createTrack(new Random(1), SESSION_SIZE);
+        Track decoded = TrackCodec.decode(TrackCodec.encode(track));
+        assertTracksEqual(track, decoded);
+    }
+
+    /**
+     * Check that the missing values are kept missing.
+     */
+    @Test
+    public void roundTripWithMissingValues() {
+        Track track = new Track(new long[]{1000, 2000, 3000},
+                new double[]{48.1, Double.NaN, 48.2},
+                new double[]{11.5, Double.NaN, 11.6},
+                new double[]{Double.NaN, 520, 521.5});
+        Track decoded = TrackCodec.decode(TrackCodec.encode(track));
+        assertTracksEqual(track, decoded);
+    }
+
+    /**
+     * Check that an empty track is encoded.
+     */
+    @Test
+    public void roundTripEmpty() {
+        Track track = new Track(new long[0], new double[0], new double[0],
+                new double[0]);
+        assertEquals(0, TrackCodec.decode(TrackCodec.encode(track)).size());
+    }
+
+    /**
+     * Check that a truncated blob is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void truncated() {
+        byte[] data = TrackCodec.encode(
+                TestTraces.createTrack(new Random(2), 10));
+        byte[] truncated = new byte[data.length - 1];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        TrackCodec.decode(truncated);
+    }
+
+    /**
+     * Check that a blob announcing more locations than it can hold is
+     * rejected before the arrays are allocated.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSize() {
+        byte[] data = TrackCodec.encode(
+                TestTraces.createTrack(new Random(2), 10));
+        // replace the size varint with 2^31 - 1
+        byte[] invalid = new byte[data.length + 4];
+        invalid[0] = data[0];
+        invalid[1] = (byte) 0xFF;
+        invalid[2] = (byte) 0xFF;
+        invalid[3] = (byte) 0xFF;
+        invalid[4] = (byte) 0xFF;
+        invalid[5] = 0x07;
+        System.arraycopy(data, 2, invalid, 6, data.length - 2);
+        TrackCodec.decode(invalid);
+    }
+
+    /**
+     * Compare the size of the database storing the datapoint rows of 3-hour
+     * sessions with the database storing the same sessions as archived
+     * blobs. The blobs must be at least 4 times smaller.
+     *
+     * @throws Exception An error occurred with the databases
+     */
+    @Test
+    public void size() throws Exception {
+        Class.forName("org.sqlite.JDBC");
+        File rowsFile = folder.newFile("rows.db");
+        File blobsFile = folder.newFile("blobs.db");
+        Connection rows = DriverManager.getConnection(
+                "jdbc:sqlite:" + rowsFile.getPath());
+        Connection blobs = DriverManager.getConnection(
+                "jdbc:sqlite:" + blobsFile.getPath());
+        try {
+            fill(rows, blobs);
+        } finally {
+            rows.close();
+            blobs.close();
+        }
+        assertTrue(blobsFile.length() * 4 < rowsFile.length());
+    }
+
+    /**
+     * Create the DATA_POINT table in the first database and the
+     * SESSION_TRACK table in the second one, and store the same sessions in
+     * both.
+     *
+     * @param rows  Database storing the datapoint rows
+     * @param blobs Database storing the archived blobs
+     * @throws SQLException An error occurred with the databases
+     */
+    private static void fill(final Connection rows, final Connection blobs)
+            throws SQLException {
+        Statement statement = rows.createStatement();
+        statement.execute("CREATE TABLE \"DATA_POINT\" ("
+                + "\"_id\" INTEGER PRIMARY KEY AUTOINCREMENT ,"
+                + "\"TIME\" INTEGER NOT NULL ,\"LATITUDE\" REAL,"
+                + "\"LONGITUDE\" REAL,\"ELEVATION\" REAL,"
+                + "\"SESSION_ID\" INTEGER NOT NULL );");
+        statement.execute("CREATE INDEX IDX_DATA_POINT_SESSION_ID ON "
+                + "\"DATA_POINT\" (\"SESSION_ID\" ASC);");
+        statement.close();
+        statement = blobs.createStatement();
+        statement.execute("CREATE TABLE \"SESSION_TRACK\" ("
+                + "\"_id\" INTEGER PRIMARY KEY ,\"DATA\" BLOB NOT NULL );");
+        statement.close();
+
+        rows.setAutoCommit(false);
+        blobs.setAutoCommit(false);
+        PreparedStatement insertRow = rows.prepareStatement(
+                "INSERT INTO DATA_POINT (TIME, LATITUDE, LONGITUDE, "
+                        + "ELEVATION, SESSION_ID) VALUES (?, ?, ?, ?, ?)");
+        PreparedStatement insertBlob = blobs.prepareStatement(
+                "INSERT INTO SESSION_TRACK (_id, DATA) VALUES (?, ?)");
+        Random random = new Random(3);
+        for (long id = 1; id <= SESSION_COUNT; id++) {
+            Track track = TestTraces.createTrack(random, SESSION_SIZE);
+            for (int i = 0; i < track.size(); i++) {
+                insertRow.setLong(1, track.getTime(i));
+                insertRow.setDouble(2, track.getLatitude(i));
+                insertRow.setDouble(3, track.getLongitude(i));
+                insertRow.setDouble(4, track.getElevation(i));
+                insertRow.setLong(5, id);
+                insertRow.addBatch();
+            }
+            insertRow.executeBatch();
+            insertBlob.setLong(1, id);
+            insertBlob.setBytes(2, TrackCodec.encode(track));
+            insertBlob.executeUpdate();
+        }
+        insertRow.close();
+        insertBlob.close();
+        rows.commit();
+        blobs.commit();
+        rows.setAutoCommit(true);
+        blobs.setAutoCommit(true);
+    }
+
+    /**
+     * Check that the given tracks are equal to the precision of the format.
+     *
+     * @param expected Expected track
+     * @param actual   Actual track
+     */
+    private static void assertTracksEqual(final Track expected,
+                                          final Track actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getTime(i), actual.getTime(i));
+            assertEquals(expected.getLatitude(i), actual.getLatitude(i),
+                    1e-7);
+            assertEquals(expected.getLongitude(i), actual.getLongitude(i),
+                    1e-7);
+            assertEquals(expected.getElevation(i), actual.getElevation(i),
+                    0.01);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.alkisum.android.cloudrun.location;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link TrackPyramid} on a 4-hour session recorded at 1 Hz,
+ * checking the number of vertices given to the map for each zoom level and
+ * the error of the simplified track. The time spent simplifying the track
+ * is measured by the JMH benchmarks.
+ *
+ * The map draws the polyline in a time proportional to its number of
+ * vertices. Frame times can only be measured on a device, so the vertex
+ * count is the figure compared here.
+ *
+ * @author Alkisum
+ * @version 4.2
+ * @since 4.2
+ */
+public class TrackPyramidTest {
+
+    /**
+     * Number of locations of a 4-hour session recorded at 1 Hz.
+     */
+    private static final int SESSION_SIZE = 4 * 3600;
+
+    /**
+     * Size of a pixel at the equator at zoom level 0 in meters.
+     */
+    private static final double EQUATOR_PIXEL_SIZE = 156543.03392;
+
+    /**
+     * Lowest zoom level checked, showing the whole session.
+     */
+    private static final int MIN_LEVEL = 10;
+
+    /**
+     * Zoom level the session map is opened with.
+     */
+    private static final int OPEN_LEVEL = 19;
+
+    /**
+     * Session to simplify.
+     */
+    private static Track track;
+
+    /**
+     * Create the session.
+     */
+    @BeforeClass
+    public static void createTrack() {
+        track = TestTraces.createTrack(new Random(1), SESSION_SIZE);
+    }
+
+    /**
+     * Check the number of vertices of each level. Each level must keep at
+     * least as many vertices as the previous one, and the levels showing the
+     * whole session must keep a small fraction of the locations.
+     */
+    @Test
+    public void vertexCounts() {
+        TrackPyramid pyramid = new TrackPyramid(track);
+        int previous = 0;
+        for (int level = MIN_LEVEL; level <= TrackPyramid.MAX_LEVEL;
+             level++) {
+            int count = pyramid.getIndices(level).length;
+            assertTrue("level " + level, count >= previous);
+            previous = count;
+        }
+        assertEquals(78, pyramid.getIndices(MIN_LEVEL).length);
+        assertEquals(527, pyramid.getIndices(MIN_LEVEL + 4).length);
+        assertEquals(5369, pyramid.getIndices(OPEN_LEVEL).length);
+        assertEquals(12562, pyramid.getIndices(TrackPyramid.MAX_LEVEL).length);
+    }
+
+    /**
+     * Check that every location dropped from a level is within a pixel of
+     * the simplified track, and that the end locations are kept.
+     */
+    @Test
+    public void errorWithinOnePixel() {
+        TrackPyramid pyramid = new TrackPyramid(track);
+        double lat0 = track.getLatitude(0);
+        double lon0 = track.getLongitude(0);
+        double cosLatitude = Math.cos(Math.toRadians(lat0));
+        for (int level = MIN_LEVEL; level <= OPEN_LEVEL; level++) {
+            double tolerance = EQUATOR_PIXEL_SIZE * cosLatitude
+                    / Math.pow(2, level);
+            int[] indices = pyramid.getIndices(level);
+            assertEquals(0, indices[0]);
+            assertEquals(SESSION_SIZE - 1, indices[indices.length - 1]);
+
+            // check the dropped locations between each pair of kept ones
+            for (int k = 1; k < indices.length; k++) {
+                int a = indices[k - 1];
+                int b = indices[k];
+                for (int i = a + 1; i < b; i++) {
+                    double distance = distanceToSegment(
+                            project(track.getLongitude(i) - lon0,
+                                    cosLatitude),
+                            project(track.getLatitude(i) - lat0, 1),
+                            project(track.getLongitude(a) - lon0,
+                                    cosLatitude),
+                            project(track.getLatitude(a) - lat0, 1),
+                            project(track.getLongitude(b) - lon0,
+                                    cosLatitude),
+                            project(track.getLatitude(b) - lat0, 1));
+                    assertTrue("level " + level + ", location " + i,
+                            distance <= tolerance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Project a coordinate difference on the local plane used by the
+     * pyramid.
+     *
+     * @param degrees     Coordinate difference in degrees
+     * @param cosLatitude Cosine of the latitude for the longitudes, 1 for the
+     *                    latitudes
+     * @return Distance on the plane in meters
+     */
+    private static double project(final double degrees,
+                                  final double cosLatitude) {
+        return Geodesy.EARTH_RADIUS * cosLatitude * Math.toRadians(degrees);
+    }
+
+    /**
+     * Compute the distance between a point and a segment on a plane.
+     *
+     * @param px X of the point
+     * @param py Y of the point
+     * @param ax X of the segment start
+     * @param ay Y of the segment start
+     * @param bx X of the segment end
+     * @param by Y of the segment end
+     * @return Distance
+     */
+    private static double distanceToSegment(final double px, final double py,
+                                            final double ax, final double ay,
+                                            final double bx,
+                                            final double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSquared > 0) {
+            t = ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+            t = Math.max(0, Math.min(1, t));
+        }
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+}